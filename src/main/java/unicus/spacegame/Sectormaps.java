@@ -1,6 +1,15 @@
 
 package unicus.spacegame;
 
+import unicus.spacegame.simulation.TickScheduler;
+import unicus.spacegame.starmap.GalaxyConfig;
+import unicus.spacegame.starmap.StarIndex;
+import unicus.spacegame.starmap.StarStore;
+import unicus.spacegame.starmap.StarTable;
+import unicus.spacegame.starmap.StarmapFile;
+import unicus.spacegame.structures.starsystem.StarSystemCache;
+import unicus.spacegame.utilities.LruCache;
+
 import javax.imageio.ImageIO;
 import javax.swing.*;
 import java.awt.*;
@@ -15,6 +24,9 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntFunction;
 
 
 public class Sectormaps extends JPanel implements Scrollable {
@@ -28,6 +40,9 @@ public class Sectormaps extends JPanel implements Scrollable {
     int xmid = xwidth/2; //A triangle's base is xwidth; a triangle's area is xmid*yheight.
     int room = 30; //pixels, how far apart stars should be
     double angle = 0.25; //radians, how far apart connecting hyperlanes should be, About 15 degrees.
+    int maxstars = 4; //most stars in a sector
+    //candidate points per wanted star, before placeStars gives up on a crowded sector.
+    static final int PLACEMENT_ATTEMPTS = 30;
 
     int x_secs = 5;
     int y_secs = 4;
@@ -35,6 +50,16 @@ public class Sectormaps extends JPanel implements Scrollable {
     int[][][] secs_stars_coords = new int[t_secs][][]; //[n][m][] is {x,y,seed for Lars}.
     StarData[][] starObjects;
 
+    //Set for maps made from a table of stars, such as a file. Sectors are read from the table when first touched.
+    StarTable starTable;
+
+    //Set for lazily generated maps, and maps made from a table.
+    // Sectors are generated or read when first touched, and kept until evicted, see sector(int).
+    LruCache<Integer, LazySector> sectorCache;
+    long masterSeed;
+    //a sector and its four neighbours, so linking a sector never evicts the sectors it links to.
+    private static final int MIN_CACHED_SECTORS = 5;
+
     boolean showGrid = true;
     boolean showShip = false;
     StarData shipLocation;
@@ -46,6 +71,28 @@ public class Sectormaps extends JPanel implements Scrollable {
     Image shipSprite;
     ImageObserver shipSpriteObserver;
 
+    static final Color LANE_COLOR = new Color(100, 70, 20);
+    static final Color SHIP_LANE_COLOR = new Color(60, 70, 220);
+    static final Color STAR_COLOR = new Color(200, 200, 90);
+    static final Color GRID_COLOR = new Color(240, 60, 140);
+    static final Color GLYPH_TEXT_COLOR = new Color(220, 220, 220);
+    static final float GLYPH_FONT_SIZE = 10;
+    static final int GLYPH_LABEL_WIDTH = 40;
+    //size in pixels of a cached tile of the map, and the number of tiles kept. 64 tiles is 16 MB.
+    static final int TILE_SIZE = 256;
+    static final int CACHED_TILES = 64;
+    boolean tiledRendering = true;
+    final LruCache<Long, BufferedImage> tiles = new LruCache<>(CACHED_TILES);
+    //finds the stars to draw in an area.
+    final StarIndex starIndex = new StarIndex(this);
+
+    //scale the map is drawn at. Below LOD_ZOOM, sectors are drawn as glyphs, see getGlyph(int).
+    public static final double MIN_ZOOM = 0.02;
+    public static final double MAX_ZOOM = 4;
+    public static final double LOD_ZOOM = 0.4;
+    double zoom = 1;
+    int[][] glyphRows;
+
     public static void main(String[] args) {
         JFrame frame = new JFrame("Map Frame");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -169,10 +216,10 @@ public class Sectormaps extends JPanel implements Scrollable {
         int[][] result = new int[2][];
         result[0] = sector1[0].clone();
         result[1] = sector2[0].clone();
-        double shortest = Math.sqrt(Math.pow((sector1[0][0]-sector2[0][0]),2) + Math.pow((sector1[0][1]-sector2[0][1]),2));
+        long shortest = distanceSq(sector1[0][0], sector1[0][1], sector2[0][0], sector2[0][1]);
         for (int i=0; i<sector1.length; i++) {
             for (int j=0; j<sector2.length; j++) {
-                double hyp = Math.sqrt(Math.pow((sector1[i][0]-sector2[j][0]),2) + Math.pow((sector1[i][1]-sector2[j][1]),2));
+                long hyp = distanceSq(sector1[i][0], sector1[i][1], sector2[j][0], sector2[j][1]);
                 if (hyp < shortest) {
                     shortest = hyp;
                     result[0] = sector1[i].clone();
@@ -187,10 +234,10 @@ public class Sectormaps extends JPanel implements Scrollable {
         StarData[] result = new StarData[2];
         result[0] = sector1[0];
         result[1] = sector2[0];
-        double shortest = Math.sqrt(Math.pow((sector1[0].location.x-sector2[0].location.x),2) + Math.pow((sector1[0].location.y-sector2[0].location.y),2));
+        long shortest = distanceSq(sector1[0].location, sector2[0].location);
         for (int i=0; i<sector1.length; i++) {
             for (int j=0; j<sector2.length; j++) {
-                double hyp = Math.sqrt(Math.pow((sector1[i].location.x-sector2[j].location.x),2) + Math.pow((sector1[i].location.y-sector2[j].location.y),2));
+                long hyp = distanceSq(sector1[i].location, sector2[j].location);
                 if (hyp < shortest) {
                     shortest = hyp;
                     result[0] = sector1[i];
@@ -200,6 +247,15 @@ public class Sectormaps extends JPanel implements Scrollable {
         }
         return result;
     }
+    /** Squared distance between two points. Orders pairs the same as the distance, without a square root. */
+    public static long distanceSq(int x1, int y1, int x2, int y2) {
+        long dx = x1 - x2;
+        long dy = y1 - y2;
+        return dx*dx + dy*dy;
+    }
+    public static long distanceSq(Point p1, Point p2) {
+        return distanceSq(p1.x, p1.y, p2.x, p2.y);
+    }
     /** Returns a point firmly inside the triangle coordinates given as argument. Complicated math is involved.
      * Uses a slight buffer to avoid points being picked right on the edge.
      * Buffer size is a function variable, not a parameter, for consistency.
@@ -214,6 +270,19 @@ public class Sectormaps extends JPanel implements Scrollable {
      * @return int[2] x and y coordinates of a point.
      */
     public int[] pointInTriangle(int P1x, int P1y, int P2x, int P2y, int P3x, int P3y) {
+        double s = TriangleRandom.nextDouble();
+        double t = Math.sqrt(TriangleRandom.nextDouble()); //The sqrt counters biasing towards one corner that would otherwise result from wedge compression
+        return pointInTriangle(new int[][]{{P1x, P1y}, {P2x, P2y}, {P3x, P3y}}, s, t);
+    }
+
+    /** Returns the point at (s, t) firmly inside a triangle, see pointInTriangle above.
+     * @param sc [3][2] coordinates of the triangle's corners.
+     * @param s Random value from 0 to 1, along the edge from the second to the third corner.
+     * @param t Square root of a random value from 0 to 1, from the first corner towards that edge.
+     * @return int[2] x and y coordinates of a point.
+     */
+    static int[] pointInTriangle(int[][] sc, double s, double t) {
+        int P1x = sc[0][0], P1y = sc[0][1], P2x = sc[1][0], P2y = sc[1][1], P3x = sc[2][0], P3y = sc[2][1];
         double bf = 0.03; //buffer fraction, where 0.1 = 10%.
         int Q1x = (int) (P1x + (bf*((P2x-P1x)+(P3x-P1x)))); //New corner coordinates, moved bf of the way towards the others
         int Q1y = (int) (P1y + (bf*((P2y-P1y)+(P3y-P1y))));
@@ -222,8 +291,6 @@ public class Sectormaps extends JPanel implements Scrollable {
         int Q3x = (int) (P3x + (bf*((P1x-P3x)+(P2x-P3x))));
         int Q3y = (int) (P3y + (bf*((P1y-P3y)+(P2y-P3y))));
         //Now Q1,Q2,Q3 are the new corners
-        double s = TriangleRandom.nextDouble();
-        double t = Math.sqrt(TriangleRandom.nextDouble()); //The sqrt counters biasing towards one corner that would otherwise result from wedge compression
         double proto_x = (((1-t)*Q1x) + (t*(((1-s)*Q2x) + (s*Q3x)))); //Randomly weighted average of the coordinates of the corners
         double proto_y = (((1-t)*Q1y) + (t*(((1-s)*Q2y) + (s*Q3y)))); //Ditto
         int x = (int) proto_x;
@@ -231,12 +298,50 @@ public class Sectormaps extends JPanel implements Scrollable {
         return new int[]{x,y};
     }
 
+    /** Places up to n stars in a sector's triangle, keeping the room and angle rules of tooCloseInSector and tooLinearInSector.
+     * Each candidate point is checked only against the stars already placed, and kept if it fits.
+     * There are at most n * PLACEMENT_ATTEMPTS candidates, so placement always ends,
+     * but a crowded sector may get fewer than n stars. The first star always fits.
+     *
+     * @param sc [3][2] coordinates of the triangle's corners.
+     * @param n The number of stars wanted.
+     * @param random Random values from 0 to 1.
+     * @return [up to n][2] x and y coordinates of the stars.
+     */
+    int[][] placeStars(int[][] sc, int n, DoubleSupplier random) {
+        int[][] stars = new int[n][];
+        int placed = 0;
+        for (int attempt = 0; attempt < n * PLACEMENT_ATTEMPTS && placed < n; attempt++) {
+            int[] candidate = pointInTriangle(sc, random.getAsDouble(), Math.sqrt(random.getAsDouble()));
+            if (fitsInSector(stars, placed, candidate))
+                stars[placed++] = candidate;
+        }
+        return placed == n ? stars : Arrays.copyOf(stars, placed);
+    }
+
+    /** Whether a new star keeps its distance to, and is not in line with, the first {@code placed} stars.
+     * Same checks as tooCloseInSector and tooLinearInSector, for the pairs and triplets that include the new star.
+     */
+    private boolean fitsInSector(int[][] stars, int placed, int[] star) {
+        for (int i = 0; i < placed; i++) {
+            if (tooCloseStarPair(star, stars[i], room))
+                return false;
+        }
+        for (int i = 0; i < placed; i++) {
+            for (int j = 0; j < i; j++) {
+                if (tooLinearTriple(star, stars[i], stars[j], angle))
+                    return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Toggles sub-sector grid on/off
      */
     public void toggleGrid() {
         showGrid = !showGrid;
-        repaint();
+        invalidateTiles();
     }
 
     /**
@@ -245,7 +350,7 @@ public class Sectormaps extends JPanel implements Scrollable {
      */
     public void setShowGrid(boolean value) {
         showGrid = value;
-        repaint();
+        invalidateTiles();
     }
 
     /** Randomly generates stars and connections between them to populate sectors */
@@ -254,35 +359,16 @@ public class Sectormaps extends JPanel implements Scrollable {
         for (int i=0; i<x_secs; i++) {
             for (int j=0; j<y_secs; j++) {
                 int ij = i+(j*x_secs); // linear number of sector, for array indexing
-                int[][] sc = new int[3][2]; //sc=sector_corners
-                int up = (i%2 == j%2) ? 1 : 0; //1 if triangle 'points' up, 0 if down.
-                int down = 1-up;
-                sc[0] = new int[]{xstart + (i * xmid), ystart + (yheight * (up+j))};
-                sc[1] = new int[]{(xstart + xmid + (i * xmid)), ystart + (yheight * (down + j))};
-                sc[2] = new int[]{xstart + xwidth + (i * xmid), ystart + (yheight * (up + j))};
-                int secstars_n = rft.nextInt(4)+1; //0-3 +1
-                int[][] secstars_c = new int[secstars_n][2];
-                /* NOTE: If number of stars (secstars_n) times minimum spacing (room) is too large compared to sector size,
-                 * stars may never fit and generator algorithm may loop forever.
-                 * assert ensures at least two stars fit in one sector, but is not a full guarantee of safety.
-                 * The general problem of circle-packing in a triangle is as yet unsolved. */
-                assert (room < xwidth || room < yheight );
-                do {
-                    for (int n = 0; n < secstars_n; n++) {
-                        int[] starcoords = pointInTriangle(sc[0][0], sc[0][1], sc[1][0], sc[1][1], sc[2][0], sc[2][1]);
-                        secstars_c[n] = starcoords.clone();
-                    }
-                } while (tooCloseInSector(secstars_c, room) || tooLinearInSector(secstars_c, angle));
-                secs_stars_coords[ij] = secstars_c.clone();
+                int[][] sc = sectorCorners(i, j); //sc=sector_corners
+                int secstars_n = rft.nextInt(maxstars)+1; //1 to maxstars
+                secs_stars_coords[ij] = placeStars(sc, secstars_n, TriangleRandom::nextDouble);
             }
         }
         //Make seeds for Lars
         for (int i=0; i<secs_stars_coords.length; i++) {
             starObjects[i] = new StarData[secs_stars_coords[i].length];
             for (int j=0; j<secs_stars_coords[i].length; j++) {
-                int seedseed = secs_stars_coords[i][j][0]*10000 + secs_stars_coords[i][j][1];
-                Random lars = new Random(seedseed);
-                int seed = lars.nextInt();
+                int seed = larsSeed(secs_stars_coords[i][j]);
                 int[] coords_plus_seed = Arrays.copyOf(secs_stars_coords[i][j], secs_stars_coords[i][j].length+1);
                 coords_plus_seed[2] = seed;
                 secs_stars_coords[i][j] = coords_plus_seed.clone();
@@ -291,29 +377,7 @@ public class Sectormaps extends JPanel implements Scrollable {
         }
         //figure out which stars are connected to which others in sector
         for (int i=0; i < starObjects.length; i++ ) {
-            StarData[] localSector = starObjects[i];
-            if (localSector.length == 1) {
-                //Pass
-            } else if (localSector.length == 2) {
-                localSector[0].connections.add(localSector[1]);
-                localSector[1].connections.add(localSector[0]);
-            } else if (localSector.length == 3) {
-                for (int j=0; j<3; j++) {
-                    for (int k=0; k<3; k++) {
-                        if (j != k) {
-                            localSector[j].connections.add(localSector[k]);
-                        }
-                    }
-                }
-            } else if (localSector.length >= 4) {
-                int hub = new Random(localSector[0].seed).nextInt(localSector.length); //uses the lars seed but does not consume it
-                for (int v = 0; v < localSector.length; v++) {
-                    if (v != hub) {
-                        localSector[v].connections.add(localSector[hub]);
-                        localSector[hub].connections.add(localSector[v]);
-                    }
-                }
-            }
+            linkInSector(starObjects[i]);
         }
         //Connections across sectors
         for (int i = 1; i < starObjects.length; i++) {
@@ -322,8 +386,7 @@ public class Sectormaps extends JPanel implements Scrollable {
                 crossSectorPair[0].connections.add(crossSectorPair[1]);
                 crossSectorPair[1].connections.add(crossSectorPair[0]);
             }
-            int colrowsum = (i%x_secs)+(i/x_secs);
-            if (i >= x_secs && (colrowsum%2 == 1)) { //Roughly every 2nd sector should be linked to vertical above sector
+            if (i >= x_secs && isLinkedAbove(i)) {
                 StarData[] crossSectorPair = getClosestStarDataPair(starObjects[i-x_secs],starObjects[i]);
                 crossSectorPair[0].connections.add(crossSectorPair[1]);
                 crossSectorPair[1].connections.add(crossSectorPair[0]);
@@ -331,22 +394,91 @@ public class Sectormaps extends JPanel implements Scrollable {
         }
     }
 
+    /**
+     * Gets the corners of a sector's triangle.
+     * @param i Column of the sector.
+     * @param j Row of the sector.
+     * @return [3][2] x and y coordinates of the corners.
+     */
+    int[][] sectorCorners(int i, int j) {
+        int[][] sc = new int[3][2];
+        int up = (i%2 == j%2) ? 1 : 0; //1 if triangle 'points' up, 0 if down.
+        int down = 1-up;
+        sc[0] = new int[]{xstart + (i * xmid), ystart + (yheight * (up+j))};
+        sc[1] = new int[]{(xstart + xmid + (i * xmid)), ystart + (yheight * (down + j))};
+        sc[2] = new int[]{xstart + xwidth + (i * xmid), ystart + (yheight * (up + j))};
+        return sc;
+    }
+
+    /** The seed for Lars, made from the coordinates of a star. */
+    static int larsSeed(int[] starcoords) {
+        int seedseed = starcoords[0]*10000 + starcoords[1];
+        return new Random(seedseed).nextInt();
+    }
+
+    /** Roughly every 2nd sector is linked to the vertical above sector. */
+    boolean isLinkedAbove(int sector) {
+        int colrowsum = (sector%x_secs)+(sector/x_secs);
+        return colrowsum%2 == 1;
+    }
+
+    /** Connects the stars within a sector. */
+    void linkInSector(StarData[] localSector) {
+        if (localSector.length == 1) {
+            //Pass
+        } else if (localSector.length == 2) {
+            localSector[0].connections.add(localSector[1]);
+            localSector[1].connections.add(localSector[0]);
+        } else if (localSector.length == 3) {
+            for (int j=0; j<3; j++) {
+                for (int k=0; k<3; k++) {
+                    if (j != k) {
+                        localSector[j].connections.add(localSector[k]);
+                    }
+                }
+            }
+        } else if (localSector.length >= 4) {
+            int hub = new Random(localSector[0].seed).nextInt(localSector.length); //uses the lars seed but does not consume it
+            for (int v = 0; v < localSector.length; v++) {
+                if (v != hub) {
+                    localSector[v].connections.add(localSector[hub]);
+                    localSector[hub].connections.add(localSector[v]);
+                }
+            }
+        }
+    }
+
     /**
      * Sets refrence to the star the spaceship in on the sectormap.
      * @param shipLocation
      */
     public void setShipLocation(StarData shipLocation) {
+        //only the old and new places of the ship are drawn again, the tiles under them are unchanged.
+        if (showShip && this.shipLocation != null)
+            repaint(getShipBounds(this.shipLocation));
         showShip = true;
         this.shipLocation = shipLocation;
-        repaint();
+        if (shipLocation != null) {
+            repaint(getShipBounds(shipLocation));
+            //the systems the ship may open next.
+            StarSystemCache.getSimpleInstance().prefetchAround(shipLocation);
+        }
+    }
+
+    /**
+     * @return The star the spaceship is at, or null if it has not been set.
+     */
+    public StarData getShipLocation() {
+        return shipLocation;
     }
 
     /**
      * Hides the spaceship from view.
      */
     public void hideShip() {
+        if (showShip && shipLocation != null)
+            repaint(getShipBounds(shipLocation));
         showShip = false;
-        repaint();
     }
 
     public Sectormaps(){
@@ -356,6 +488,159 @@ public class Sectormaps extends JPanel implements Scrollable {
         this(new Random(seed));
     }
     public Sectormaps(Random sourceRand) {
+        initPanel();
+
+        //  (old hardcoded random initializers)
+        //rft = new Random(41356);
+        //TriangleRandom = new Random(333);
+
+        rft = new Random(sourceRand.nextLong());
+        TriangleRandom = new Random(sourceRand.nextLong());
+        starObjects = new StarData[t_secs][];
+
+        initializeStarsAndLanes();
+
+        //Sets pixel size of panel, for use with scrolledPanes and layout managers.
+        //NOTE: If number of or size of sectors change in runtime, remember to update this.
+        // Set using number of sectors times sector height and width + start x and y + 20px padding at the end of both axis.
+        // - Lars
+        updatePreferredSize();
+    }
+
+    /**
+     * Creates a map of the stars in a starmap file.
+     * Stars are read from the file a sector at a time, when first asked for, so the size of the map does not matter.
+     * Sectors read are kept for the life of the map.
+     * The file must be kept open for as long as the map is used.
+     * @param starmapFile The stars, see {@link StarmapFile}.
+     */
+    public Sectormaps(StarmapFile starmapFile) {
+        this(starmapFile, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a map of the stars in a table, such as a {@link StarmapFile} or a {@link StarStore}.
+     * The StarData of a sector are made from the table when the sector is first touched,
+     *  and kept in a cache of the most recently used sectors, so only those take the memory of objects.
+     *
+     * Note: a StarData evicted from the cache and touched again is a new object, compare stars with equals.
+     * Note: a neighbour in another sector is a copy without lanes, get it from the map for its own lanes.
+     * @param starTable The stars.
+     * @param cachedSectors Maximum number of sectors kept as StarData, at least 5.
+     */
+    public Sectormaps(StarTable starTable, int cachedSectors) {
+        initPanel();
+
+        this.starTable = starTable;
+        applyConfig(starTable.getConfig());
+        secs_stars_coords = null;
+        sectorCache = new LruCache<>(Math.max(cachedSectors, MIN_CACHED_SECTORS));
+
+        updatePreferredSize();
+    }
+
+    /**
+     * Creates a lazily generated map.
+     * A sector's stars and hyperlanes are generated from the seed and the sector's position when first touched,
+     *  and kept in a cache of the most recently used sectors.
+     * Creating the map costs the same for any number of sectors.
+     *
+     * Note: the galaxy differs from the one the other constructors make from the same seed.
+     * Note: a StarData evicted from the cache and touched again is a new object, compare stars with equals.
+     * Note: a neighbour in another sector is a copy without lanes, get it from the map for its own lanes.
+     * @param seed The master seed of the galaxy.
+     * @param xSectors Number of sectors on the x axis.
+     * @param ySectors Number of sectors on the y axis.
+     * @param cachedSectors Maximum number of sectors kept in memory, at least 5.
+     */
+    public Sectormaps(long seed, int xSectors, int ySectors, int cachedSectors) {
+        this(new GalaxyConfig(seed, xSectors, ySectors), cachedSectors);
+    }
+
+    /**
+     * Creates a lazily generated map, see {@link #Sectormaps(long, int, int, int)}.
+     * @param config The size of the galaxy, and how its stars are spread.
+     * @param cachedSectors Maximum number of sectors kept in memory, at least 5.
+     */
+    public Sectormaps(GalaxyConfig config, int cachedSectors) {
+        initPanel();
+        applyConfig(config);
+        secs_stars_coords = null;
+        sectorCache = new LruCache<>(Math.max(cachedSectors, MIN_CACHED_SECTORS));
+
+        updatePreferredSize();
+    }
+
+    /**
+     * Generates a map in full, a sector at a time, on a scheduler.
+     * Every sector is generated from the master seed and its own index alone, see {@link #generateSector(int)},
+     *  then linked to its neighbours, so the galaxy is the same for any number of threads,
+     *  and the same as the lazily generated map with the same seed.
+     * Every star is kept as a StarData, for a compact copy see {@link StarStore#copyOf(Sectormaps)}.
+     * @param seed The master seed of the galaxy.
+     * @param xSectors Number of sectors on the x axis.
+     * @param ySectors Number of sectors on the y axis.
+     * @param scheduler Runs the generation, {@link TickScheduler#SERIAL} or a parallel scheduler.
+     */
+    public Sectormaps(long seed, int xSectors, int ySectors, TickScheduler scheduler) {
+        this(new GalaxyConfig(seed, xSectors, ySectors), scheduler);
+    }
+
+    /**
+     * Generates a map in full, see {@link #Sectormaps(long, int, int, TickScheduler)}.
+     * @param config The size of the galaxy, and how its stars are spread.
+     * @param scheduler Runs the generation, {@link TickScheduler#SERIAL} or a parallel scheduler.
+     */
+    public Sectormaps(GalaxyConfig config, TickScheduler scheduler) {
+        initPanel();
+        applyConfig(config);
+        starObjects = new StarData[t_secs][];
+        //stars first, as linking a sector reads the stars of its neighbours.
+        scheduler.forEachIndex(t_secs, s -> starObjects[s] = generateSector(s));
+        scheduler.forEachIndex(t_secs, s -> linkSector(s, starObjects[s], n -> starObjects[n]));
+
+        secs_stars_coords = new int[t_secs][][];
+        for (int s = 0; s < t_secs; s++) {
+            secs_stars_coords[s] = new int[starObjects[s].length][];
+            for (int n = 0; n < starObjects[s].length; n++) {
+                StarData star = starObjects[s][n];
+                secs_stars_coords[s][n] = new int[]{star.location.x, star.location.y, (int) star.seed};
+            }
+        }
+
+        updatePreferredSize();
+    }
+
+    //Sets the size and settings of the galaxy. Called by the constructors, before any sector is made.
+    private void applyConfig(GalaxyConfig config) {
+        config.validate();
+        masterSeed = config.seed;
+        x_secs = config.xSectors;
+        y_secs = config.ySectors;
+        t_secs = x_secs * y_secs;
+        xwidth = config.sectorWidth;
+        xmid = xwidth / 2;
+        yheight = config.sectorHeight;
+        maxstars = config.maxStars;
+        room = config.room;
+        angle = config.angle;
+    }
+
+    /**
+     * @return The size and settings of the galaxy.
+     *  The seed is only set for maps generated from a master seed, see {@link #Sectormaps(GalaxyConfig, int)}.
+     */
+    public GalaxyConfig getConfig() {
+        GalaxyConfig config = new GalaxyConfig(masterSeed, x_secs, y_secs);
+        config.sectorWidth = xwidth;
+        config.sectorHeight = yheight;
+        config.maxStars = maxstars;
+        config.room = room;
+        config.angle = angle;
+        return config;
+    }
+
+    private void initPanel() {
         //initial background
         this.setOpaque(true);
         this.setBackground(Color.black);
@@ -392,23 +677,155 @@ public class Sectormaps extends JPanel implements Scrollable {
                 return true; //Note: not 100% sure what this is needed for (animation maybe?). Should try to figure it out.
             }
         };
+    }
 
+    /**
+     * Gets the stars of a sector.
+     * For a lazy map, or a map made from a table, the sector's stars and hyperlanes are made if they are not cached.
+     * @return The stars of the sector.
+     */
+    StarData[] sector(int subSector) {
+        if (sectorCache != null)
+            return lazySector(subSector);
+        return starObjects[subSector];
+    }
 
-        //  (old hardcoded random initializers)
-        //rft = new Random(41356);
-        //TriangleRandom = new Random(333);
+    //A lazily generated or read sector. Its lanes are linked when the sector itself is touched, not when a neighbour is.
+    static class LazySector {
+        final StarData[] stars;
+        boolean linked;
 
-        rft = new Random(sourceRand.nextLong());
-        TriangleRandom = new Random(sourceRand.nextLong());
-        starObjects = new StarData[t_secs][];
+        LazySector(StarData[] stars) {
+            this.stars = stars;
+        }
+    }
 
-        initializeStarsAndLanes();
+    private StarData[] lazySector(int subSector) {
+        LazySector sector = lazyStars(subSector);
+        if (!sector.linked) {
+            if (starTable != null)
+                linkFromTable(subSector, sector.stars);
+            else
+                linkSector(subSector, sector.stars, s -> lazyStars(s).stars);
+            sector.linked = true;
+        }
+        return sector.stars;
+    }
 
-        //Sets pixel size of panel, for use with scrolledPanes and layout managers.
-        //NOTE: If number of or size of sectors change in runtime, remember to update this.
-        // Set using number of sectors times sector height and width + start x and y + 20px padding at the end of both axis.
-        // - Lars
-        this.setPreferredSize(new Dimension(xwidth * x_secs + xstart + 20,yheight * y_secs + ystart + 20));
+    /**
+     * Adds the hyperlanes of a sector's stars: within the sector, and across to its neighbours.
+     * The lanes across are the same as initializeStarsAndLanes makes, but only the ends in this sector are added,
+     *  so linking a sector only changes its own stars.
+     * @param subSector The sector to link.
+     * @param stars The stars of the sector.
+     * @param neighbours Gets the stars of a neighbouring sector. They are only read.
+     */
+    private void linkSector(int subSector, StarData[] stars, IntFunction<StarData[]> neighbours) {
+        linkInSector(stars);
+        int i = subSector % x_secs;
+        if (i > 0)
+            linkAcross(neighbours.apply(subSector - 1), stars, subSector);
+        if (i < x_secs - 1)
+            linkAcross(stars, neighbours.apply(subSector + 1), subSector);
+        if (subSector >= x_secs && isLinkedAbove(subSector))
+            linkAcross(neighbours.apply(subSector - x_secs), stars, subSector);
+        if (subSector + x_secs < t_secs && isLinkedAbove(subSector + x_secs))
+            linkAcross(stars, neighbours.apply(subSector + x_secs), subSector);
+    }
+
+    /**
+     * @return True if the sector's stars are in memory, so getting them does not generate or read the sector.
+     *          Always true for a map generated in full.
+     */
+    public boolean isSectorLoaded(int subSector) {
+        return sectorCache == null || sectorCache.containsKey(subSector);
+    }
+
+    //Gets the stars of a lazy sector, generating or reading them if needed, without linking them.
+    private LazySector lazyStars(int subSector) {
+        LazySector sector = sectorCache.get(subSector);
+        if (sector == null) {
+            sector = new LazySector(starTable != null ? readSector(subSector) : generateSector(subSector));
+            sectorCache.put(subSector, sector);
+        }
+        return sector;
+    }
+
+    //Adds the lane between the closest stars of two sectors to the end of the lane in the given sector.
+    private void linkAcross(StarData[] sector1, StarData[] sector2, int subSector) {
+        StarData[] pair = getClosestStarDataPair(sector1, sector2);
+        if (pair[0].subsector == subSector)
+            pair[0].connections.add(laneEnd(pair[1]));
+        else
+            pair[1].connections.add(laneEnd(pair[0]));
+    }
+
+    /**
+     * The star at the far end of a lane into another sector.
+     * For a lazy map this is a copy without lanes, so a cached sector never holds on to its neighbours:
+     *  were they linked, every sector ever touched would stay reachable, and evicting would free nothing.
+     */
+    private StarData laneEnd(StarData neighbor) {
+        if (sectorCache == null)
+            return neighbor;
+        return new StarData(neighbor.subsector, neighbor.index, neighbor.seed, neighbor.location);
+    }
+
+    /**
+     * Generates the stars of a sector, without hyperlanes, from the master seed and the sector alone.
+     * Only reads the map's settings, so sectors may be generated at once on different threads.
+     */
+    StarData[] generateSector(int subSector) {
+        SplittableRandom r = new SplittableRandom(sectorSeed(masterSeed, subSector));
+        int[][] sc = sectorCorners(subSector % x_secs, subSector / x_secs);
+        int[][] secstars_c = placeStars(sc, r.nextInt(maxstars)+1, r::nextDouble);
+
+        StarData[] stars = new StarData[secstars_c.length];
+        for (int n = 0; n < secstars_c.length; n++)
+            stars[n] = new StarData(subSector, n, larsSeed(secstars_c[n]), new Point(secstars_c[n][0], secstars_c[n][1]));
+        return stars;
+    }
+
+    /**
+     * Seed of a sector's random generator, from the master seed and the sector's index.
+     * Mixed, so neighbouring sectors get unrelated sequences.
+     */
+    static long sectorSeed(long masterSeed, int subSector) {
+        long z = masterSeed ^ ((subSector + 1) * 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * @return The number of lazily generated or read sectors in memory, or 0 if the map is held in full.
+     */
+    public int getNumCachedSectors() {
+        return sectorCache == null ? 0 : sectorCache.size();
+    }
+
+    //Creates the stars of a sector from the table, without their hyperlanes.
+    private StarData[] readSector(int subSector) {
+        int first = starTable.getFirstStar(subSector);
+        StarData[] stars = new StarData[starTable.getNumStars(subSector)];
+        for (int i = 0; i < stars.length; i++) {
+            int g = first + i;
+            stars[i] = new StarData(subSector, i, starTable.getSeed(g), new Point(starTable.getX(g), starTable.getY(g)));
+        }
+        return stars;
+    }
+
+    //Adds the hyperlanes of a sector's stars from the table.
+    private void linkFromTable(int subSector, StarData[] stars) {
+        int first = starTable.getFirstStar(subSector);
+        for (int i = 0; i < stars.length; i++) {
+            for (int l = 0; l < starTable.getNumLanes(first + i); l++) {
+                int target = starTable.getLaneTarget(first + i, l);
+                int targetSector = starTable.getSectorOf(target);
+                StarData neighbor = lazyStars(targetSector).stars[target - starTable.getFirstStar(targetSector)];
+                stars[i].connections.add(targetSector == subSector ? neighbor : laneEnd(neighbor));
+            }
+        }
     }
 
     //NOTE:
@@ -424,7 +841,35 @@ public class Sectormaps extends JPanel implements Scrollable {
      * @return list of connected stars by [0] subsection [1] index
      */
     public ArrayList<StarData> getConnectedStars(int subsection, int index){
-        return starObjects[subsection][index].connections;
+        return sector(subsection)[index].connections;
+    }
+
+    /**
+     * @return Pixel x of the left corner of the first sector column.
+     */
+    public int getXStart() {
+        return xstart;
+    }
+
+    /**
+     * @return Pixel y of the top of the first sector row.
+     */
+    public int getYStart() {
+        return ystart;
+    }
+
+    /**
+     * @return Pixel width of a sector's triangle. Each sector column starts half a width after the one before.
+     */
+    public int getSectorWidth() {
+        return xwidth;
+    }
+
+    /**
+     * @return Pixel height of a sector row.
+     */
+    public int getSectorHeight() {
+        return yheight;
     }
 
     /**
@@ -438,7 +883,21 @@ public class Sectormaps extends JPanel implements Scrollable {
      * @return Number of sub-sectors.
      */
     public int getNumSubSectors() {
-        return secs_stars_coords.length;
+        return t_secs;
+    }
+
+    /**
+     * @return Number of sub-sectors on the x axis.
+     */
+    public int getNumXSectors() {
+        return x_secs;
+    }
+
+    /**
+     * @return Number of sub-sectors on the y axis.
+     */
+    public int getNumYSectors() {
+        return y_secs;
     }
 
     /**
@@ -447,6 +906,10 @@ public class Sectormaps extends JPanel implements Scrollable {
      * @throws ArrayIndexOutOfBoundsException will throw an error if you request an invalid sub-sector index.
      */
     public int getNumStarsBySector(int subSector) throws ArrayIndexOutOfBoundsException {
+        if (starTable != null)
+            return starTable.getNumStars(subSector);
+        if (sectorCache != null)
+            return lazyStars(subSector).stars.length;
         return  secs_stars_coords[subSector].length;
     }
 
@@ -490,6 +953,10 @@ public class Sectormaps extends JPanel implements Scrollable {
      * @throws ArrayIndexOutOfBoundsException
      */
     public int[] getStarData(int subsection, int index) throws ArrayIndexOutOfBoundsException {
+        if (secs_stars_coords == null) {
+            StarData star = sector(subsection)[index];
+            return new int[]{star.location.x, star.location.y, (int) star.seed};
+        }
         return secs_stars_coords[subsection][index];
     }
 
@@ -501,51 +968,303 @@ public class Sectormaps extends JPanel implements Scrollable {
      * @throws ArrayIndexOutOfBoundsException if first argument is higher than number of subsectors, or second argument higher than number of stars in the subsector specified by first argument
      */
     public StarData getStar(int subsection, int index) throws ArrayIndexOutOfBoundsException {
-        return starObjects[subsection][index];
+        return sector(subsection)[index];
     }
 
-    @Override
-    public void paintComponent(Graphics g) {
-        super.paintComponent(g);
+    //#region zoom
 
+    /**
+     * Sets the scale the map is drawn at, 1 being one pixel per map unit.
+     * Below {@link #LOD_ZOOM}, sectors are drawn as glyphs instead of stars and hyperlanes.
+     * The size of the panel changes with the zoom.
+     * @param zoom The scale, clamped between {@link #MIN_ZOOM} and {@link #MAX_ZOOM}.
+     */
+    public void setZoom(double zoom) {
+        zoom = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, zoom));
+        if (zoom == this.zoom)
+            return;
+        this.zoom = zoom;
+        updatePreferredSize();
+        revalidate();
+        invalidateTiles();
+    }
 
-        //Draw hyperlanes but from star connection data instead
-        for (StarData[] sector: starObjects) {
-            for (StarData star: sector) {
-                boolean isShipLocation = star == shipLocation;
-                for (StarData neighbor: star.connections) {
-                    isShipLocation = isShipLocation || neighbor == shipLocation;
-                    if(isShipLocation){
-                        g.setColor((new Color(60, 70, 220)));
-                        g.drawLine(star.location.x, star.location.y, neighbor.location.x, neighbor.location.y);
-                    }else {
-                        g.setColor((new Color(100, 70, 20)));
-                        g.drawLine(star.location.x, star.location.y, neighbor.location.x, neighbor.location.y);
-                    }
+    public double getZoom() {
+        return zoom;
+    }
+
+    /**
+     * @return True if sectors are drawn as glyphs, false if stars are drawn.
+     */
+    public boolean isSectorView() {
+        return zoom < LOD_ZOOM;
+    }
+
+    /**
+     * Converts a point on the panel, such as the mouse, to map units.
+     */
+    public Point toMapPoint(Point p) {
+        return new Point((int) Math.floor(p.x / zoom), (int) Math.floor(p.y / zoom));
+    }
+
+    //Sets pixel size of panel, for use with scrolledPanes and layout managers.
+    // Set using number of sectors times sector height and width + start x and y + 20px padding at the end of both axis, times the zoom.
+    private void updatePreferredSize() {
+        this.setPreferredSize(new Dimension((int) Math.ceil((xwidth * x_secs + xstart + 20) * zoom),
+                (int) Math.ceil((yheight * y_secs + ystart + 20) * zoom)));
+    }
+
+    //From a rectangle of the panel, to the rectangle of map units it shows.
+    private Rectangle toMapArea(Rectangle r) {
+        int x0 = (int) Math.floor(r.x / zoom), y0 = (int) Math.floor(r.y / zoom);
+        int x1 = (int) Math.ceil((r.x + r.width) / zoom), y1 = (int) Math.ceil((r.y + r.height) / zoom);
+        return new Rectangle(x0, y0, x1 - x0, y1 - y0);
+    }
+
+    //From a rectangle of map units, to the rectangle of the panel it is drawn in.
+    private Rectangle toPanelArea(Rectangle r) {
+        int x0 = (int) Math.floor(r.x * zoom), y0 = (int) Math.floor(r.y * zoom);
+        int x1 = (int) Math.ceil((r.x + r.width) * zoom), y1 = (int) Math.ceil((r.y + r.height) * zoom);
+        return new Rectangle(x0 - 1, y0 - 1, x1 - x0 + 2, y1 - y0 + 2);
+    }
+    //#endregion
+
+    //#region sector glyphs
+    //Zoomed out, each sector is drawn as one glyph: a disc sized by its number of stars,
+    // lines to the neighbouring sectors it has hyperlanes to, and its star count and lane degree when there is room.
+
+    /**
+     * Gets the summary of a sector used for its glyph, computing it on first use.
+     * Summaries are kept for the life of the map, one int per sector, in rows allocated as they are drawn.
+     * For a lazily generated map, a summary outlives its sector in the cache, so zooming out does not generate sectors again.
+     * @return The packed summary, read with {@link #glyphStars}, {@link #glyphDegree}, {@link #glyphLinkedRight} and {@link #glyphLinkedBelow}.
+     */
+    int getGlyph(int sector) {
+        int row = sector / x_secs;
+        if (glyphRows == null)
+            glyphRows = new int[y_secs][];
+        if (glyphRows[row] == null) {
+            glyphRows[row] = new int[x_secs];
+            Arrays.fill(glyphRows[row], -1);
+        }
+        int glyph = glyphRows[row][sector % x_secs];
+        if (glyph == -1) {
+            glyph = computeGlyph(sector);
+            glyphRows[row][sector % x_secs] = glyph;
+        }
+        return glyph;
+    }
+
+    //stars: 8 bits, sum of the lane degrees of the stars: 16 bits, linked to the sector on the right: 1 bit, linked below: 1 bit.
+    private int computeGlyph(int sector) {
+        StarData[] stars = sector(sector);
+        int degree = 0;
+        boolean right = false, below = false;
+        for (StarData star : stars) {
+            degree += star.connections.size();
+            for (StarData neighbor : star.connections) {
+                right |= neighbor.subsector == sector + 1 && sector % x_secs != x_secs - 1;
+                below |= neighbor.subsector == sector + x_secs;
+            }
+        }
+        return Math.min(stars.length, 0xFF) | Math.min(degree, 0xFFFF) << 8 | (right ? 1 << 24 : 0) | (below ? 1 << 25 : 0);
+    }
+
+    static int glyphStars(int glyph) {
+        return glyph & 0xFF;
+    }
+    static int glyphDegree(int glyph) {
+        return (glyph >>> 8) & 0xFFFF;
+    }
+    static boolean glyphLinkedRight(int glyph) {
+        return (glyph & 1 << 24) != 0;
+    }
+    static boolean glyphLinkedBelow(int glyph) {
+        return (glyph & 1 << 25) != 0;
+    }
+
+    //The middle of a sector's triangle, where its glyph is drawn.
+    private Point sectorCentre(int sector) {
+        int[][] sc = sectorCorners(sector % x_secs, sector / x_secs);
+        return new Point((sc[0][0] + sc[1][0] + sc[2][0]) / 3, (sc[0][1] + sc[1][1] + sc[2][1]) / 3);
+    }
+
+    /**
+     * Draws the glyphs of the sectors that show within an area.
+     */
+    private void paintSectorGlyphs(Graphics g, Rectangle area) {
+        //sectors whose bounding box may cross the area, one extra around it for the links and discs over the edge.
+        int iMin = Math.max(0, Math.floorDiv(area.x - xstart - xwidth, xmid) - 1);
+        int iMax = Math.min(x_secs - 1, Math.floorDiv(area.x + area.width - xstart, xmid) + 1);
+        int jMin = Math.max(0, Math.floorDiv(area.y - ystart, yheight) - 1);
+        int jMax = Math.min(y_secs - 1, Math.floorDiv(area.y + area.height - ystart, yheight) + 1);
+        //a disc of the most stars fills a third of the height of a sector.
+        int unit = Math.max(1, yheight / 3 / Math.max(1, maxstars));
+
+        g.setColor(LANE_COLOR);
+        for (int j = jMin; j <= jMax; j++) {
+            for (int i = iMin; i <= iMax; i++) {
+                int sector = i + j * x_secs;
+                int glyph = getGlyph(sector);
+                Point c = sectorCentre(sector);
+                if (glyphLinkedRight(glyph)) {
+                    Point n = sectorCentre(sector + 1);
+                    g.drawLine(c.x, c.y, n.x, n.y);
+                }
+                if (glyphLinkedBelow(glyph)) {
+                    Point n = sectorCentre(sector + x_secs);
+                    g.drawLine(c.x, c.y, n.x, n.y);
                 }
             }
         }
 
-        //Draw stars
-        g.setColor(new Color(200,200,90));
-        for (int i=0; i<secs_stars_coords.length; i++){
-            for (int j=0; j <secs_stars_coords[i].length; j++) {
-                g.fillOval(secs_stars_coords[i][j][0] - starsize / 2, secs_stars_coords[i][j][1] - starsize / 2, starsize, starsize);
+        //text is drawn at the same size on screen for any zoom, if the sector has room for it.
+        boolean labels = xmid * zoom >= GLYPH_LABEL_WIDTH;
+        if (labels)
+            g.setFont(g.getFont().deriveFont((float) (GLYPH_FONT_SIZE / zoom)));
+        for (int j = jMin; j <= jMax; j++) {
+            for (int i = iMin; i <= iMax; i++) {
+                int sector = i + j * x_secs;
+                int glyph = getGlyph(sector);
+                int stars = glyphStars(glyph);
+                if (stars == 0)
+                    continue;
+                Point c = sectorCentre(sector);
+                int size = unit * stars;
+                g.setColor(STAR_COLOR);
+                g.fillOval(c.x - size / 2, c.y - size / 2, size, size);
+                if (labels) {
+                    g.setColor(GLYPH_TEXT_COLOR);
+                    g.drawString(stars + "/" + glyphDegree(glyph), c.x + size / 2 + 2, c.y + size / 2);
+                }
             }
         }
+    }
+    //#endregion
+
+    //#region rendering
+    //The grid, hyperlanes and stars are drawn once into tiles, and the tiles are cached.
+    //Each paint only draws the tiles in view, and the ship on top.
+
+    /**
+     * Turns the tile cache on or off.
+     * When off, the map is drawn directly on each paint, still only the part in view.
+     */
+    public void setTiledRendering(boolean value) {
+        tiledRendering = value;
+        tiles.clear();
+        repaint();
+    }
+
+    /**
+     * Drops the cached tiles, so they are drawn again on the next paint.
+     * Called when the look of the map changes.
+     */
+    public void invalidateTiles() {
+        tiles.clear();
+        repaint();
+    }
+
+    @Override
+    public void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        Rectangle area = g.getClipBounds();
+        if (area == null)
+            area = getVisibleRect();
+        else
+            area = area.intersection(new Rectangle(0, 0, getWidth(), getHeight()));
+        if (area.isEmpty())
+            return;
+
+        Graphics2D g2 = (Graphics2D) g.create();
+        if (tiledRendering) {
+            int txMin = Math.floorDiv(area.x, TILE_SIZE);
+            int txMax = Math.floorDiv(area.x + area.width - 1, TILE_SIZE);
+            int tyMin = Math.floorDiv(area.y, TILE_SIZE);
+            int tyMax = Math.floorDiv(area.y + area.height - 1, TILE_SIZE);
+            for (int ty = tyMin; ty <= tyMax; ty++)
+                for (int tx = txMin; tx <= txMax; tx++)
+                    g2.drawImage(getTile(tx, ty), tx * TILE_SIZE, ty * TILE_SIZE, null);
+            g2.scale(zoom, zoom);
+        } else {
+            g2.scale(zoom, zoom);
+            paintLayers(g2, toMapArea(area));
+        }
+
+        if (this.showShip && shipLocation != null) {
+            paintShipLanes(g2, shipLocation);
+            g2.drawImage(shipSprite, shipLocation.location.x - shipW/2, shipLocation.location.y - shipH/2, shipSpriteObserver);
+        }
+        g2.dispose();
+    }
+
+    private BufferedImage getTile(int tx, int ty) {
+        long key = ((long) tx << 32) | (ty & 0xFFFFFFFFL);
+        BufferedImage tile = tiles.get(key);
+        if (tile != null)
+            return tile;
+
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        tile = gc != null ? gc.createCompatibleImage(TILE_SIZE, TILE_SIZE)
+                : new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_RGB);
+        Graphics2D tg = tile.createGraphics();
+        tg.setColor(getBackground());
+        tg.fillRect(0, 0, TILE_SIZE, TILE_SIZE);
+        tg.translate(-tx * TILE_SIZE, -ty * TILE_SIZE);
+        Rectangle area = new Rectangle(tx * TILE_SIZE, ty * TILE_SIZE, TILE_SIZE, TILE_SIZE);
+        tg.setClip(area);
+        tg.scale(zoom, zoom);
+        paintLayers(tg, toMapArea(area));
+        tg.dispose();
+        tiles.put(key, tile);
+        return tile;
+    }
 
+    /**
+     * Draws the hyperlanes, stars and grid that show within an area, or the sector glyphs if zoomed out.
+     * @param area The area, in map units.
+     */
+    private void paintLayers(Graphics g, Rectangle area) {
+        if (isSectorView()) {
+            paintSectorGlyphs(g, area);
+            paintGrid(g, area);
+            return;
+        }
+        //a lane crossing the area has both ends within the length of the longest lane, across two neighbouring sectors.
+        int reach = xwidth + 2 * yheight;
+        g.setColor(LANE_COLOR);
+        starIndex.forEachInRect(area.x - reach, area.y - reach, area.x + area.width + reach, area.y + area.height + reach, star -> {
+            for (StarData neighbor : star.connections) {
+                //each lane is drawn once, from its first end.
+                if (isFirstEnd(star, neighbor))
+                    g.drawLine(star.location.x, star.location.y, neighbor.location.x, neighbor.location.y);
+            }
+        });
+
+        g.setColor(STAR_COLOR);
+        starIndex.forEachInRect(area.x - starsize, area.y - starsize, area.x + area.width + starsize, area.y + area.height + starsize,
+                star -> g.fillOval(star.location.x - starsize / 2, star.location.y - starsize / 2, starsize, starsize));
+        paintGrid(g, area);
+    }
+
+    private void paintGrid(Graphics g, Rectangle area) {
         //Draw sector grid
         if (this.showGrid) {
-            g.setColor(new Color(240, 60, 140));
-            for (int i = 0; i <= y_secs; i++) { //draw horizontal sector lines
+            g.setColor(GRID_COLOR);
+            //only the rows and columns of sectors that cross the area.
+            int iMin = Math.max(0, Math.floorDiv(area.x - xstart, xmid) - 1);
+            int iMax = Math.min(x_secs, Math.floorDiv(area.x + area.width - xstart, xmid) + 1);
+            int jMin = Math.max(0, Math.floorDiv(area.y - ystart, yheight) - 1);
+            int jMax = Math.min(y_secs - 1, Math.floorDiv(area.y + area.height - ystart, yheight) + 1);
+            for (int i = jMin; i <= Math.min(y_secs, jMax + 1); i++) { //draw horizontal sector lines
                 if (i % 2 == 0) {
                     g.drawLine((xstart + xmid), (ystart + (i * yheight)), (xstart + (xmid * (x_secs + ((x_secs + 1) % 2)))), (ystart + (i * yheight)));
                 } else {
                     g.drawLine(xstart, (ystart + (i * yheight)), (xstart + (xmid * (x_secs + (x_secs % 2)))), (ystart + (i * yheight)));
                 }
             }
-            for (int i = 0; i <= x_secs; i++) { //draw diagonal sector lines
-                for (int j = 0; j < y_secs; j++) {
+            for (int i = iMin; i <= iMax; i++) { //draw diagonal sector lines
+                for (int j = jMin; j <= jMax; j++) {
                     if (j % 2 == 0) { //even j
                         if (i % 2 == 0) { //even i
                             g.drawLine(xstart + (i * xmid), (ystart + yheight + (j * yheight)), (xstart + xmid + (i * xmid)), ystart + (j * yheight));
@@ -562,11 +1281,37 @@ public class Sectormaps extends JPanel implements Scrollable {
                 }
             }
         }
-        if (this.showShip){
-            g.drawImage(shipSprite, shipLocation.location.x - shipW/2, shipLocation.location.y - shipH/2, shipSpriteObserver);
-        }
     }
 
+    private static boolean isFirstEnd(StarData star, StarData neighbor) {
+        return star.subsector < neighbor.subsector || (star.subsector == neighbor.subsector && star.index < neighbor.index);
+    }
+
+    //The lanes of the ship's star are highlighted over the tiles, with the stars at their ends.
+    //Zoomed out, the ship is drawn over the glyphs alone.
+    private void paintShipLanes(Graphics g, StarData ship) {
+        if (isSectorView())
+            return;
+        g.setColor(SHIP_LANE_COLOR);
+        for (StarData neighbor : ship.connections)
+            g.drawLine(ship.location.x, ship.location.y, neighbor.location.x, neighbor.location.y);
+        g.setColor(STAR_COLOR);
+        g.fillOval(ship.location.x - starsize / 2, ship.location.y - starsize / 2, starsize, starsize);
+        for (StarData neighbor : ship.connections)
+            g.fillOval(neighbor.location.x - starsize / 2, neighbor.location.y - starsize / 2, starsize, starsize);
+    }
+
+    /**
+     * @return The area of the panel drawn over by the ship and the highlight of its lanes.
+     */
+    private Rectangle getShipBounds(StarData ship) {
+        Rectangle bounds = new Rectangle(ship.location.x - shipW/2, ship.location.y - shipH/2, shipW, shipH);
+        for (StarData neighbor : ship.connections)
+            bounds.add(new Rectangle(neighbor.location.x - starsize, neighbor.location.y - starsize, starsize * 2, starsize * 2));
+        return toPanelArea(bounds);
+    }
+    //#endregion
+
     //Implementation of Scrollable
     //based on example code https://docs.oracle.com/javase/tutorial/uiswing/examples/components/ScrollDemoProject/src/components/ScrollablePicture.java
     //from this tutorial https://docs.oracle.com/javase/tutorial/uiswing/components/scrollpane.html
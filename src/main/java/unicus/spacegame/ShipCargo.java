@@ -1,4 +1,8 @@
 package unicus.spacegame;
+import unicus.spacegame.save.SaveFormatException;
+import unicus.spacegame.save.SaveReader;
+import unicus.spacegame.save.SaveWriter;
+
 import javax.swing.*;
 import java.awt.*;
 import java.util.HashMap;
@@ -64,6 +68,21 @@ public class ShipCargo {
         return true;
     }
 
+    /**
+     * Stores as much of a cargo type as there is space for, such as mined resources.
+     * @param type The cargo type, one of the cargo names in CargoModule.
+     * @param amount The amount to store.
+     * @return The amount stored. The rest did not fit.
+     */
+    public int storeResource(String type, int amount) {
+        int space = 0;
+        for (CargoModule cargo : cargos)
+            space += cargo.getSpace();
+        int stored = Math.max(0, Math.min(amount, space));
+        if (stored > 0)
+            AddCargo(stored, type);
+        return stored;
+    }
 
     private boolean AddCargo(int amount, String type) {
         int remaining_amount = amount;
@@ -205,6 +224,43 @@ public class ShipCargo {
             }
         }
     }
+    /**
+     * Writes the cargo section of a save-file: the amount of each cargo type in each cargo module.
+     * @param out The save to write to.
+     */
+    public void writeSave(SaveWriter out) {
+        int[] amounts = new int[cargos.length * CargoModule.CARGO_TYPECOUNT];
+        for (int i = 0; i < cargos.length; i++) {
+            System.arraycopy(cargos[i].CountLocalCargo(), 0, amounts, i * CargoModule.CARGO_TYPECOUNT, CargoModule.CARGO_TYPECOUNT);
+        }
+        out.writeInt(cargos.length);
+        out.writeInt(CargoModule.CARGO_TYPECOUNT);
+        out.writeIntColumn(amounts);
+    }
+
+    /**
+     * Reads the cargo section of a save-file, replacing the contents of every cargo module.
+     * @param in The save to read from.
+     * @throws SaveFormatException If the number of modules or cargo types does not match.
+     */
+    public void readSave(SaveReader in) throws SaveFormatException {
+        int numModules = in.readInt();
+        int numTypes = in.readInt();
+        if (numModules != cargos.length || numTypes != CargoModule.CARGO_TYPECOUNT)
+            throw new SaveFormatException("Save-file has " + numModules + " cargo modules with " + numTypes
+                    + " cargo types, expected " + cargos.length + " with " + CargoModule.CARGO_TYPECOUNT + ".");
+        int[] amounts = in.readIntColumn(numModules * numTypes);
+        for (int i = 0; i < cargos.length; i++) {
+            CargoModule cargo = cargos[i];
+            cargo.total_fullness = 0;
+            for (int t = 0; t < numTypes; t++) {
+                int amount = amounts[i * numTypes + t];
+                cargo.contents.put(CargoModule.CARGO_NAMES[t], amount);
+                cargo.total_fullness += amount;
+            }
+        }
+    }
+
     public void createStartCargo() {
         AddCargo(12, "Fuel");
         AddCargo(8, "Oxygen");
@@ -7,13 +7,20 @@ import de.gurkenlabs.litiengine.input.Input;
 import de.gurkenlabs.litiengine.resources.Resources;
 import unicus.spacegame.crew.SpaceCrew;
 import unicus.spacegame.gameevent.GameEvent;
+import unicus.spacegame.save.Autosave;
+import unicus.spacegame.save.KeyRemap;
+import unicus.spacegame.save.SaveGame;
+import unicus.spacegame.simulation.FastForward;
+import unicus.spacegame.simulation.TickScheduler;
 import unicus.spacegame.spaceship.HomeShip;
+import unicus.spacegame.structures.starsystem.SystemDeposits;
 import unicus.spacegame.ui.DebugConsole;
 
 import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.time.Month;
 import java.util.Random;
 
@@ -34,6 +41,9 @@ public class SpaceGame implements IUpdateable {
 
     private static int GameMonth;
 
+    //Runs the compute stages of the end-of-month cycle. See setParallelSimulation.
+    private static TickScheduler scheduler = TickScheduler.SERIAL;
+
     public static SpaceGame SG() {
         if(SG == null)
             new SpaceGame();
@@ -88,13 +98,31 @@ public class SpaceGame implements IUpdateable {
      *  1: Job assignments, jobs housing.
      *  2: Homeship structure, module and amenities.
      *  3: Crew morale and needs.
+     *
+     * Steps 1 and 3 have a compute stage, which may run in parallel, and a commit stage on this thread.
+     * See {@link TickScheduler}.
      */
     public static void NextMonth() {
-        spaceCrew.endOfMonthJobsHousing();
+        Autosave.record(Autosave.MONTH);
+        spaceCrew.endOfMonthJobsHousing(scheduler);
         homeShip.endOfMonth();
-        spaceCrew.endOfMonthCrew();
+        spaceCrew.endOfMonthCrew(scheduler);
 
         GameMonth ++;
+        Autosave.endOfMonth(GameMonth);
+    }
+
+    /**
+     * Chooses whether the compute stages of the end-of-month cycle run on a ForkJoin pool or on the calling thread.
+     * The results are the same either way.
+     * @param parallel true to run on the common ForkJoin pool.
+     */
+    public static void setParallelSimulation(boolean parallel) {
+        scheduler = parallel ? TickScheduler.parallel() : TickScheduler.SERIAL;
+    }
+
+    public static boolean isParallelSimulation() {
+        return scheduler.isParallel();
     }
 
 
@@ -117,6 +145,7 @@ public class SpaceGame implements IUpdateable {
      *
      */
     private static void GenerateStart1() {
+        SystemDeposits.clearAll();
         spaceCrew = SpaceCrew.GenerateStart1();
         homeShip = HomeShip.GenerateStart1(new Random(0), 6, 0.75f);
 
@@ -128,6 +157,49 @@ public class SpaceGame implements IUpdateable {
     }
 
 
+    /**
+     * Sets up the start scenario without the game engine, window or debug console.
+     * The console is disabled first, so the crew and ship do not make it (see {@link DebugConsole#disable()}).
+     * Used to run the end-of-month cycle headless, see {@link FastForward}.
+     */
+    public static void startHeadless() {
+        DebugConsole.disable();
+        SystemDeposits.clearAll();
+        spaceCrew = SpaceCrew.GenerateStart1();
+        homeShip = HomeShip.GenerateStart1(new Random(0), 6, 0.75f);
+        GameMonth = 0;
+    }
+
+    /**
+     * Saves the game to a file. See {@link SaveGame}.
+     * @param file The file to write.
+     */
+    public static void saveGame(Path file) throws IOException {
+        SaveGame.save(file, GameMonth);
+    }
+
+    /**
+     * Replaces the current game with one from a save-file. See {@link SaveGame}.
+     * @param file The file to read.
+     */
+    public static void loadGame(Path file) throws IOException {
+        loadGame(file, new KeyRemap(), new KeyRemap());
+    }
+
+    /**
+     * Replaces the current game with one from a save-file. See {@link SaveGame}.
+     * If the game is autosaved, the autosave is replaced by the loaded game.
+     * @param file The file to read.
+     * @param jobKeys Filled with the saved job keys, mapped to the keys the jobs now have.
+     * @param housingKeys Filled with the saved housing keys, mapped to the keys the housing now have.
+     */
+    public static void loadGame(Path file, KeyRemap jobKeys, KeyRemap housingKeys) throws IOException {
+        GameMonth = SaveGame.load(file, jobKeys, housingKeys);
+        spaceCrew = SpaceCrew.SC();
+        homeShip = HomeShip.HS();
+        Autosave.compact(GameMonth);
+    }
+
     public static void main(String[] args) {
         SG().startGame();
     }
@@ -17,6 +17,25 @@ public class StarData {
         this.location = location;
         connections = new ArrayList<>();
     }
+
+    /**
+     * Stars are equal if they are at the same place in the same map.
+     * A lazily loaded map may create a new object for a star it has seen before.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof StarData))
+            return false;
+        StarData other = (StarData) o;
+        return subsector == other.subsector && index == other.index;
+    }
+
+    @Override
+    public int hashCode() {
+        return subsector * 31 + index;
+    }
     /* public StarData(int subsector, int index, Sectormaps map) {
         this(subsector, index, map.getStarSeed(subsector, index), map.getStarPoint(subsector, index))
     } */
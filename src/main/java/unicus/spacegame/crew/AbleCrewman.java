@@ -162,20 +162,11 @@ abstract public class AbleCrewman extends AbstractCrewman {
     protected JobAssignment[] monthJobAssignments = new JobAssignment[0];
 
     /**
-     * Called last at the SpaceCrew end of month cycle.
-     * planned feature:
-     *         1. Consume resources based on crewman needs (rations?).
-     *         2. Apply change to stress
-     *             1. Applied according to morale-workload bonus and traits
-     *         3. If stress is high, or experiences lack of resources
-     *             1. Chance to trigger crewman illness or crewman stress event
-     *                 1. These events may result in negative traits, or damage to other crew or the homeship.
-     *         4. Chance to trigger crewman aging-event.
-     *             1. This is a minor event, where a crewman advances from one state to another.
-     *             2. In case of senior crewman, this typically mean death by old age.
+     * Calculates the month's workload, rest and change in stress.
+     * Only writes to this crewman, see {@link AbstractCrewman#prepareEndOfMonth()}.
      */
     @Override
-    protected void endOfMonth() {
+    protected void prepareEndOfMonth() {
         monthRest = 0;
         monthWorkload = 0;
         monthStressChange = 0;
@@ -189,7 +180,23 @@ abstract public class AbleCrewman extends AbstractCrewman {
 
         monthRest = base_morale;
         monthStressChange = (monthWorkload - monthRest) * MORALE_TO_STRESS_RATIO;
+    }
 
+    /**
+     * Called last at the SpaceCrew end of month cycle, after {@link #prepareEndOfMonth()}.
+     * planned feature:
+     *         1. Consume resources based on crewman needs (rations?).
+     *         2. Apply change to stress
+     *             1. Applied according to morale-workload bonus and traits
+     *         3. If stress is high, or experiences lack of resources
+     *             1. Chance to trigger crewman illness or crewman stress event
+     *                 1. These events may result in negative traits, or damage to other crew or the homeship.
+     *         4. Chance to trigger crewman aging-event.
+     *             1. This is a minor event, where a crewman advances from one state to another.
+     *             2. In case of senior crewman, this typically mean death by old age.
+     */
+    @Override
+    protected void endOfMonth() {
         stress += monthStressChange;
         if(false) { //TODO: if age/criteria in range of advancing CrewmanState (eg. adult crewman to senior crewman)
             //TODO: chance to trigger crewman aging event - force trigger event if at far end of age-range.
@@ -114,8 +114,18 @@ public abstract class AbstractCrewman {
         return selfID;
     }
 
+    /**
+     * Called at the end of month cycle, for every crewman, before any crewman's {@link #endOfMonth()}.
+     * Calculates the changes of the month, without applying them.
+     * This may run at the same time as other crewmen's, so it must only write to this crewman's own fields.
+     */
+    protected void prepareEndOfMonth() {
+
+    }
+
     /**
      * Called last at the end of month cycle.
+     * Applies the changes calculated in {@link #prepareEndOfMonth()}.
      * To be implemented in child classes.
      */
     protected abstract void endOfMonth();
@@ -9,6 +9,13 @@ public class AdultCrewman extends AbleCrewman {
         super(keyID, CrewmanState.senior, birthDate, selfID, geneData, skillSet, base_intelligence, base_morale);
     }
 
+    /**
+     * Used when loading a save-file, where the state is stored apart from the class of the crewman.
+     */
+    AdultCrewman(int keyID, CrewmanState state, int birthDate, CrewSelfID selfID, CrewmanGeneData geneData, SkillSet skillSet, double base_intelligence, double base_morale) {
+        super(keyID, state, birthDate, selfID, geneData, skillSet, base_intelligence, base_morale);
+    }
+
     protected AdultCrewman(AbleCrewman crewman) {
         super(crewman, CrewmanState.adult);
     }
@@ -0,0 +1,173 @@
+package unicus.spacegame.crew;
+
+import unicus.spacegame.utilities.IntIndexMap;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
+/**
+ * Groups assignments (job or housing) by one of their keys, like jobID or crewID.
+ * Each group is a compact array, kept in the same order as the assignment list it was built from.
+ *
+ * The index is kept up to date by {@link SpaceCrew}: a change to the assignment list only replaces
+ * the groups of the keys it touched, see {@link #update(Set, Collection)}. It is rebuilt in full on load.
+ * A lookup is one hash probe and returns a shared array, without allocating.
+ * The returned arrays are read-only views, and must not be modified.
+ *
+ * @param <T> {@link JobAssignment} or {@link HousingAssignment}
+ */
+class AssignmentIndex<T> {
+    private final ToIntFunction<T> keyOf;
+    private final T[] empty;
+    //key -> position in groups
+    private final IntIndexMap groupIndex;
+    private T[][] groups;
+    private int numGroups;
+
+    /**
+     * @param keyOf The key to group assignments by.
+     * @param empty An empty array of the assignment type, returned for keys without assignments.
+     */
+    AssignmentIndex(ToIntFunction<T> keyOf, T[] empty) {
+        assert (empty.length == 0);
+        this.keyOf = keyOf;
+        this.empty = empty;
+        this.groupIndex = new IntIndexMap();
+        this.groups = newGroups(16);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T[][] newGroups(int size) {
+        return (T[][]) java.lang.reflect.Array.newInstance(empty.getClass(), size);
+    }
+
+    /**
+     * Rebuilds the index from a list of assignments, in O(n). Used when the whole list is replaced, like on load.
+     */
+    void rebuild(T[] assignments) {
+        groupIndex.clear();
+        //first pass: give each key a group, and count the members.
+        int[] counts = new int[16];
+        int numGroups = 0;
+        for (T a : assignments) {
+            int key = keyOf.applyAsInt(a);
+            int g = groupIndex.get(key);
+            if (g < 0) {
+                g = numGroups++;
+                groupIndex.put(key, g);
+                if (g == counts.length)
+                    counts = Arrays.copyOf(counts, counts.length * 2);
+            }
+            counts[g]++;
+        }
+        //second pass: fill each group in list order.
+        groups = newGroups(Math.max(16, numGroups));
+        this.numGroups = numGroups;
+        for (int g = 0; g < numGroups; g++) {
+            groups[g] = Arrays.copyOf(empty, counts[g]);
+            counts[g] = 0;
+        }
+        for (T a : assignments) {
+            int g = groupIndex.get(keyOf.applyAsInt(a));
+            groups[g][counts[g]++] = a;
+        }
+    }
+
+    /**
+     * Updates the groups of the keys a change touched, and leaves the other groups as they are.
+     * Takes time by the number of changed assignments and the size of their groups, not the whole list.
+     * @param removed Assignments no longer in the list.
+     * @param added Assignments appended to the end of the list, in list order.
+     */
+    void update(Set<T> removed, Collection<T> added) {
+        //touched key -> position in touchedKeys and newSizes
+        IntIndexMap touched = new IntIndexMap(removed.size() + added.size());
+        int[] touchedKeys = new int[removed.size() + added.size()];
+        int numTouched = 0;
+        for (T a : removed) {
+            int key = keyOf.applyAsInt(a);
+            if(!touched.containsKey(key)) {
+                touched.put(key, numTouched);
+                touchedKeys[numTouched++] = key;
+            }
+        }
+        int[] newSizes = new int[touchedKeys.length];
+        for (T a : added) {
+            int key = keyOf.applyAsInt(a);
+            int t = touched.get(key);
+            if(t < 0) {
+                t = numTouched++;
+                touched.put(key, t);
+                touchedKeys[t] = key;
+            }
+            newSizes[t]++;
+        }
+
+        //kept members first, as the added assignments are at the end of the list.
+        T[][] next = newGroups(numTouched);
+        for (int t = 0; t < numTouched; t++) {
+            T[] old = get(touchedKeys[t]);
+            int kept = 0;
+            for (T a : old) {
+                if(!removed.contains(a))
+                    kept++;
+            }
+            T[] group = Arrays.copyOf(empty, kept + newSizes[t]);
+            int n = 0;
+            for (T a : old) {
+                if(!removed.contains(a))
+                    group[n++] = a;
+            }
+            next[t] = group;
+            newSizes[t] = n;
+        }
+        for (T a : added) {
+            int t = touched.get(keyOf.applyAsInt(a));
+            next[t][newSizes[t]++] = a;
+        }
+
+        for (int t = 0; t < numTouched; t++)
+            setGroup(touchedKeys[t], next[t]);
+    }
+
+    private void setGroup(int key, T[] group) {
+        int g = groupIndex.get(key);
+        if(group.length > 0) {
+            if(g >= 0) {
+                groups[g] = group;
+                return;
+            }
+            if(numGroups == groups.length)
+                groups = Arrays.copyOf(groups, groups.length * 2);
+            groupIndex.put(key, numGroups);
+            groups[numGroups++] = group;
+        } else if(g >= 0) {
+            //move the last group into the gap, groups are never empty.
+            groupIndex.remove(key);
+            int last = --numGroups;
+            if(g != last) {
+                groups[g] = groups[last];
+                groupIndex.put(keyOf.applyAsInt(groups[g][0]), g);
+            }
+            groups[last] = null;
+        }
+    }
+
+    /**
+     * Gets all assignments with this key.
+     * @return A shared, read-only array. Empty if there are no assignments with this key.
+     */
+    T[] get(int key) {
+        int g = groupIndex.get(key);
+        return g < 0 ? empty : groups[g];
+    }
+
+    /**
+     * Gets the number of assignments with this key.
+     */
+    int count(int key) {
+        return get(key).length;
+    }
+}
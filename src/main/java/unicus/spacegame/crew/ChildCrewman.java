@@ -9,6 +9,11 @@ public class ChildCrewman extends AbleCrewman {
         super(keyID, CrewmanState.senior, birthDate, selfID, geneData, skillSet, base_intelligence, base_morale);
     }
 
+    //Save-file load constructor, see SpaceCrew#readSave
+    ChildCrewman(int keyID, CrewmanState state, int birthDate, CrewSelfID selfID, CrewmanGeneData geneData, SkillSet skillSet, double base_intelligence, double base_morale) {
+        super(keyID, state, birthDate, selfID, geneData, skillSet, base_intelligence, base_morale);
+    }
+
     protected ChildCrewman(AbleCrewman crewman) {
         super(crewman, CrewmanState.child);
     }
@@ -0,0 +1,112 @@
+package unicus.spacegame.crew;
+
+/**
+ * Iterates the result of a crew query, like {@link SpaceCrew#queryUnemployed(CrewCursor)}.
+ * A cursor is meant to be created once and reused for every query, so repeated queries make no garbage.
+ *
+ * Usage:
+ *      CrewCursor cursor = new CrewCursor();
+ *      SpaceCrew.SC().queryUnemployed(cursor);
+ *      while (cursor.next()) {
+ *          int crewID = cursor.crewID();
+ *      }
+ *
+ * The cursor iterates the crew as it was when the query was made, even if the crew changes during iteration.
+ */
+public class CrewCursor {
+    private long[] bits;
+    private AbstractCrewman[] crewmen;
+    private int position;
+
+    //optional skill filter, see SpaceCrew#querySkill
+    private int skillIndex;
+    private int minSkill;
+
+    public CrewCursor() {
+        reset(new long[0], new AbstractCrewman[0]);
+    }
+
+    void reset(long[] bits, AbstractCrewman[] crewmen) {
+        reset(bits, crewmen, -1, 0);
+    }
+
+    void reset(long[] bits, AbstractCrewman[] crewmen, int skillIndex, int minSkill) {
+        this.bits = bits;
+        this.crewmen = crewmen;
+        this.skillIndex = skillIndex;
+        this.minSkill = minSkill;
+        this.position = -1;
+    }
+
+    /**
+     * Moves to the next crewman in the result.
+     * @return false if there are no more crewmen.
+     */
+    public boolean next() {
+        while (true) {
+            position = nextSetBit(position + 1);
+            if (position < 0)
+                return false;
+            if (skillIndex < 0 || ((AbleCrewman) crewmen[position]).getSkill(skillIndex) >= minSkill)
+                return true;
+        }
+    }
+
+    private int nextSetBit(int from) {
+        int w = from >>> 6;
+        if (w >= bits.length)
+            return -1;
+        long word = bits[w] & (-1L << from);
+        while (true) {
+            if (word != 0)
+                return (w << 6) + Long.numberOfTrailingZeros(word);
+            if (++w >= bits.length)
+                return -1;
+            word = bits[w];
+        }
+    }
+
+    /**
+     * @return The keyID of the current crewman.
+     */
+    public int crewID() {
+        return crewmen[position].keyID;
+    }
+
+    /**
+     * @return The current crewman.
+     */
+    public AbstractCrewman crewman() {
+        return crewmen[position];
+    }
+
+    /**
+     * Counts the crewmen in the result, without moving the cursor.
+     */
+    public int count() {
+        if (skillIndex < 0) {
+            int n = 0;
+            for (long word : bits)
+                n += Long.bitCount(word);
+            return n;
+        }
+        int n = 0;
+        for (int i = nextSetBit(0); i >= 0; i = nextSetBit(i + 1)) {
+            if (((AbleCrewman) crewmen[i]).getSkill(skillIndex) >= minSkill)
+                n++;
+        }
+        return n;
+    }
+
+    /**
+     * Copies the remaining crewIDs into an array, and moves the cursor to the end.
+     * @param dest The array to fill.
+     * @return The number of crewIDs copied, at most dest.length.
+     */
+    public int drainTo(int[] dest) {
+        int n = 0;
+        while (n < dest.length && next())
+            dest[n++] = crewID();
+        return n;
+    }
+}
@@ -0,0 +1,82 @@
+package unicus.spacegame.crew;
+
+import unicus.spacegame.utilities.IntList;
+
+import java.util.Arrays;
+
+/**
+ * Bitsets over the crewmen array of {@link SpaceCrew}, used by the crew queries.
+ * Bit i is set if crewmen[i] matches the filter.
+ *
+ * Updated by SpaceCrew for the crewmen an edit touched: those added, or whose job or housing assignments changed.
+ * Rebuilt when existing crewmen are replaced, as that moves them in the array, and on load.
+ * Both allocate new arrays (an update copies one long per 64 crewmen), so a {@link CrewCursor} in use keeps a consistent view.
+ */
+class CrewStateIndex {
+    private static final CrewmanState[] STATES = CrewmanState.values();
+
+    long[] workable = new long[0];
+    long[] unemployed = new long[0];
+    long[] homeless = new long[0];
+    long[][] byState = new long[STATES.length][0];
+
+    void rebuild(AbstractCrewman[] crewmen,
+                 AssignmentIndex<JobAssignment> jobsByCrew,
+                 AssignmentIndex<HousingAssignment> housingByCrew) {
+        int numWords = (crewmen.length + 63) >>> 6;
+        workable = new long[numWords];
+        unemployed = new long[numWords];
+        homeless = new long[numWords];
+        byState = new long[STATES.length][numWords];
+
+        for (int i = 0; i < crewmen.length; i++)
+            setBits(i, crewmen[i], jobsByCrew, housingByCrew);
+    }
+
+    /**
+     * Updates the bits of some crewmen. The other crewmen must be at the same positions as before.
+     * @param crewmen The crewmen array, which may have grown at the end.
+     * @param touched Positions in crewmen to update.
+     */
+    void update(AbstractCrewman[] crewmen, IntList touched,
+                AssignmentIndex<JobAssignment> jobsByCrew,
+                AssignmentIndex<HousingAssignment> housingByCrew) {
+        int numWords = (crewmen.length + 63) >>> 6;
+        workable = Arrays.copyOf(workable, numWords);
+        unemployed = Arrays.copyOf(unemployed, numWords);
+        homeless = Arrays.copyOf(homeless, numWords);
+        long[][] nextByState = new long[STATES.length][];
+        for (int s = 0; s < STATES.length; s++)
+            nextByState[s] = Arrays.copyOf(byState[s], numWords);
+        byState = nextByState;
+
+        for (int t = 0; t < touched.size(); t++) {
+            int i = touched.get(t);
+            int w = i >>> 6;
+            long mask = ~(1L << i);
+            workable[w] &= mask;
+            unemployed[w] &= mask;
+            homeless[w] &= mask;
+            for (long[] bits : byState)
+                bits[w] &= mask;
+            setBits(i, crewmen[i], jobsByCrew, housingByCrew);
+        }
+    }
+
+    private void setBits(int i, AbstractCrewman c,
+                         AssignmentIndex<JobAssignment> jobsByCrew,
+                         AssignmentIndex<HousingAssignment> housingByCrew) {
+        CrewmanState state = c.getState();
+        int w = i >>> 6;
+        long bit = 1L << i;
+        byState[state.ordinal()][w] |= bit;
+        if (state.isWorkAble()) {
+            workable[w] |= bit;
+            if (jobsByCrew.count(c.keyID) == 0)
+                unemployed[w] |= bit;
+        }
+        if (state != CrewmanState.corpse && state != CrewmanState.memorial
+                && housingByCrew.count(c.keyID) == 0)
+            homeless[w] |= bit;
+    }
+}
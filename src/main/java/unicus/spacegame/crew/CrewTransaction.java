@@ -0,0 +1,232 @@
+package unicus.spacegame.crew;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Set;
+
+/**
+ * A batch of changes to the lists in {@link SpaceCrew}.
+ * Obtained through {@link SpaceCrew#edit(java.util.function.Consumer)}.
+ *
+ * Changes are applied to a pending state as they are recorded, in the order they are recorded,
+ *  so a later change sees the earlier ones: evicting a crewman after moving them cancels the move,
+ *  and moving a crewman twice leaves them in the last house only.
+ * The pending state is only what the edit changes: objects added, replaced or removed by key,
+ *  assignments removed from SpaceCrew, and assignments added.
+ * Nothing is visible in SpaceCrew until the edit is committed.
+ * On commit, each list is rebuilt once with all its changes, and a new set of arrays is published.
+ * This avoids copying the crew arrays once per added or removed object.
+ *
+ * Removing a job or housing removes the assignments to it, at the point the removal is recorded.
+ *
+ * Note: assignments recorded here are not checked.
+ * Use {@link SpaceCrew#canAssignJobCrew(int, int)} and {@link SpaceCrew#canAssignHouseCrew(int, int)} first,
+ *  they check against the pending state while an edit is open.
+ */
+public class CrewTransaction {
+    private final SpaceCrew crew;
+
+    //objects by key, in the order they were last added. null for removed.
+    final LinkedHashMap<Integer, AbstractCrewman> crewChanges = new LinkedHashMap<>();
+    final LinkedHashMap<Integer, AbstractJob> jobChanges = new LinkedHashMap<>();
+    final LinkedHashMap<Integer, AbstractHousing> housingChanges = new LinkedHashMap<>();
+
+    //assignments of SpaceCrew to remove.
+    final Set<JobAssignment> jobAssignsRemoved = Collections.newSetFromMap(new IdentityHashMap<>());
+    final Set<HousingAssignment> housingAssignsRemoved = Collections.newSetFromMap(new IdentityHashMap<>());
+    //new job assignments, by (jobID, crewID), in the order they were added.
+    final LinkedHashMap<Long, JobAssignment> jobAssignsAdded = new LinkedHashMap<>();
+    //new housing assignments, by crewID, in the order they were added. A crewman lives in one place.
+    final LinkedHashMap<Integer, HousingAssignment> housingAssignsAdded = new LinkedHashMap<>();
+
+    //run in order once the edit is committed, like recording the changes in the autosave journal.
+    final ArrayList<Runnable> afterCommit = new ArrayList<>();
+
+    CrewTransaction(SpaceCrew crew) {
+        this.crew = crew;
+    }
+
+    private static long pair(int jobID, int crewID) {
+        return ((long) jobID << 32) | (crewID & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Adds new crewmen. A crewman with the same keyID as an existing crewman replaces the old object.
+     * @see SpaceCrew#addReplaceCrewmen(AbstractCrewman...)
+     */
+    public CrewTransaction addReplaceCrewmen(AbstractCrewman... newCrewObjects) {
+        for (AbstractCrewman c : newCrewObjects) {
+            crewChanges.remove(c.keyID);
+            crewChanges.put(c.keyID, c);
+        }
+        return this;
+    }
+
+    /** @see SpaceCrew#addJobs(AbstractJob...) */
+    public CrewTransaction addJobs(AbstractJob... newJobObjects) {
+        for (AbstractJob j : newJobObjects) {
+            jobChanges.remove(j.getKeyID());
+            jobChanges.put(j.getKeyID(), j);
+        }
+        return this;
+    }
+
+    /**
+     * Removes jobs, and all assignments to them.
+     * @see SpaceCrew#removeJobs(int...)
+     */
+    public CrewTransaction removeJobs(int... jobKeys) {
+        for (int key : jobKeys) {
+            unassignAllJobCrew(key);
+            jobChanges.remove(key);
+            jobChanges.put(key, null);
+        }
+        return this;
+    }
+
+    /** @see SpaceCrew#addHousing(AbstractHousing...) */
+    public CrewTransaction addHousing(AbstractHousing... newHousingObjects) {
+        for (AbstractHousing h : newHousingObjects) {
+            housingChanges.remove(h.getKeyID());
+            housingChanges.put(h.getKeyID(), h);
+        }
+        return this;
+    }
+
+    /**
+     * Removes housing, and evicts everyone living there.
+     * @see SpaceCrew#removeHousing(int...)
+     */
+    public CrewTransaction removeHousing(int... housingKeys) {
+        for (int key : housingKeys) {
+            evictAllFromHousing(key);
+            housingChanges.remove(key);
+            housingChanges.put(key, null);
+        }
+        return this;
+    }
+
+    /**
+     * Assigns a crewman to a job. Does nothing if the crewman is already assigned.
+     */
+    public CrewTransaction assignJobCrew(int jobID, int crewID) {
+        JobAssignment current = crew.getJobAssignment(jobID, crewID);
+        if(current != null)
+            //undo an earlier unassign, keeping the workshare.
+            jobAssignsRemoved.remove(current);
+        else
+            jobAssignsAdded.putIfAbsent(pair(jobID, crewID), new JobAssignment(jobID, crewID));
+        return this;
+    }
+
+    public CrewTransaction unassignJobCrew(int jobID, int crewID) {
+        jobAssignsAdded.remove(pair(jobID, crewID));
+        JobAssignment current = crew.getJobAssignment(jobID, crewID);
+        if(current != null)
+            jobAssignsRemoved.add(current);
+        return this;
+    }
+
+    public CrewTransaction unassignAllJobCrew(int jobID) {
+        Collections.addAll(jobAssignsRemoved, crew.getJobAssignmentsByJob(jobID));
+        jobAssignsAdded.values().removeIf(ja -> ja.getJobID() == jobID);
+        return this;
+    }
+
+    /**
+     * Moves a crewman into a housing unit, evicting them from any previous housing.
+     */
+    public CrewTransaction assignHousingCrew(int housingID, int crewID) {
+        evictCrewman(crewID);
+        HousingAssignment current = crew.getHouseAssignment(housingID, crewID);
+        if(current != null)
+            housingAssignsRemoved.remove(current);
+        else
+            housingAssignsAdded.put(crewID, new HousingAssignment(housingID, crewID));
+        return this;
+    }
+
+    public CrewTransaction evictCrewman(int crewID) {
+        housingAssignsAdded.remove(crewID);
+        Collections.addAll(housingAssignsRemoved, crew.getHousingAssignmentsByCrew(crewID));
+        return this;
+    }
+
+    public CrewTransaction evictAllFromHousing(int housingID) {
+        Collections.addAll(housingAssignsRemoved, crew.getResidentsOfHouse(housingID));
+        housingAssignsAdded.values().removeIf(ha -> ha.getHousingID() == housingID);
+        return this;
+    }
+
+    //#region pending state
+    /*
+    The state SpaceCrew will have once this edit is committed, for checking changes before they are recorded.
+     */
+
+    public AbstractCrewman getCrew(int crewID) {
+        return crewChanges.containsKey(crewID) ? crewChanges.get(crewID) : crew.getCrew(crewID);
+    }
+    public AbstractJob getJob(int jobID) {
+        return jobChanges.containsKey(jobID) ? jobChanges.get(jobID) : crew.getJob(jobID);
+    }
+    public AbstractHousing getHousing(int housingID) {
+        return housingChanges.containsKey(housingID) ? housingChanges.get(housingID) : crew.getHousing(housingID);
+    }
+
+    public boolean isJobAssigned(int jobID, int crewID) {
+        if(jobAssignsAdded.containsKey(pair(jobID, crewID)))
+            return true;
+        JobAssignment current = crew.getJobAssignment(jobID, crewID);
+        return current != null && !jobAssignsRemoved.contains(current);
+    }
+
+    public int countJobAssignments(int jobID) {
+        int n = 0;
+        for (JobAssignment ja : crew.getJobAssignmentsByJob(jobID)) {
+            if(!jobAssignsRemoved.contains(ja))
+                n++;
+        }
+        for (JobAssignment ja : jobAssignsAdded.values()) {
+            if(ja.getJobID() == jobID)
+                n++;
+        }
+        return n;
+    }
+
+    public boolean livesIn(int housingID, int crewID) {
+        HousingAssignment added = housingAssignsAdded.get(crewID);
+        if(added != null && added.getHousingID() == housingID)
+            return true;
+        HousingAssignment current = crew.getHouseAssignment(housingID, crewID);
+        return current != null && !housingAssignsRemoved.contains(current);
+    }
+
+    public int countResidents(int housingID) {
+        int n = 0;
+        for (HousingAssignment ha : crew.getResidentsOfHouse(housingID)) {
+            if(!housingAssignsRemoved.contains(ha))
+                n++;
+        }
+        for (HousingAssignment ha : housingAssignsAdded.values()) {
+            if(ha.getHousingID() == housingID)
+                n++;
+        }
+        return n;
+    }
+    //#endregion
+
+    /**
+     * Runs an action after the edit is committed. Not run if the edit throws, or changes nothing.
+     */
+    void afterCommit(Runnable action) {
+        afterCommit.add(action);
+    }
+
+    boolean isEmpty() {
+        return crewChanges.isEmpty() && jobChanges.isEmpty() && housingChanges.isEmpty()
+                && jobAssignsRemoved.isEmpty() && jobAssignsAdded.isEmpty()
+                && housingAssignsRemoved.isEmpty() && housingAssignsAdded.isEmpty();
+    }
+}
@@ -22,6 +22,7 @@ public class JobAssignment {
     /**
      * Called first in the end of month cycle.
      * Update the month's workload and workProduced
+     * This is a compute stage: it only writes to this assignment, and may run at the same time as other assignments.
      *
      * Planned feature:
      *  1. Store monthly workload (JobAssignment)
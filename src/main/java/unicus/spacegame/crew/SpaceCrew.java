@@ -1,16 +1,30 @@
 package unicus.spacegame.crew;
 import org.apache.commons.lang3.ArrayUtils;
+import unicus.spacegame.save.Autosave;
+import unicus.spacegame.save.KeyRemap;
+import unicus.spacegame.save.SaveFormatException;
+import unicus.spacegame.save.SaveReader;
+import unicus.spacegame.save.SaveWriter;
+import unicus.spacegame.simulation.TickScheduler;
 import unicus.spacegame.spaceship.HomeShip;
 import unicus.spacegame.spaceship.MainBridge;
 import unicus.spacegame.spaceship.cunstruction.Construction;
 import unicus.spacegame.ui.DebugConsole;
+import unicus.spacegame.utilities.IntIndexMap;
+import unicus.spacegame.utilities.IntList;
 import unicus.spacegame.utilities.ObjectKey;
 import static unicus.spacegame.utilities.Constants.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Hashtable;
+import java.util.Map;
 import java.util.Random;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
 /*
  * Refactor notes:
  * Crew.java is renamed to SpaceCrew.java.
@@ -28,6 +42,17 @@ public class SpaceCrew {
         return SC;
     }
 
+    /**
+     * Keys of permanent jobs, like the bridge and construction.
+     * These jobs are never given a new key, and are kept when loading a save-file.
+     */
+    private static final int[] RESERVED_JOB_KEYS = new int[]{
+            CONSTRUCTION_JOB_KEY,
+            CAPTAIN_JOB_KEY,
+            BRIDGE_JOB_KEY,
+            MAIN_ENGINEER_JOB_KEY
+    };
+
     private final ObjectKey crewKeys;
     private final ObjectKey jobKeys;
     private final ObjectKey housingKeys;
@@ -47,12 +72,44 @@ public class SpaceCrew {
     private AbstractHousing[] housings;
     private HousingAssignment[] housingAssignments;
 
+    /**
+     * Lookup tables from keyID to position in {@link #crewmen}, {@link #jobs} and {@link #housings}.
+     * The arrays keep their order (saves and end-of-month cycles depend on it),
+     * the index is rebuilt whenever an array is replaced.
+     */
+    private final IntIndexMap crewIndex;
+    private final IntIndexMap jobIndex;
+    private final IntIndexMap housingIndex;
+
+    /**
+     * Assignments grouped by job, crewman and housing.
+     * Updated for the keys an edit touched when {@link #jobAssignments} or {@link #housingAssignments} change,
+     *  and rebuilt on load.
+     */
+    private final AssignmentIndex<JobAssignment> jobAssignmentsByJob;
+    private final AssignmentIndex<JobAssignment> jobAssignmentsByCrew;
+    private final AssignmentIndex<HousingAssignment> housingAssignmentsByHousing;
+    private final AssignmentIndex<HousingAssignment> housingAssignmentsByCrew;
+
+    private final CrewStateIndex crewStateIndex;
+
+    //The edit currently being recorded, if any. See edit(Consumer).
+    private CrewTransaction openEdit;
+
     private SpaceCrew(){
         this.crewmen = new AbstractCrewman[0];
         this.jobs = new AbstractJob[0];
         this.jobAssignments = new JobAssignment[0];
         this.housings = new AbstractHousing[0];
         this.housingAssignments = new HousingAssignment[0];
+        this.crewIndex = new IntIndexMap();
+        this.jobIndex = new IntIndexMap();
+        this.housingIndex = new IntIndexMap();
+        this.jobAssignmentsByJob = new AssignmentIndex<>(JobAssignment::getJobID, jobAssignments);
+        this.jobAssignmentsByCrew = new AssignmentIndex<>(JobAssignment::getCrewID, jobAssignments);
+        this.housingAssignmentsByHousing = new AssignmentIndex<>(HousingAssignment::getHousingID, housingAssignments);
+        this.housingAssignmentsByCrew = new AssignmentIndex<>(HousingAssignment::getCrewID, housingAssignments);
+        this.crewStateIndex = new CrewStateIndex();
         SC = this;
 
         jobKeys = new ObjectKey();
@@ -60,30 +117,48 @@ public class SpaceCrew {
         housingKeys = new ObjectKey();
 
         //set reserved keys
-        jobKeys.setReserved(
-                CONSTRUCTION_JOB_KEY,
-                CAPTAIN_JOB_KEY,
-                BRIDGE_JOB_KEY,
-                MAIN_ENGINEER_JOB_KEY
-        );
-        DebugConsole.getInstance().addCrewCommands();
+        jobKeys.setReserved(RESERVED_JOB_KEYS);
+        if(DebugConsole.isEnabled())
+            DebugConsole.getInstance().addCrewCommands();
     }
     public void endOfMonthJobsHousing(){
+        endOfMonthJobsHousing(TickScheduler.SERIAL);
+    }
+
+    /**
+     * End of month for job assignments, jobs and housing.
+     * Compute stage: every job assignment calculates its workload and work done.
+     * Commit stage: jobs and housing complete the month, one at a time.
+     * @param scheduler Runs the compute stage.
+     */
+    public void endOfMonthJobsHousing(TickScheduler scheduler){
+        scheduler.forEach(jobAssignments, JobAssignment::endOfMonth);
+
         int i;
-        for (i = jobAssignments.length - 1; i >= 0; i--) {
-            JobAssignment ja = jobAssignments[i];
-            ja.endOfMonth();
-        }
+        AbstractJob[] jobs = this.jobs;
         for (i = jobs.length - 1; i >= 0; i--) {
             AbstractJob job = jobs[i];
             job.endOfMonth();
         }
+        AbstractHousing[] housings = this.housings;
         for (i = housings.length - 1; i >= 0; i--) {
             AbstractHousing housing = housings[i];
             housing.endOfMonth();
         }
     }
     public void endOfMonthCrew(){
+        endOfMonthCrew(TickScheduler.SERIAL);
+    }
+
+    /**
+     * End of month for crewmen.
+     * Compute stage: every crewman calculates its stress and morale for the month.
+     * Commit stage: every crewman applies the changes, and may trigger events, one at a time.
+     * @param scheduler Runs the compute stage.
+     */
+    public void endOfMonthCrew(TickScheduler scheduler){
+        AbstractCrewman[] crewmen = this.crewmen;
+        scheduler.forEach(crewmen, AbstractCrewman::prepareEndOfMonth);
         for (int i = crewmen.length - 1; i >= 0; i--) {
             AbstractCrewman crewman = crewmen[i];
             crewman.endOfMonth();
@@ -94,7 +169,8 @@ public class SpaceCrew {
     //TODO: crewGenerator (start scenarios), crew-lists
 
     /*
-    Note: consider replacing array with hash map of key ids
+    Note: lookups by key id go through crewIndex, jobIndex and housingIndex.
+    Any code replacing crewmen, jobs or housings must call the matching reindex method.
      */
 
 
@@ -195,26 +271,157 @@ public class SpaceCrew {
     }
 
     public AbstractJob getJob(int jobID){
-        for (AbstractJob j : jobs) {
-            if(j.getKeyID() == jobID)
-                return j;
-        }
-        return null;
+        int i = jobIndex.get(jobID);
+        return i < 0 ? null : jobs[i];
     }
     public AbstractCrewman getCrew(int crewID){
-        for (AbstractCrewman c : crewmen) {
-            if(c.getKeyID() == crewID)
-                return c;
-        }
-        return null;
+        int i = crewIndex.get(crewID);
+        return i < 0 ? null : crewmen[i];
     }
     public AbstractHousing getHousing(int housingID){
-        for (AbstractHousing h : housings) {
-            if(h.getKeyID() == housingID) {
-                return h;
-            }
+        int i = housingIndex.get(housingID);
+        return i < 0 ? null : housings[i];
+    }
+
+    private void reindexCrew() {
+        crewIndex.clear();
+        for (int i = 0; i < crewmen.length; i++)
+            crewIndex.put(crewmen[i].keyID, i);
+    }
+    private void reindexJobs() {
+        jobIndex.clear();
+        for (int i = 0; i < jobs.length; i++)
+            jobIndex.put(jobs[i].getKeyID(), i);
+    }
+    private void reindexHousing() {
+        housingIndex.clear();
+        for (int i = 0; i < housings.length; i++)
+            housingIndex.put(housings[i].getKeyID(), i);
+    }
+
+    /**
+     * Makes a batch of changes to the crew, jobs, housing and assignments.
+     * The changes are recorded in a {@link CrewTransaction}, and applied together once {@code changes} returns.
+     * Until then, every getter of SpaceCrew returns the state from before the edit,
+     *  but {@link #canAssignJobCrew(int, int)} and {@link #canAssignHouseCrew(int, int)} check the pending state.
+     *
+     * An edit started while another edit is open joins it, and is committed with the outermost edit.
+     * If {@code changes} throws, nothing is committed.
+     *
+     * Example:
+     *      SpaceCrew.SC().edit(tx -> tx.removeJobs(oldJobs).addJobs(newJobs));
+     *
+     * @param changes Records the changes to make.
+     */
+    public void edit(Consumer<CrewTransaction> changes) {
+        if(openEdit != null) {
+            changes.accept(openEdit);
+            return;
+        }
+        CrewTransaction tx = new CrewTransaction(this);
+        openEdit = tx;
+        try {
+            changes.accept(tx);
+        } finally {
+            openEdit = null;
+        }
+        if(!tx.isEmpty()) {
+            commit(tx);
+            for (Runnable action : tx.afterCommit)
+                action.run();
         }
-        return null;
+    }
+
+    private void commit(CrewTransaction tx) {
+        //replacing a crewman moves it to the end, and every crewman after it one step down.
+        boolean crewMoved = false;
+        int oldNumCrew = crewmen.length;
+        if(!tx.crewChanges.isEmpty()) {
+            for (int key : tx.crewChanges.keySet())
+                crewMoved |= crewIndex.containsKey(key);
+            crewmen = applyChanges(crewmen, tx.crewChanges, AbstractCrewman::getKeyID);
+            reindexCrew();
+        }
+        if(!tx.jobChanges.isEmpty()) {
+            jobs = applyChanges(jobs, tx.jobChanges, AbstractJob::getKeyID);
+            reindexJobs();
+        }
+        if(!tx.housingChanges.isEmpty()) {
+            housings = applyChanges(housings, tx.housingChanges, AbstractHousing::getKeyID);
+            reindexHousing();
+        }
+
+        if(!tx.jobAssignsRemoved.isEmpty() || !tx.jobAssignsAdded.isEmpty()) {
+            jobAssignments = applyChanges(jobAssignments, tx.jobAssignsRemoved, tx.jobAssignsAdded.values());
+            jobAssignmentsByJob.update(tx.jobAssignsRemoved, tx.jobAssignsAdded.values());
+            jobAssignmentsByCrew.update(tx.jobAssignsRemoved, tx.jobAssignsAdded.values());
+        }
+        if(!tx.housingAssignsRemoved.isEmpty() || !tx.housingAssignsAdded.isEmpty()) {
+            housingAssignments = applyChanges(housingAssignments, tx.housingAssignsRemoved, tx.housingAssignsAdded.values());
+            housingAssignmentsByHousing.update(tx.housingAssignsRemoved, tx.housingAssignsAdded.values());
+            housingAssignmentsByCrew.update(tx.housingAssignsRemoved, tx.housingAssignsAdded.values());
+        }
+
+        if(crewMoved) {
+            crewStateIndex.rebuild(crewmen, jobAssignmentsByCrew, housingAssignmentsByCrew);
+        } else {
+            IntList touched = new IntList();
+            for (int i = oldNumCrew; i < crewmen.length; i++)
+                touched.add(i);
+            for (JobAssignment ja : tx.jobAssignsRemoved)
+                touchCrew(touched, ja.getCrewID());
+            for (JobAssignment ja : tx.jobAssignsAdded.values())
+                touchCrew(touched, ja.getCrewID());
+            for (HousingAssignment ha : tx.housingAssignsRemoved)
+                touchCrew(touched, ha.getCrewID());
+            for (HousingAssignment ha : tx.housingAssignsAdded.values())
+                touchCrew(touched, ha.getCrewID());
+            if(!touched.isEmpty())
+                crewStateIndex.update(crewmen, touched, jobAssignmentsByCrew, housingAssignmentsByCrew);
+        }
+    }
+
+    private void touchCrew(IntList touched, int crewID) {
+        int i = crewIndex.get(crewID);
+        if(i >= 0)
+            touched.add(i);
+    }
+
+    /**
+     * Builds a new array from {@code current}, without the objects whose key is in {@code changes}.
+     * The objects in {@code changes} are appended at the end, in the order of the map. Null values are removals.
+     */
+    private static <T> T[] applyChanges(T[] current, Map<Integer, T> changes, ToIntFunction<T> keyOf) {
+        IntIndexMap changed = new IntIndexMap(changes.size());
+        for (int key : changes.keySet())
+            changed.put(key, 0);
+
+        T[] next = Arrays.copyOf(current, current.length + changes.size());
+        int n = 0;
+        for (T t : current) {
+            if(!changed.containsKey(keyOf.applyAsInt(t)))
+                next[n++] = t;
+        }
+        for (T t : changes.values()) {
+            if(t != null)
+                next[n++] = t;
+        }
+        return n == next.length ? next : Arrays.copyOf(next, n);
+    }
+
+    /**
+     * Builds a new array from {@code current} without the objects in {@code removed}, and with {@code added} at the end.
+     */
+    private static <T> T[] applyChanges(T[] current, Set<T> removed, Collection<T> added) {
+        T[] next = Arrays.copyOf(current, current.length + added.size());
+        int n = 0;
+        for (T t : current) {
+            if(!removed.contains(t))
+                next[n++] = t;
+        }
+        for (T t : added)
+            next[n++] = t;
+        return n == next.length ? next : Arrays.copyOf(next, n);
     }
 
     /**
@@ -222,15 +429,60 @@ public class SpaceCrew {
      * @return
      */
     public AbleCrewman[] getUnemployed() {
-        ArrayList<AbleCrewman> unemployed = new ArrayList<>();
-        for (AbstractCrewman crewman : crewmen) {
-            if(!crewman.getState().isWorkAble())
-                continue;
-            if(getJobAssignmentsByCrewman(crewman.keyID).length <= 0)
-                unemployed.add((AbleCrewman) crewman);
-        }
-        return unemployed.toArray(new AbleCrewman[0]);
+        CrewCursor cursor = queryUnemployed(new CrewCursor());
+        AbleCrewman[] unemployed = new AbleCrewman[cursor.count()];
+        for (int i = 0; cursor.next(); i++)
+            unemployed[i] = (AbleCrewman) cursor.crewman();
+        return unemployed;
+    }
+
+    //#region crew queries
+    /*
+    The crew queries are backed by bitsets, maintained each time the crew or the assignments change.
+    Pass the same CrewCursor every time, and a query makes no garbage (for UI that refreshes every frame).
+     */
+
+    /**
+     * Finds all crewmen that are able to work (see {@link CrewmanState#isWorkAble()}).
+     * @param cursor The cursor to reset to the result.
+     * @return the cursor.
+     */
+    public CrewCursor queryWorkable(CrewCursor cursor) {
+        cursor.reset(crewStateIndex.workable, crewmen);
+        return cursor;
+    }
+    /**
+     * Finds all crewmen able to work, that are not assigned to any job.
+     */
+    public CrewCursor queryUnemployed(CrewCursor cursor) {
+        cursor.reset(crewStateIndex.unemployed, crewmen);
+        return cursor;
     }
+    /**
+     * Finds all living crewmen, that are not assigned any housing.
+     */
+    public CrewCursor queryHomeless(CrewCursor cursor) {
+        cursor.reset(crewStateIndex.homeless, crewmen);
+        return cursor;
+    }
+    /**
+     * Finds all crewmen in a state of life.
+     */
+    public CrewCursor queryState(CrewmanState state, CrewCursor cursor) {
+        cursor.reset(crewStateIndex.byState[state.ordinal()], crewmen);
+        return cursor;
+    }
+    /**
+     * Finds all crewmen able to work, with a skill at or above a threshold.
+     * Skills change often, so they are checked as the cursor moves.
+     * @param skillType The skill to check
+     * @param minSkill The lowest allowed skill value.
+     */
+    public CrewCursor querySkill(SkillType skillType, int minSkill, CrewCursor cursor) {
+        cursor.reset(crewStateIndex.workable, crewmen, SkillType.GetIndexByType(skillType), minSkill);
+        return cursor;
+    }
+    //#endregion
 
 
     /**
@@ -240,13 +492,13 @@ public class SpaceCrew {
      * @param newCrewObjects
      */
     public void addReplaceCrewmen(AbstractCrewman... newCrewObjects) {
-        int[] toRemove = new int[0];
-        for (AbstractCrewman c:newCrewObjects) {
-            for (int i = 0; i < crewmen.length; i++)
-                if (crewmen[i].keyID == c.keyID) toRemove = ArrayUtils.add(toRemove, i);
-        }
-        crewmen = ArrayUtils.removeAll(crewmen, toRemove);
-        crewmen = ArrayUtils.addAll(crewmen, newCrewObjects);
+        edit(tx -> tx.addReplaceCrewmen(newCrewObjects).afterCommit(() -> {
+            SaveWriter journal = Autosave.record(Autosave.CREW_ADD_REPLACE);
+            if(journal != null) {
+                journal.writeInt(crewKeys.getLastKey());
+                writeCrewmen(journal, newCrewObjects);
+            }
+        }));
     }
 
     //NOTE: for now, removing crewmen should be considered impossible.
@@ -267,50 +519,18 @@ public class SpaceCrew {
      * @param newJobObjects
      */
     public void addJobs(AbstractJob... newJobObjects) {
-        int[] toRemove = new int[0];
-        for (AbstractJob j:newJobObjects) {
-            for (int i = 0; i < jobs.length; i++)
-                if (jobs[i].getKeyID() == j.getKeyID()) toRemove = ArrayUtils.add(toRemove, i);
-        }
-        jobs = ArrayUtils.removeAll(jobs, toRemove);
-        jobs = ArrayUtils.addAll(jobs, newJobObjects);
+        edit(tx -> tx.addJobs(newJobObjects));
     }
     public void removeJobs(int... jobKeys) {
-        int[] toRemove = new int[0];
-        int i;
-        for (i = 0; i < jobs.length; i++)
-            if (ArrayUtils.contains(jobKeys, jobs[i].getKeyID()))
-                toRemove = ArrayUtils.add(toRemove, i);
-        jobs = ArrayUtils.removeAll(jobs, toRemove);
-        toRemove = new int[0];
-        for (i = 0; i < jobAssignments.length; i++)
-            if(ArrayUtils.contains(jobKeys, jobAssignments[i].getJobID()))
-                toRemove = ArrayUtils.add(toRemove, i);
-        jobAssignments = ArrayUtils.removeAll(jobAssignments, toRemove);
+        edit(tx -> tx.removeJobs(jobKeys));
     }
 
     public void addHousing(AbstractHousing... newHousingObjects) {
-        int[] toRemove = new int[0];
-        for (AbstractHousing h:newHousingObjects) {
-            for (int i = 0; i < housings.length; i++)
-                if (housings[i].getKeyID() == h.getKeyID()) toRemove = ArrayUtils.add(toRemove, i);
-        }
-        housings = ArrayUtils.removeAll(housings, toRemove);
-        housings = ArrayUtils.addAll(housings, newHousingObjects);
+        edit(tx -> tx.addHousing(newHousingObjects));
     }
 
     public void removeHousing(int... housingKeys) {
-        int[] toRemove = new int[0];
-        int i;
-        for (i = 0; i < housings.length; i++)
-            if (ArrayUtils.contains(housingKeys, housings[i].getKeyID()))
-                toRemove = ArrayUtils.add(toRemove, i);
-        housings = ArrayUtils.removeAll(housings, toRemove);
-        toRemove = new int[0];
-        for (i = 0; i < housingAssignments.length; i++)
-            if (ArrayUtils.contains(housingKeys, housingAssignments[i].getHousingID()))
-                toRemove = ArrayUtils.add(toRemove, i);
-        housingAssignments = ArrayUtils.removeAll(housingAssignments, toRemove);
+        edit(tx -> tx.removeHousing(housingKeys));
     }
 
 
@@ -318,93 +538,71 @@ public class SpaceCrew {
         return canAssignJobCrew(jobID, crewID, new StringBuffer());
     }
 
+    /**
+     * Checks if a crewman may be assigned to a job.
+     * While an edit is open, checks against the state the edit will leave.
+     */
     public boolean canAssignJobCrew(int jobID, int crewID, StringBuffer message) {
-        AbstractJob job = getJob(jobID);
-        AbleCrewman crewman = getAbleCrew(crewID);
+        CrewTransaction tx = openEdit;
+        AbstractJob job = tx != null ? tx.getJob(jobID) : getJob(jobID);
+        AbstractCrewman c = tx != null ? tx.getCrew(crewID) : getCrew(crewID);
         if(job == null) {
             message.append("Cannot assign crewman, invalid job ID.");
             return false;
         }
-        if(crewman == null) {
+        if(c == null || !c.getState().isWorkAble()) {
             message.append("Cannot assign crewman, invalid crewman ID, or not able to work.");
             return false;
         }
+        AbleCrewman crewman = (AbleCrewman) c;
 
         if(!job.crewmanAllowedJob(crewman, message))
             return false;
-        int numAssigned = 0;
-        for (JobAssignment a : jobAssignments) {
-            if(a.getJobID() == jobID) {
-                if(a.getCrewID() == crewID) {
-                    message.append("Cannot assign crewman, crewman is already assigned.");
-                    return false;
-                }
-
-                numAssigned ++;
-                if(numAssigned >= job.getNumWorkerSlots()) {
-                    message.append("Cannot assign crewman, the workplace is full.");
-                    return false;
-                }
-            }
+        if(tx != null ? tx.isJobAssigned(jobID, crewID) : getJobAssignment(jobID, crewID) != null) {
+            message.append("Cannot assign crewman, crewman is already assigned.");
+            return false;
+        }
+        int numAssigned = tx != null ? tx.countJobAssignments(jobID) : jobAssignmentsByJob.count(jobID);
+        if(numAssigned >= job.getNumWorkerSlots()) {
+            message.append("Cannot assign crewman, the workplace is full.");
+            return false;
         }
         message.append("Crewman may be assigned.");
         return true;
     }
 
-    private AbleCrewman getAbleCrew(int crewID) {
-        AbstractCrewman crewman = getCrew(crewID);
-        if(crewman.getState().isWorkAble())
-            return (AbleCrewman) crewman;
-        else
-            return null;
-    }
-
     public void assignJobCrew(int jobID, int crewID) {
         if(!canAssignJobCrew(jobID, crewID))
             return;
-        JobAssignment newJA = new JobAssignment(jobID, crewID);
-        jobAssignments = ArrayUtils.add(jobAssignments, newJA);
+        edit(tx -> journal(tx.assignJobCrew(jobID, crewID), Autosave.CREW_ASSIGN_JOB, jobID, crewID));
     }
 
     public void unassignJobCrew(int jobID, int crewID) {
-        for (int i = 0; i < jobAssignments.length; i++) {
-            if(jobAssignments[i].getJobID() == jobID && jobAssignments[i].getCrewID() == crewID) {
-                jobAssignments = ArrayUtils.remove(jobAssignments, i);
-                return;
-            }
-        }
+        edit(tx -> journal(tx.unassignJobCrew(jobID, crewID), Autosave.CREW_UNASSIGN_JOB, jobID, crewID));
     }
 
     public void unassignAllJobCrew(int jobID) {
-        int[] toRemove = new int[0];
-        for (int i = 0; i < jobAssignments.length; i++) {
-            if(jobAssignments[i].getJobID() == jobID) {
-                toRemove = ArrayUtils.add(toRemove, i);
-            }
-        }
-        jobAssignments = ArrayUtils.removeAll(jobAssignments, toRemove);
+        edit(tx -> journal(tx.unassignAllJobCrew(jobID), Autosave.CREW_UNASSIGN_ALL_JOB, jobID));
     }
 
+    /**
+     * Gets all crewmen assigned to a job.
+     * @return A shared array, that must not be modified.
+     */
     public JobAssignment[] getJobAssignmentsByJob(int jobID){
-        JobAssignment[] assignments = new JobAssignment[0];
-        for (JobAssignment ja : jobAssignments) {
-            if(ja.getJobID() == jobID)
-                assignments = ArrayUtils.add(assignments, ja);
-        }
-        return assignments;
-
+        return jobAssignmentsByJob.get(jobID);
     }
+    /**
+     * Gets all jobs a crewman is assigned to.
+     * @return A shared array, that must not be modified.
+     */
     public JobAssignment[] getJobAssignmentsByCrewman(int crewID){
-        JobAssignment[] assignments = new JobAssignment[0];
-        for (JobAssignment ja : jobAssignments) {
-            if(ja.getCrewID() == crewID)
-                assignments = ArrayUtils.add(assignments, ja);
-        }
-        return assignments;
+        return jobAssignmentsByCrew.get(crewID);
     }
     public JobAssignment getJobAssignment(int jobID, int crewID) {
-        for (JobAssignment ja : jobAssignments) {
-            if(ja.getJobID() == jobID && ja.getCrewID() == crewID)
+        //a crewman has few jobs, so searching the crewman's jobs is cheap.
+        for (JobAssignment ja : jobAssignmentsByCrew.get(crewID)) {
+            if(ja.getJobID() == jobID)
                 return ja;
         }
         return null;
@@ -413,9 +611,14 @@ public class SpaceCrew {
     public boolean canAssignHouseCrew(int housingID, int crewID) {
         return canAssignHouseCrew(housingID, crewID, new StringBuffer());
     }
+    /**
+     * Checks if a crewman may move into a housing unit.
+     * While an edit is open, checks against the state the edit will leave.
+     */
     public boolean canAssignHouseCrew(int housingID, int crewID, StringBuffer message) {
-        AbstractHousing h = getHousing(housingID);
-        AbstractCrewman c = getCrew(crewID);
+        CrewTransaction tx = openEdit;
+        AbstractHousing h = tx != null ? tx.getHousing(housingID) : getHousing(housingID);
+        AbstractCrewman c = tx != null ? tx.getCrew(crewID) : getCrew(crewID);
 
         if(h == null) {
             message.append("Invalid housing selection");
@@ -429,11 +632,11 @@ public class SpaceCrew {
             message.append("This crewman is dead. It simply would not be proper.");
             return false;
         }
-        if(getHouseAssignment(housingID, crewID) != null) {
+        if(tx != null ? tx.livesIn(housingID, crewID) : getHouseAssignment(housingID, crewID) != null) {
             message.append("This crewman already lives here.");
             return false;
         }
-        int numResidents = getResidentsOfHouse(housingID).length;
+        int numResidents = tx != null ? tx.countResidents(housingID) : getResidentsOfHouse(housingID).length;
         if(numResidents >= h.getCapacity()) {
             message.append("The house is full of people already!");
             return false;
@@ -444,57 +647,397 @@ public class SpaceCrew {
 
     public void assignHousingCrew(int housingID, int crewID, boolean force) {
         if(force || canAssignHouseCrew(housingID, crewID)){
-            evictCrewman(crewID); //remove crewman from any previous housing
-           HousingAssignment newHA = new HousingAssignment(housingID, crewID);
-           housingAssignments = ArrayUtils.add(housingAssignments, newHA);
+            //the transaction removes the crewman from any previous housing
+            edit(tx -> journal(tx.assignHousingCrew(housingID, crewID), Autosave.CREW_ASSIGN_HOUSING, housingID, crewID));
         }
     }
 
     public void evictCrewman(int crewID){
-        int[] toRemove = new int[0];
-        for (int i = 0; i < housingAssignments.length; i++) {
-            if(housingAssignments[i].getCrewID() == crewID) {
-                toRemove = ArrayUtils.add(toRemove, i);
-            }
-            housingAssignments = ArrayUtils.removeAll(housingAssignments, toRemove);
-        }
+        edit(tx -> journal(tx.evictCrewman(crewID), Autosave.CREW_EVICT, crewID));
     }
 
     public void evictAllFromHousing(int housingID) {
-        int[] toRemove = new int[0];
-        for (int i = 0; i < housingAssignments.length; i++) {
-            if(housingAssignments[i].getHousingID() == housingID) {
-                toRemove = ArrayUtils.add(toRemove, i);
-            }
-            housingAssignments = ArrayUtils.removeAll(housingAssignments, toRemove);
-        }
+        edit(tx -> journal(tx.evictAllFromHousing(housingID), Autosave.CREW_EVICT_ALL, housingID));
     }
 
+    /**
+     * Gets all crewmen living in a housing unit.
+     * @return A shared array, that must not be modified.
+     */
     public HousingAssignment[] getResidentsOfHouse(int housingID){
-        HousingAssignment[] assignments = new HousingAssignment[0];
-        for (HousingAssignment ha : housingAssignments) {
-            if(ha.getHousingID() == housingID)
-                assignments = ArrayUtils.add(assignments, ha);
-        }
-        return assignments;
+        return housingAssignmentsByHousing.get(housingID);
+    }
+
+    /**
+     * Gets the housing assignments of a crewman. Normally one, or none if homeless.
+     * @return A shared array, that must not be modified.
+     */
+    public HousingAssignment[] getHousingAssignmentsByCrew(int crewID){
+        return housingAssignmentsByCrew.get(crewID);
     }
 
     public HousingAssignment getHousingByCrew(int crewID){
-        for (HousingAssignment ha : housingAssignments) {
-            if(ha.getCrewID() == crewID)
-                return ha;
-        }
+        HousingAssignment[] assignments = housingAssignmentsByCrew.get(crewID);
+        if(assignments.length > 0)
+            return assignments[0];
         return null; //home
     }
 
     public HousingAssignment getHouseAssignment(int housingID, int crewID) {
-        for (HousingAssignment ha : housingAssignments) {
-            if(ha.getHousingID() == housingID && ha.getCrewID() == crewID)
+        for (HousingAssignment ha : housingAssignmentsByCrew.get(crewID)) {
+            if(ha.getHousingID() == housingID)
                 return ha;
         }
         return null;
     }
 
+    //#region save and load
+    //Crewman classes, as numbered in save-files. Never renumber, only add.
+    private static final int CREW_CHILD = 0;
+    private static final int CREW_YOUTH = 1;
+    private static final int CREW_ADULT = 2;
+    private static final int CREW_SENIOR = 3;
+
+    /**
+     * Writes the crew section of a save-file.
+     *
+     * Jobs and housing are not written here. They belong to the ship modules, and are re-created with the ship.
+     * See {@link #readSave(SaveReader, KeyRemap, KeyRemap)}.
+     *
+     * Note: the state of the crewman is written apart from its class,
+     *      as a crewman made with a manual constructor may have a state that does not match its class.
+     * @param out The save to write to.
+     */
+    public void writeSave(SaveWriter out) {
+        out.writeInt(crewKeys.getLastKey());
+        out.writeInt(jobKeys.getLastKey());
+        out.writeInt(housingKeys.getLastKey());
+
+        writeCrewmen(out, crewmen);
+
+        //#region job assignments
+        int n = jobAssignments.length;
+        int[] jobIDs = new int[n];
+        int[] jobCrewIDs = new int[n];
+        byte[] workshares = new byte[n];
+        for (int i = 0; i < n; i++) {
+            JobAssignment ja = jobAssignments[i];
+            jobIDs[i] = ja.getJobID();
+            jobCrewIDs[i] = ja.getCrewID();
+            workshares[i] = (byte) ja.getWorkshare().ordinal();
+        }
+        out.writeIntColumn(jobIDs);
+        out.writeIntColumn(jobCrewIDs);
+        out.writeByteColumn(workshares);
+        //#endregion
+
+        //#region housing assignments
+        n = housingAssignments.length;
+        int[] housingIDs = new int[n];
+        int[] housingCrewIDs = new int[n];
+        for (int i = 0; i < n; i++) {
+            housingIDs[i] = housingAssignments[i].getHousingID();
+            housingCrewIDs[i] = housingAssignments[i].getCrewID();
+        }
+        out.writeIntColumn(housingIDs);
+        out.writeIntColumn(housingCrewIDs);
+        //#endregion
+    }
+
+    /**
+     * Writes crewmen as columns. Used by save-files, and by the autosave journal for added crewmen.
+     * @param out The save to write to.
+     * @param crewmen The crewmen to write.
+     */
+    public static void writeCrewmen(SaveWriter out, AbstractCrewman[] crewmen) {
+        int n = crewmen.length;
+        int numSkills = SkillType.values().length;
+        int[] keyIDs = new int[n];
+        byte[] kinds = new byte[n];
+        byte[] states = new byte[n];
+        int[] birthDates = new int[n];
+        String[] names = new String[n];
+        byte[] genders = new byte[n];
+        int[] skills = new int[n * numSkills];
+        double[] intelligence = new double[n];
+        double[] morale = new double[n];
+        double[] stress = new double[n];
+        int[] numParents = new int[n];
+        IntList parents = new IntList(n * 2);
+
+        for (int i = 0; i < n; i++) {
+            AbstractCrewman c = crewmen[i];
+            kinds[i] = (byte) crewKind(c);
+            AbleCrewman a = (AbleCrewman) c;
+            keyIDs[i] = c.keyID;
+            states[i] = (byte) c.getState().ordinal();
+            birthDates[i] = c.birthDate;
+            names[i] = c.getSelfID().name;
+            genders[i] = (byte) c.getSelfID().gender.ordinal();
+            for (int s = 0; s < numSkills; s++)
+                skills[i * numSkills + s] = a.getSkill(s);
+            intelligence[i] = a.base_intelligence;
+            morale[i] = a.base_morale;
+            stress[i] = a.stress;
+            numParents[i] = c.geneData.parentIDs.length;
+            parents.addAll(c.geneData.parentIDs);
+        }
+        out.writeIntColumn(keyIDs);
+        out.writeByteColumn(kinds);
+        out.writeByteColumn(states);
+        out.writeIntColumn(birthDates);
+        out.writeStringColumn(names);
+        out.writeByteColumn(genders);
+        out.writeInt(numSkills);
+        out.writeIntColumn(skills);
+        out.writeDoubleColumn(intelligence);
+        out.writeDoubleColumn(morale);
+        out.writeDoubleColumn(stress);
+        out.writeIntColumn(numParents);
+        out.writeIntColumn(parents.toArray());
+    }
+
+    /**
+     * Reads crewmen written by {@link #writeCrewmen(SaveWriter, AbstractCrewman[])}.
+     * @param in The save to read from.
+     * @return New crewman objects, not yet added to the crew.
+     * @throws SaveFormatException If the crewmen are corrupt.
+     */
+    public static AbstractCrewman[] readCrewmen(SaveReader in) throws SaveFormatException {
+        int[] keyIDs = in.readIntColumn();
+        int n = keyIDs.length;
+        byte[] kinds = in.readByteColumn(n);
+        byte[] states = in.readByteColumn(n);
+        int[] birthDates = in.readIntColumn(n);
+        String[] names = in.readStringColumn(n);
+        byte[] genders = in.readByteColumn(n);
+        int numSkills = in.readInt();
+        if(numSkills != SkillType.values().length)
+            throw new SaveFormatException("Save-file has " + numSkills + " skills, expected " + SkillType.values().length + ".");
+        int[] skills = in.readIntColumn(n * numSkills);
+        double[] intelligence = in.readDoubleColumn(n);
+        double[] morale = in.readDoubleColumn(n);
+        double[] stress = in.readDoubleColumn(n);
+        int[] numParents = in.readIntColumn(n);
+        int[] parents = in.readIntColumn();
+
+        CrewmanState[] stateValues = CrewmanState.values();
+        CrewGender[] genderValues = CrewGender.values();
+        AbstractCrewman[] loaded = new AbstractCrewman[n];
+        int p = 0;
+        for (int i = 0; i < n; i++) {
+            if(states[i] < 0 || states[i] >= stateValues.length || genders[i] < 0 || genders[i] >= genderValues.length)
+                throw new SaveFormatException("Crewman " + keyIDs[i] + " has an unknown state or gender.");
+            if(numParents[i] < 0 || p + numParents[i] > parents.length)
+                throw new SaveFormatException("Crewman " + keyIDs[i] + " has a corrupt list of parents.");
+            CrewSelfID selfID = new CrewSelfID(names[i], genderValues[genders[i]]);
+            CrewmanGeneData geneData = new CrewmanGeneData(Arrays.copyOfRange(parents, p, p + numParents[i]));
+            p += numParents[i];
+            SkillSet skillSet = new SkillSet(Arrays.copyOfRange(skills, i * numSkills, (i + 1) * numSkills));
+            AbleCrewman c = newCrewman(kinds[i], keyIDs[i], stateValues[states[i]], birthDates[i],
+                    selfID, geneData, skillSet, intelligence[i], morale[i]);
+            c.stress = stress[i];
+            loaded[i] = c;
+        }
+        return loaded;
+    }
+
+    /**
+     * Clears the crew, housing, assignments and all jobs except the permanent ones (see {@link #RESERVED_JOB_KEYS}).
+     * Called before loading a save-file, so the ship can re-create its jobs and housing before the crew is read.
+     */
+    public void clearForLoad() {
+        if(openEdit != null)
+            throw new IllegalStateException("Can not load while an edit is open.");
+        crewmen = new AbstractCrewman[0];
+        housings = new AbstractHousing[0];
+        jobAssignments = new JobAssignment[0];
+        housingAssignments = new HousingAssignment[0];
+        ArrayList<AbstractJob> permanent = new ArrayList<>();
+        for (AbstractJob job : jobs) {
+            if(ArrayUtils.contains(RESERVED_JOB_KEYS, job.getKeyID()))
+                permanent.add(job);
+        }
+        jobs = permanent.toArray(new AbstractJob[0]);
+        reindexAll();
+    }
+
+    /**
+     * Reads the crew section of a save-file, replacing the crewmen and assignments.
+     * The ship must have been loaded first, as it re-creates the jobs and housing with new keys.
+     * Assignments are moved over to the new keys. Assignments to jobs or housing that no longer exist are dropped.
+     *
+     * @param in The save to read from.
+     * @param jobKeys Saved job keys to new job keys.
+     * @param housingKeys Saved housing keys to new housing keys.
+     * @throws SaveFormatException If the crew section is corrupt.
+     */
+    public void readSave(SaveReader in, KeyRemap jobKeys, KeyRemap housingKeys) throws SaveFormatException {
+        if(openEdit != null)
+            throw new IllegalStateException("Can not load while an edit is open.");
+        int lastCrewKey = in.readInt();
+        int lastJobKey = in.readInt();
+        int lastHousingKey = in.readInt();
+
+        crewmen = readCrewmen(in);
+        reindexCrew();
+
+        //#region job assignments
+        int[] jobIDs = in.readIntColumn();
+        int n = jobIDs.length;
+        int[] jobCrewIDs = in.readIntColumn(n);
+        byte[] workshares = in.readByteColumn(n);
+        WorkShare[] workshareValues = WorkShare.values();
+        JobAssignment[] nextJobAssignments = new JobAssignment[n];
+        int numJobAssignments = 0;
+        for (int i = 0; i < n; i++) {
+            int jobID = jobKeys.map(jobIDs[i]);
+            if(getJob(jobID) == null || getCrew(jobCrewIDs[i]) == null)
+                continue;
+            if(workshares[i] < 0 || workshares[i] >= workshareValues.length)
+                throw new SaveFormatException("Job assignment of crewman " + jobCrewIDs[i] + " has an unknown workshare.");
+            JobAssignment ja = new JobAssignment(jobID, jobCrewIDs[i]);
+            ja.setWorkshare(workshareValues[workshares[i]]);
+            nextJobAssignments[numJobAssignments++] = ja;
+        }
+        jobAssignments = Arrays.copyOf(nextJobAssignments, numJobAssignments);
+        //#endregion
+
+        //#region housing assignments
+        int[] housingIDs = in.readIntColumn();
+        n = housingIDs.length;
+        int[] housingCrewIDs = in.readIntColumn(n);
+        HousingAssignment[] nextHousingAssignments = new HousingAssignment[n];
+        int numHousingAssignments = 0;
+        for (int i = 0; i < n; i++) {
+            int housingID = housingKeys.map(housingIDs[i]);
+            if(getHousing(housingID) == null || getCrew(housingCrewIDs[i]) == null)
+                continue;
+            nextHousingAssignments[numHousingAssignments++] = new HousingAssignment(housingID, housingCrewIDs[i]);
+        }
+        housingAssignments = Arrays.copyOf(nextHousingAssignments, numHousingAssignments);
+        //#endregion
+
+        //Never yield a key that was in use when the game was saved, nor one the ship was just given.
+        this.crewKeys.setLastKey(lastCrewKey);
+        this.jobKeys.setLastKey(Math.max(lastJobKey, this.jobKeys.getLastKey()));
+        this.housingKeys.setLastKey(Math.max(lastHousingKey, this.housingKeys.getLastKey()));
+
+        reindexAll();
+    }
+
+    private void reindexAll() {
+        reindexCrew();
+        reindexJobs();
+        reindexHousing();
+        jobAssignmentsByJob.rebuild(jobAssignments);
+        jobAssignmentsByCrew.rebuild(jobAssignments);
+        housingAssignmentsByHousing.rebuild(housingAssignments);
+        housingAssignmentsByCrew.rebuild(housingAssignments);
+        crewStateIndex.rebuild(crewmen, jobAssignmentsByCrew, housingAssignmentsByCrew);
+    }
+
+    private static int crewKind(AbstractCrewman c) {
+        if(c instanceof ChildCrewman)
+            return CREW_CHILD;
+        if(c instanceof YouthCrewman)
+            return CREW_YOUTH;
+        if(c instanceof AdultCrewman)
+            return CREW_ADULT;
+        if(c instanceof SeniorCrewman)
+            return CREW_SENIOR;
+        throw new IllegalStateException("Crewman " + c.keyID + " of type " + c.getClass().getName() + " can not be saved.");
+    }
+
+    private static AbleCrewman newCrewman(int kind, int keyID, CrewmanState state, int birthDate, CrewSelfID selfID,
+                                          CrewmanGeneData geneData, SkillSet skillSet, double intelligence, double morale)
+            throws SaveFormatException {
+        switch (kind) {
+            case CREW_CHILD:
+                return new ChildCrewman(keyID, state, birthDate, selfID, geneData, skillSet, intelligence, morale);
+            case CREW_YOUTH:
+                return new YouthCrewman(keyID, state, birthDate, selfID, geneData, skillSet, intelligence, morale);
+            case CREW_ADULT:
+                return new AdultCrewman(keyID, state, birthDate, selfID, geneData, skillSet, intelligence, morale);
+            case CREW_SENIOR:
+                return new SeniorCrewman(keyID, state, birthDate, selfID, geneData, skillSet, intelligence, morale);
+            default:
+                throw new SaveFormatException("Crewman " + keyID + " is of an unknown kind " + kind + ".");
+        }
+    }
+    //#endregion
+
+    //#region autosave journal
+    //Records a change in the autosave journal once the edit making it is committed, see Autosave.
+    private static void journal(CrewTransaction tx, int op, int... keys) {
+        tx.afterCommit(() -> {
+            SaveWriter journal = Autosave.record(op);
+            if(journal == null)
+                return;
+            for (int key : keys)
+                journal.writeInt(key);
+        });
+    }
+
+    /**
+     * Replays a change recorded in the autosave journal.
+     * The change was checked and committed before it was recorded, so it is made without checking again.
+     * Assignments to jobs that no longer exist are dropped, as in {@link #readSave(SaveReader, KeyRemap, KeyRemap)}.
+     * @param op The recorded change, one of the crew operations of {@link Autosave}.
+     * @param in The arguments of the change.
+     * @param jobKeys Recorded job keys to the keys the jobs now have.
+     * @param housingKeys Recorded housing keys to the keys the housing now have.
+     */
+    public void replay(int op, SaveReader in, KeyRemap jobKeys, KeyRemap housingKeys) throws SaveFormatException {
+        switch (op) {
+            case Autosave.CREW_ADD_REPLACE: {
+                int lastCrewKey = in.readInt();
+                AbstractCrewman[] newCrewObjects = readCrewmen(in);
+                edit(tx -> tx.addReplaceCrewmen(newCrewObjects));
+                crewKeys.setLastKey(Math.max(lastCrewKey, crewKeys.getLastKey()));
+                break;
+            }
+            case Autosave.CREW_ASSIGN_JOB: {
+                int jobID = jobKeys.map(in.readInt());
+                int crewID = in.readInt();
+                if(getJob(jobID) == null || getCrew(crewID) == null)
+                    break;
+                edit(tx -> tx.assignJobCrew(jobID, crewID));
+                break;
+            }
+            case Autosave.CREW_UNASSIGN_JOB: {
+                int jobID = jobKeys.map(in.readInt());
+                int crewID = in.readInt();
+                edit(tx -> tx.unassignJobCrew(jobID, crewID));
+                break;
+            }
+            case Autosave.CREW_UNASSIGN_ALL_JOB: {
+                int jobID = jobKeys.map(in.readInt());
+                edit(tx -> tx.unassignAllJobCrew(jobID));
+                break;
+            }
+            case Autosave.CREW_ASSIGN_HOUSING: {
+                int housingID = housingKeys.map(in.readInt());
+                int crewID = in.readInt();
+                edit(tx -> tx.assignHousingCrew(housingID, crewID));
+                break;
+            }
+            case Autosave.CREW_EVICT: {
+                int crewID = in.readInt();
+                edit(tx -> tx.evictCrewman(crewID));
+                break;
+            }
+            case Autosave.CREW_EVICT_ALL: {
+                int housingID = housingKeys.map(in.readInt());
+                edit(tx -> tx.evictAllFromHousing(housingID));
+                break;
+            }
+            default:
+                throw new SaveFormatException("Unknown crew operation " + op + " in the journal.");
+        }
+    }
+    //#endregion
+
     public AbstractCrewman[] getCrewmen() {
         return crewmen;
     }
@@ -9,6 +9,11 @@ public class YouthCrewman extends AbleCrewman {
         super(keyID, CrewmanState.senior, birthDate, selfID, geneData, skillSet, base_intelligence, base_morale);
     }
 
+    //Save-file load constructor, see SpaceCrew#readSave
+    YouthCrewman(int keyID, CrewmanState state, int birthDate, CrewSelfID selfID, CrewmanGeneData geneData, SkillSet skillSet, double base_intelligence, double base_morale) {
+        super(keyID, state, birthDate, selfID, geneData, skillSet, base_intelligence, base_morale);
+    }
+
     protected YouthCrewman(AbleCrewman crewman) {
         super(crewman, CrewmanState.youth);
     }
@@ -0,0 +1,228 @@
+package unicus.spacegame.save;
+
+import unicus.spacegame.SpaceGame;
+import unicus.spacegame.crew.SpaceCrew;
+import unicus.spacegame.spaceship.HomeShip;
+import unicus.spacegame.spaceship.MiningJob;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Incremental autosave: a snapshot of the game, and a journal of the changes made since.
+ *
+ * The SpaceCrew mutators, the HomeShip build and remove paths and mining jobs record every change they make,
+ *  see {@link #record(int)}.
+ * At the end of each month, the changes of that month are appended to the journal as a single record.
+ * Every {@code snapshotInterval} months, the journal is compacted: a new snapshot is saved, and the journal is emptied.
+ * After a crash, {@link #recover(Path)} loads the snapshot, and replays the journal on top of it.
+ *
+ * Replaying a month re-runs its end-of-month cycle, so the cycle must give the same result from the same state.
+ *
+ * Note: changes made directly through {@link SpaceCrew#edit}, and changes made since the last end of month, are not recorded.
+ * Note: ship builds and removals done by the construction job, during the end-of-month cycle,
+ *  are replayed after the month has run, as the construction queue is not saved.
+ */
+public class Autosave {
+    public static final String SNAPSHOT_FILE = "autosave.sav";
+    public static final String JOURNAL_FILE = "autosave.journal";
+
+    //#region operations
+    //Every change in the journal starts with one of these, followed by the arguments of the change.
+
+    /** The end-of-month cycle ran. */
+    public static final int MONTH = 1;
+    /** Last crew key, crewmen. See {@link SpaceCrew#writeCrewmen}. */
+    public static final int CREW_ADD_REPLACE = 2;
+    /** Job key, crew key. */
+    public static final int CREW_ASSIGN_JOB = 3;
+    /** Job key, crew key. */
+    public static final int CREW_UNASSIGN_JOB = 4;
+    /** Job key. */
+    public static final int CREW_UNASSIGN_ALL_JOB = 5;
+    /** Housing key, crew key. */
+    public static final int CREW_ASSIGN_HOUSING = 6;
+    /** Crew key. */
+    public static final int CREW_EVICT = 7;
+    /** Housing key. */
+    public static final int CREW_EVICT_ALL = 8;
+    /** Section, module, section type, job keys, housing keys. Also used for removing a section. */
+    public static final int SHIP_BUILD_SECTION = 9;
+    /** Section, module, module type, job keys, housing keys. Also used for removing a module. */
+    public static final int SHIP_BUILD_MODULE = 10;
+    /** Job key, system seed. See {@link MiningJob#start(long)}. */
+    public static final int MINING_START = 11;
+    /** Job key. */
+    public static final int MINING_STOP = 12;
+    //#endregion
+
+    private static Autosave active;
+
+    private final Path snapshotFile;
+    private final Journal journal;
+    private final int snapshotInterval;
+    //the changes of the current month.
+    private final SaveWriter month = new SaveWriter(1 << 10);
+    private int monthsSinceSnapshot;
+
+    private Autosave(Path directory, int snapshotInterval) throws IOException {
+        this.snapshotFile = directory.resolve(SNAPSHOT_FILE);
+        this.journal = new Journal(directory.resolve(JOURNAL_FILE));
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    /**
+     * Starts autosaving the current game to a directory.
+     * Saves a snapshot right away, replacing any autosave already in the directory.
+     * @param directory The directory of the snapshot and journal. Created if it does not exist.
+     * @param snapshotInterval Number of months between each snapshot. Must be at least 1.
+     */
+    public static void start(Path directory, int snapshotInterval) throws IOException {
+        if (snapshotInterval < 1)
+            throw new IllegalArgumentException("Snapshot interval must be at least 1, was " + snapshotInterval);
+        stop();
+        Files.createDirectories(directory);
+        Autosave autosave = new Autosave(directory, snapshotInterval);
+        try {
+            autosave.snapshot(SpaceGame.getGameMonth());
+        } catch (IOException err) {
+            autosave.journal.close();
+            throw err;
+        }
+        active = autosave;
+    }
+
+    /**
+     * Stops autosaving. Changes since the last end of month are not saved.
+     */
+    public static void stop() throws IOException {
+        if (active == null)
+            return;
+        Autosave autosave = active;
+        active = null;
+        autosave.journal.close();
+    }
+
+    public static boolean isActive() {
+        return active != null;
+    }
+
+    /**
+     * Records a change to the game.
+     * The caller writes the arguments of the change to the returned writer.
+     * A change must only be recorded once it is certain to be made.
+     * @param op The change, one of the operations of this class.
+     * @return The writer of the current month, or null if the game is not autosaved.
+     */
+    public static SaveWriter record(int op) {
+        if (active == null)
+            return null;
+        active.month.writeByte(op);
+        return active.month;
+    }
+
+    /**
+     * Appends the changes of the month to the journal, or saves a snapshot if one is due.
+     * Called at the end of {@link SpaceGame#NextMonth()}.
+     * Failing to autosave does not stop the game, the error is reported and the month's changes are dropped.
+     * @param gameMonth The new game-month, after the end-of-month cycle.
+     */
+    public static void endOfMonth(int gameMonth) {
+        if (active == null)
+            return;
+        try {
+            if (++active.monthsSinceSnapshot >= active.snapshotInterval)
+                active.snapshot(gameMonth);
+            else
+                active.journal.append(gameMonth - 1, active.month);
+        } catch (IOException err) {
+            System.err.println("Autosave failed: " + err);
+        }
+        active.month.clear();
+    }
+
+    /**
+     * Saves a snapshot right away, and empties the journal.
+     * Used when the game is replaced, for example by loading a save-file.
+     * @param gameMonth The current game-month.
+     */
+    public static void compact(int gameMonth) throws IOException {
+        if (active == null)
+            return;
+        active.month.clear();
+        //the journal belongs to the replaced game, it is emptied first so it is never replayed on the new snapshot.
+        active.journal.reset();
+        active.snapshot(gameMonth);
+    }
+
+    //The snapshot is in place before the journal is emptied.
+    // If the game stops in between, recover skips the journal records from before the snapshot.
+    private void snapshot(int gameMonth) throws IOException {
+        SaveGame.save(snapshotFile, gameMonth);
+        journal.reset();
+        monthsSinceSnapshot = 0;
+    }
+
+    /**
+     * Replaces the current game with the autosave in a directory:
+     *  loads the snapshot, then replays the journal.
+     * Must not be called while autosaving, start autosaving again afterwards.
+     * @param directory The directory of the snapshot and journal.
+     * @return The number of journal records replayed.
+     * @throws SaveFormatException If the snapshot or journal is corrupt, or the journal does not follow the snapshot.
+     */
+    public static int recover(Path directory) throws IOException {
+        if (active != null)
+            throw new IllegalStateException("Cannot recover an autosave while autosaving, stop autosaving first.");
+        KeyRemap jobKeys = new KeyRemap();
+        KeyRemap housingKeys = new KeyRemap();
+        SpaceGame.loadGame(directory.resolve(SNAPSHOT_FILE), jobKeys, housingKeys);
+
+        Path journalFile = directory.resolve(JOURNAL_FILE);
+        if (!Files.exists(journalFile))
+            return 0;
+        int replayed = 0;
+        try (Journal journal = new Journal(journalFile)) {
+            for (Journal.Record record : journal.readAll()) {
+                //left over from before the snapshot.
+                if (record.gameMonth < SpaceGame.getGameMonth())
+                    continue;
+                if (record.gameMonth != SpaceGame.getGameMonth())
+                    throw new SaveFormatException("Journal record of month " + record.gameMonth
+                            + " does not follow month " + SpaceGame.getGameMonth() + ".");
+                while (!record.data.isAtEnd())
+                    replay(record.data.readByte(), record.data, jobKeys, housingKeys);
+                replayed++;
+            }
+        }
+        return replayed;
+    }
+
+    private static void replay(int op, SaveReader in, KeyRemap jobKeys, KeyRemap housingKeys) throws SaveFormatException {
+        switch (op) {
+            case MONTH:
+                SpaceGame.NextMonth();
+                break;
+            case CREW_ADD_REPLACE:
+            case CREW_ASSIGN_JOB:
+            case CREW_UNASSIGN_JOB:
+            case CREW_UNASSIGN_ALL_JOB:
+            case CREW_ASSIGN_HOUSING:
+            case CREW_EVICT:
+            case CREW_EVICT_ALL:
+                SpaceCrew.SC().replay(op, in, jobKeys, housingKeys);
+                break;
+            case SHIP_BUILD_SECTION:
+            case SHIP_BUILD_MODULE:
+                HomeShip.replay(op, in, jobKeys, housingKeys);
+                break;
+            case MINING_START:
+            case MINING_STOP:
+                MiningJob.replay(op, in, jobKeys);
+                break;
+            default:
+                throw new SaveFormatException("Unknown journal operation " + op + ".");
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package unicus.spacegame.save;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of records, kept in a memory-mapped file.
+ *
+ * Layout (big-endian):
+ *  header: magic, version
+ *  records: length, game-month, CRC32 of the data, data
+ *  end: a length of 0
+ *
+ * The length of a record is written last, after the rest of the record has been forced to disk.
+ * A record cut short by a crash therefore has a length of 0, and ends the log,
+ *  as does a record whose data does not match its checksum.
+ * The file grows by re-mapping it at double the size.
+ */
+public class Journal implements Closeable {
+    //"USJL", unicus space-game journal
+    private static final int MAGIC = 0x55534A4C;
+    public static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 8;
+    //length, month, checksum
+    private static final int RECORD_HEADER_SIZE = 12;
+    private static final int INITIAL_SIZE = 1 << 20;
+
+    /**
+     * A record read back from the journal.
+     */
+    public static class Record {
+        public final int gameMonth;
+        public final SaveReader data;
+
+        Record(int gameMonth, SaveReader data) {
+            this.gameMonth = gameMonth;
+            this.data = data;
+        }
+    }
+
+    private final FileChannel channel;
+    private MappedByteBuffer map;
+    //position of the end of the log, where the next record goes.
+    private int end;
+
+    /**
+     * Opens a journal file, or creates it if it does not exist.
+     * New records are appended after the records already in the file.
+     * @throws SaveFormatException If the file is not a journal, or is of an unknown version.
+     */
+    public Journal(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long size = Math.max(channel.size(), INITIAL_SIZE);
+            if (size > Integer.MAX_VALUE)
+                throw new SaveFormatException("Journal is too large: " + size + " bytes.");
+            map = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+            int magic = map.getInt(0);
+            if (magic == 0) {
+                map.putInt(0, MAGIC);
+                map.putInt(4, VERSION);
+                map.putInt(HEADER_SIZE, 0);
+                map.force();
+            } else if (magic != MAGIC) {
+                throw new SaveFormatException("Not a journal file.");
+            } else if (map.getInt(4) != VERSION) {
+                throw new SaveFormatException("Journal version " + map.getInt(4) + " is not supported (expected " + VERSION + ").");
+            }
+
+            end = HEADER_SIZE;
+            int next;
+            while ((next = nextRecord(end)) > 0)
+                end = next;
+        } catch (IOException err) {
+            channel.close();
+            throw err;
+        }
+    }
+
+    /**
+     * Checks the record at a position.
+     * @return The position after the record, or -1 if there is no whole record there.
+     */
+    private int nextRecord(int position) {
+        if (position + RECORD_HEADER_SIZE > map.capacity())
+            return -1;
+        int length = map.getInt(position);
+        int data = position + RECORD_HEADER_SIZE;
+        if (length <= 0 || length > map.capacity() - data)
+            return -1;
+        if (map.getInt(position + 8) != checksum(data, length))
+            return -1;
+        return data + length;
+    }
+
+    private int checksum(int position, int length) {
+        ByteBuffer data = map.duplicate();
+        data.limit(position + length).position(position);
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return (int) crc.getValue();
+    }
+
+    private void ensureCapacity(long size) throws IOException {
+        if (size <= map.capacity())
+            return;
+        long capacity = map.capacity();
+        while (capacity < size)
+            capacity *= 2;
+        if (capacity > Integer.MAX_VALUE)
+            throw new IOException("Journal cannot grow beyond " + Integer.MAX_VALUE + " bytes.");
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    /**
+     * Appends a record, and forces it to disk.
+     * Empty records are not written.
+     * @param gameMonth The game-month of the record.
+     * @param record The data of the record.
+     */
+    public void append(int gameMonth, SaveWriter record) throws IOException {
+        int length = record.size();
+        if (length == 0)
+            return;
+        //room for the record, and for the end of the log after it.
+        ensureCapacity((long) end + RECORD_HEADER_SIZE + length + 4);
+        int data = end + RECORD_HEADER_SIZE;
+
+        ByteBuffer target = map.duplicate();
+        target.position(data);
+        record.writeTo(target);
+        map.putInt(data + length, 0);
+        map.putInt(end + 4, gameMonth);
+        map.putInt(end + 8, checksum(data, length));
+        map.force();
+
+        map.putInt(end, length);
+        map.force();
+        end = data + length;
+    }
+
+    /**
+     * Reads every record in the journal, in the order they were appended.
+     * The data of the records is copied, and stays valid after the journal is changed or closed.
+     */
+    public List<Record> readAll() {
+        List<Record> records = new ArrayList<>();
+        ByteBuffer source = map.duplicate();
+        int position = HEADER_SIZE;
+        while (position < end) {
+            int length = map.getInt(position);
+            byte[] data = new byte[length];
+            source.position(position + RECORD_HEADER_SIZE);
+            source.get(data);
+            records.add(new Record(map.getInt(position + 4), new SaveReader(ByteBuffer.wrap(data))));
+            position += RECORD_HEADER_SIZE + length;
+        }
+        return records;
+    }
+
+    /**
+     * Removes every record.
+     * Only the first length is cleared, the old records past it are never read again.
+     */
+    public void reset() {
+        map.putInt(HEADER_SIZE, 0);
+        map.force();
+        end = HEADER_SIZE;
+    }
+
+    /**
+     * @return The number of bytes used by the records.
+     */
+    public int size() {
+        return end - HEADER_SIZE;
+    }
+
+    @Override
+    public void close() throws IOException {
+        map.force();
+        channel.close();
+    }
+}
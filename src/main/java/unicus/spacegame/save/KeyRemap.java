@@ -0,0 +1,50 @@
+package unicus.spacegame.save;
+
+import unicus.spacegame.utilities.IntIndexMap;
+import unicus.spacegame.utilities.IntList;
+
+/**
+ * Maps keys stored in a save-file to the keys the loaded objects were given.
+ *
+ * Loading a save re-builds the ship modules, and the jobs and housing they own get new keys.
+ * Anything stored with the old keys (assignments, journal records) is moved over through a KeyRemap.
+ * Keys not in the map are unchanged.
+ */
+public class KeyRemap {
+    //saved key -> position in newKeys
+    private final IntIndexMap index = new IntIndexMap();
+    private final IntList newKeys = new IntList();
+
+    /**
+     * Adds a saved key, and the key it now has.
+     * If the saved key is already mapped, the new mapping replaces it.
+     */
+    public void add(int savedKey, int newKey) {
+        if (savedKey == newKey)
+            return;
+        int i = index.get(savedKey);
+        if (i >= 0) {
+            newKeys.set(i, newKey);
+            return;
+        }
+        index.put(savedKey, newKeys.size());
+        newKeys.add(newKey);
+    }
+
+    /**
+     * @return The key the object now has, or the saved key if it is unchanged.
+     */
+    public int map(int savedKey) {
+        int i = index.get(savedKey);
+        return i < 0 ? savedKey : newKeys.get(i);
+    }
+
+    public int size() {
+        return newKeys.size();
+    }
+
+    public void clear() {
+        index.clear();
+        newKeys.clear();
+    }
+}
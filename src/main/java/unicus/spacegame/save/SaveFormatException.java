@@ -0,0 +1,12 @@
+package unicus.spacegame.save;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a save-file can not be read: it is not a save-file, it is from an unknown version, or it is corrupt.
+ */
+public class SaveFormatException extends IOException {
+    public SaveFormatException(String message) {
+        super(message);
+    }
+}
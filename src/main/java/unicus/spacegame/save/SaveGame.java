@@ -0,0 +1,132 @@
+package unicus.spacegame.save;
+
+import unicus.spacegame.ShipCargo;
+import unicus.spacegame.crew.SpaceCrew;
+import unicus.spacegame.spaceship.HomeShip;
+import unicus.spacegame.spaceship.MiningJob;
+import unicus.spacegame.structures.starsystem.SystemDeposits;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary save-file of the full game state.
+ *
+ * Layout (all values big-endian, every column is prefixed by its number of values):
+ *  header: magic, version, game-month
+ *  ship: see {@link HomeShip#writeSave(SaveWriter)}
+ *  mining jobs: see {@link MiningJob#writeSave(SaveWriter)}
+ *  crew: see {@link SpaceCrew#writeSave(SaveWriter)}
+ *  cargo: see {@link ShipCargo#writeSave(SaveWriter)}
+ *  mining deposits: see {@link SystemDeposits#writeSave(SaveWriter)}
+ *
+ * The ship and the mining jobs come before the crew, as loading them re-creates the jobs and housing the crew is assigned to.
+ * Saving and loading are single passes over the game's arrays, without reflection.
+ *
+ * Not saved (yet): the construction queue, the refit task chain and the starmap.
+ *
+ * Note: when changing the layout, increase {@link #VERSION}.
+ */
+public class SaveGame {
+    //"USGS", unicus space-game save
+    private static final int MAGIC = 0x55534753;
+    public static final int VERSION = 3;
+
+    /**
+     * Writes the current game to a buffer.
+     * @param gameMonth The current game-month.
+     */
+    public static SaveWriter writeSnapshot(int gameMonth) {
+        SaveWriter out = new SaveWriter();
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(gameMonth);
+        HomeShip.HS().writeSave(out);
+        MiningJob.writeSave(out);
+        SpaceCrew.SC().writeSave(out);
+        ShipCargo.getInstance().writeSave(out);
+        SystemDeposits.writeSave(out);
+        return out;
+    }
+
+    /**
+     * Replaces the current game with one read from a buffer.
+     * If the save is corrupt, the game may be left partly loaded.
+     * @return The game-month of the save.
+     * @throws SaveFormatException If the save is not a save-file, is of an unknown version, or is corrupt.
+     */
+    public static int readSnapshot(SaveReader in) throws SaveFormatException {
+        return readSnapshot(in, new KeyRemap(), new KeyRemap());
+    }
+
+    /**
+     * Replaces the current game with one read from a buffer.
+     * @param jobKeys Filled with the saved job keys, mapped to the keys the jobs now have.
+     * @param housingKeys Filled with the saved housing keys, mapped to the keys the housing now have.
+     * @return The game-month of the save.
+     * @throws SaveFormatException If the save is not a save-file, is of an unknown version, or is corrupt.
+     */
+    public static int readSnapshot(SaveReader in, KeyRemap jobKeys, KeyRemap housingKeys) throws SaveFormatException {
+        if (in.readInt() != MAGIC)
+            throw new SaveFormatException("Not a save-file.");
+        int version = in.readInt();
+        if (version != VERSION)
+            throw new SaveFormatException("Save-file version " + version + " is not supported (expected " + VERSION + ").");
+        int gameMonth = in.readInt();
+
+        SpaceCrew.SC().clearForLoad();
+        HomeShip.readSave(in, jobKeys, housingKeys);
+        MiningJob.readSave(in, jobKeys);
+        SpaceCrew.SC().readSave(in, jobKeys, housingKeys);
+        ShipCargo.getInstance().readSave(in);
+        SystemDeposits.readSave(in);
+        if (!in.isAtEnd())
+            throw new SaveFormatException("Save-file has data after the end of the game state.");
+        return gameMonth;
+    }
+
+    /**
+     * Writes the current game to a file.
+     * The save is first written next to the file, then moved in place, so a failed save never leaves half a file.
+     * @param file The file to write.
+     * @param gameMonth The current game-month.
+     */
+    public static void save(Path file, int gameMonth) throws IOException {
+        SaveWriter out = writeSnapshot(gameMonth);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            out.writeTo(channel);
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Replaces the current game with one read from a file.
+     * @param file The file to read.
+     * @return The game-month of the save.
+     */
+    public static int load(Path file) throws IOException {
+        return load(file, new KeyRemap(), new KeyRemap());
+    }
+
+    /**
+     * Replaces the current game with one read from a file.
+     * @param file The file to read.
+     * @param jobKeys Filled with the saved job keys, mapped to the keys the jobs now have.
+     * @param housingKeys Filled with the saved housing keys, mapped to the keys the housing now have.
+     * @return The game-month of the save.
+     */
+    public static int load(Path file, KeyRemap jobKeys, KeyRemap housingKeys) throws IOException {
+        SaveReader in;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            in = SaveReader.readFrom(channel);
+        }
+        return readSnapshot(in, jobKeys, housingKeys);
+    }
+}
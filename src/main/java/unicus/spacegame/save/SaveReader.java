@@ -0,0 +1,142 @@
+package unicus.spacegame.save;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads values and columns written by {@link SaveWriter}, in the same order they were written.
+ *
+ * A save-file that ends early, or has a column length that makes no sense,
+ * throws a {@link SaveFormatException} rather than an unchecked buffer error.
+ */
+public class SaveReader {
+    private final ByteBuffer buffer;
+
+    public SaveReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Reads the rest of a file channel, from the channel's current position.
+     */
+    public static SaveReader readFrom(FileChannel channel) throws IOException {
+        long size = channel.size() - channel.position();
+        if (size > Integer.MAX_VALUE)
+            throw new SaveFormatException("Save-file is too large: " + size + " bytes.");
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0)
+                throw new SaveFormatException("Save-file ended early.");
+        }
+        buffer.flip();
+        return new SaveReader(buffer);
+    }
+
+    private void require(long bytes) throws SaveFormatException {
+        if (buffer.remaining() < bytes)
+            throw new SaveFormatException("Save-file ended early, or is corrupt (needed " + bytes
+                    + " bytes at position " + buffer.position() + ", " + buffer.remaining() + " remaining).");
+    }
+
+    //Reads a column length, and checks there is room for that many values.
+    private int readLength(int bytesPerValue) throws SaveFormatException {
+        int length = readInt();
+        if (length < 0)
+            throw new SaveFormatException("Negative column length " + length + " at position " + (buffer.position() - 4));
+        require((long) length * bytesPerValue);
+        return length;
+    }
+
+    //#region single values
+    public int readByte() throws SaveFormatException {
+        require(1);
+        return buffer.get();
+    }
+    public boolean readBoolean() throws SaveFormatException {
+        return readByte() != 0;
+    }
+    public int readInt() throws SaveFormatException {
+        require(4);
+        return buffer.getInt();
+    }
+    public long readLong() throws SaveFormatException {
+        require(8);
+        return buffer.getLong();
+    }
+    public double readDouble() throws SaveFormatException {
+        require(8);
+        return buffer.getDouble();
+    }
+    public String readString() throws SaveFormatException {
+        byte[] bytes = new byte[readLength(1)];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    //#endregion
+
+    //#region columns
+    public byte[] readByteColumn() throws SaveFormatException {
+        byte[] column = new byte[readLength(1)];
+        buffer.get(column);
+        return column;
+    }
+    public int[] readIntColumn() throws SaveFormatException {
+        int[] column = new int[readLength(4)];
+        buffer.asIntBuffer().get(column);
+        buffer.position(buffer.position() + column.length * 4);
+        return column;
+    }
+    public double[] readDoubleColumn() throws SaveFormatException {
+        double[] column = new double[readLength(8)];
+        buffer.asDoubleBuffer().get(column);
+        buffer.position(buffer.position() + column.length * 8);
+        return column;
+    }
+    public String[] readStringColumn() throws SaveFormatException {
+        //every string is at least its 4 byte length.
+        String[] column = new String[readLength(4)];
+        for (int i = 0; i < column.length; i++)
+            column[i] = readString();
+        return column;
+    }
+    //#endregion
+
+    /**
+     * Reads a column, and checks it has the expected length.
+     * Used for columns that must line up with a column read earlier.
+     */
+    public int[] readIntColumn(int expectedLength) throws SaveFormatException {
+        int[] column = readIntColumn();
+        checkLength(column.length, expectedLength);
+        return column;
+    }
+    public byte[] readByteColumn(int expectedLength) throws SaveFormatException {
+        byte[] column = readByteColumn();
+        checkLength(column.length, expectedLength);
+        return column;
+    }
+    public double[] readDoubleColumn(int expectedLength) throws SaveFormatException {
+        double[] column = readDoubleColumn();
+        checkLength(column.length, expectedLength);
+        return column;
+    }
+    public String[] readStringColumn(int expectedLength) throws SaveFormatException {
+        String[] column = readStringColumn();
+        checkLength(column.length, expectedLength);
+        return column;
+    }
+
+    private void checkLength(int length, int expectedLength) throws SaveFormatException {
+        if (length != expectedLength)
+            throw new SaveFormatException("Column has " + length + " values, expected " + expectedLength + ".");
+    }
+
+    /**
+     * @return Whatever everything in the buffer has been read.
+     */
+    public boolean isAtEnd() {
+        return !buffer.hasRemaining();
+    }
+}
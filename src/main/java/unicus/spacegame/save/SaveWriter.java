@@ -0,0 +1,130 @@
+package unicus.spacegame.save;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes primitive values and columns into a growable buffer, to be written to a save-file in one go.
+ *
+ * A column is a length-prefixed array of one primitive type, one value per object.
+ * Writing the values of every object as columns, rather than one object at a time,
+ * keeps save and load a straight loop over arrays.
+ *
+ * Every write has a matching read in {@link SaveReader}.
+ */
+public class SaveWriter {
+    private ByteBuffer buffer;
+
+    public SaveWriter() {
+        this(1 << 16);
+    }
+    public SaveWriter(int initialCapacity) {
+        buffer = ByteBuffer.allocate(Math.max(initialCapacity, 16));
+    }
+
+    private void ensureRemaining(int bytes) {
+        if (buffer.remaining() >= bytes)
+            return;
+        int capacity = buffer.capacity();
+        while (capacity - buffer.position() < bytes)
+            capacity *= 2;
+        ByteBuffer next = ByteBuffer.allocate(capacity);
+        buffer.flip();
+        next.put(buffer);
+        buffer = next;
+    }
+
+    //#region single values
+    public void writeByte(int value) {
+        ensureRemaining(1);
+        buffer.put((byte) value);
+    }
+    public void writeBoolean(boolean value) {
+        writeByte(value ? 1 : 0);
+    }
+    public void writeInt(int value) {
+        ensureRemaining(4);
+        buffer.putInt(value);
+    }
+    public void writeLong(long value) {
+        ensureRemaining(8);
+        buffer.putLong(value);
+    }
+    public void writeDouble(double value) {
+        ensureRemaining(8);
+        buffer.putDouble(value);
+    }
+    public void writeString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeInt(bytes.length);
+        ensureRemaining(bytes.length);
+        buffer.put(bytes);
+    }
+    //#endregion
+
+    //#region columns
+    public void writeByteColumn(byte[] column) {
+        writeInt(column.length);
+        ensureRemaining(column.length);
+        buffer.put(column);
+    }
+    public void writeIntColumn(int[] column) {
+        writeIntColumn(column, column.length);
+    }
+    /**
+     * Writes the first {@code length} values of an array.
+     */
+    public void writeIntColumn(int[] column, int length) {
+        writeInt(length);
+        ensureRemaining(length * 4);
+        buffer.asIntBuffer().put(column, 0, length);
+        buffer.position(buffer.position() + length * 4);
+    }
+    public void writeDoubleColumn(double[] column) {
+        writeInt(column.length);
+        ensureRemaining(column.length * 8);
+        buffer.asDoubleBuffer().put(column);
+        buffer.position(buffer.position() + column.length * 8);
+    }
+    public void writeStringColumn(String[] column) {
+        writeInt(column.length);
+        for (String s : column)
+            writeString(s);
+    }
+    //#endregion
+
+    /**
+     * @return The number of bytes written so far.
+     */
+    public int size() {
+        return buffer.position();
+    }
+
+    /**
+     * Discards everything written, keeping the buffer for reuse.
+     */
+    public void clear() {
+        buffer.clear();
+    }
+
+    /**
+     * Writes everything to a buffer, from the buffer's current position.
+     */
+    public void writeTo(ByteBuffer target) {
+        ByteBuffer out = buffer.duplicate();
+        out.flip();
+        target.put(out);
+    }
+
+    /**
+     * Writes everything to a file channel, from the channel's current position.
+     */
+    public void writeTo(FileChannel channel) throws IOException {
+        ByteBuffer out = buffer.duplicate();
+        out.flip();
+        while (out.hasRemaining())
+            channel.write(out);
+    }
+}
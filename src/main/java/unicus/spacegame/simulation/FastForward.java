@@ -0,0 +1,159 @@
+package unicus.spacegame.simulation;
+
+import unicus.spacegame.SpaceGame;
+import unicus.spacegame.crew.CrewCursor;
+import unicus.spacegame.crew.SpaceCrew;
+import unicus.spacegame.save.SaveGame;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Runs the end-of-month cycle many times, as fast as possible, without the game engine or UI.
+ * Used for balancing scenarios over a long generational voyage.
+ *
+ * At each checkpoint the game can be saved, so the state at that month can be loaded and inspected,
+ *  see {@link SaveGame}.
+ *
+ * Usage (from the command line):
+ *      FastForward [months] [checkpoint interval] [serial|parallel] [snapshot directory]
+ * Example, simulating 500 years with a checkpoint every 10 years, saved to the snapshots directory:
+ *      FastForward 6000 120 parallel snapshots
+ */
+public class FastForward {
+
+    /**
+     * Called every {@code checkpointInterval} months, and after the last month.
+     */
+    public interface CheckpointListener {
+        void onCheckpoint(Checkpoint checkpoint);
+    }
+
+    /**
+     * A summary of the game at a checkpoint, and where the game was saved at that month.
+     */
+    public static class Checkpoint {
+        /** The game-month after the checkpoint's month has run. */
+        public final int gameMonth;
+        /** Months run since the fast-forward started. */
+        public final int monthsRun;
+        public final long elapsedNanos;
+        public final int numCrew;
+        public final int numUnemployed;
+        public final int numHomeless;
+        /** The save-file written at the checkpoint, or null if snapshots are not written. */
+        public final Path snapshot;
+
+        Checkpoint(int gameMonth, int monthsRun, long elapsedNanos, int numCrew, int numUnemployed, int numHomeless, Path snapshot) {
+            this.gameMonth = gameMonth;
+            this.monthsRun = monthsRun;
+            this.elapsedNanos = elapsedNanos;
+            this.numCrew = numCrew;
+            this.numUnemployed = numUnemployed;
+            this.numHomeless = numHomeless;
+            this.snapshot = snapshot;
+        }
+
+        public double getMonthsPerSecond() {
+            return monthsPerSecond(monthsRun, elapsedNanos);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s (month %d): %d crew, %d unemployed, %d homeless. %.1f months/s%s",
+                    SpaceGame.getDate(), gameMonth, numCrew, numUnemployed, numHomeless, getMonthsPerSecond(),
+                    snapshot == null ? "" : ". Saved to " + snapshot);
+        }
+    }
+
+    private final int checkpointInterval;
+    private final CheckpointListener listener;
+    private final Path snapshotDirectory;
+    //reused by every checkpoint
+    private final CrewCursor cursor = new CrewCursor();
+
+    /**
+     * @param checkpointInterval Number of months between each checkpoint. 0 or less for only the final checkpoint.
+     * @param listener Receives the checkpoints.
+     */
+    public FastForward(int checkpointInterval, CheckpointListener listener) {
+        this(checkpointInterval, null, listener);
+    }
+
+    /**
+     * @param checkpointInterval Number of months between each checkpoint. 0 or less for only the final checkpoint.
+     * @param snapshotDirectory Where the game is saved at each checkpoint, as month-[game-month].save.
+     *                          Null to not save.
+     * @param listener Receives the checkpoints.
+     */
+    public FastForward(int checkpointInterval, Path snapshotDirectory, CheckpointListener listener) {
+        this.checkpointInterval = checkpointInterval;
+        this.snapshotDirectory = snapshotDirectory;
+        this.listener = listener;
+    }
+
+    /**
+     * Runs the end-of-month cycle a number of times on the current game.
+     * The game must be set up first, for example by {@link SpaceGame#startHeadless()}.
+     * @param months Number of months to run.
+     * @return The last checkpoint.
+     * @throws IOException If a snapshot could not be written.
+     */
+    public Checkpoint run(int months) throws IOException {
+        if (months <= 0)
+            throw new IllegalArgumentException("Number of months must be above 0, was " + months);
+        if (snapshotDirectory != null)
+            Files.createDirectories(snapshotDirectory);
+        long start = System.nanoTime();
+        Checkpoint last = null;
+        for (int m = 1; m <= months; m++) {
+            SpaceGame.NextMonth();
+            if (m == months || (checkpointInterval > 0 && m % checkpointInterval == 0)) {
+                //the time taken by saving is not counted in the months per second.
+                long elapsed = System.nanoTime() - start;
+                Path snapshot = null;
+                if (snapshotDirectory != null) {
+                    long saveStart = System.nanoTime();
+                    snapshot = snapshotDirectory.resolve("month-" + SpaceGame.getGameMonth() + ".save");
+                    SpaceGame.saveGame(snapshot);
+                    start += System.nanoTime() - saveStart;
+                }
+                last = makeCheckpoint(m, elapsed, snapshot);
+                listener.onCheckpoint(last);
+            }
+        }
+        return last;
+    }
+
+    private Checkpoint makeCheckpoint(int monthsRun, long elapsedNanos, Path snapshot) {
+        SpaceCrew crew = SpaceCrew.SC();
+        return new Checkpoint(SpaceGame.getGameMonth(), monthsRun, elapsedNanos,
+                crew.getCrewmen().length,
+                crew.queryUnemployed(cursor).count(),
+                crew.queryHomeless(cursor).count(),
+                snapshot);
+    }
+
+    static double monthsPerSecond(int months, long nanos) {
+        return nanos <= 0 ? 0 : months * 1e9 / nanos;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int months = args.length > 0 ? Integer.parseInt(args[0]) : 12 * 500;
+        int interval = args.length > 1 ? Integer.parseInt(args[1]) : 120;
+        boolean parallel = args.length > 2 && args[2].equalsIgnoreCase("parallel");
+        Path snapshots = args.length > 3 ? Paths.get(args[3]) : null;
+
+        SpaceGame.startHeadless();
+        SpaceGame.setParallelSimulation(parallel);
+
+        FastForward fastForward = new FastForward(interval, snapshots, checkpoint -> System.out.println(checkpoint));
+        Checkpoint result = fastForward.run(months);
+        System.out.printf("Ran %d months in %.3f s (%.1f months/s, %s)%n",
+                result.monthsRun, result.elapsedNanos / 1e9, result.getMonthsPerSecond(),
+                parallel ? "parallel" : "serial");
+        System.exit(0);
+    }
+}
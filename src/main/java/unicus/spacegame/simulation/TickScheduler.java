@@ -0,0 +1,146 @@
+package unicus.spacegame.simulation;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Runs the compute stages of the end-of-month cycle, either serially or on a ForkJoin pool.
+ *
+ * Each phase of the end-of-month cycle (see {@link unicus.spacegame.SpaceGame#NextMonth()}) is split in two:
+ *  1: A compute stage, run through {@link #forEach(Object[], Consumer)}.
+ *      Every object reads the game state, and writes only to its own fields.
+ *      As no object writes anything another object reads, the objects may be computed in any order, or at once.
+ *  2: A commit stage, run on the calling thread in a fixed order.
+ *      This is where shared state is changed, events are triggered and results are summed up.
+ *
+ * As each object's result only depends on the state before the compute stage,
+ * the parallel scheduler gives exactly the same results as the serial scheduler.
+ */
+public class TickScheduler {
+    /** Runs every compute stage on the calling thread. */
+    public static final TickScheduler SERIAL = new TickScheduler(null, Integer.MAX_VALUE);
+
+    //Smallest number of objects worth sending to another thread.
+    private static final int DEFAULT_GRAIN = 64;
+
+    private final ForkJoinPool pool;
+    private final int grain;
+
+    private TickScheduler(ForkJoinPool pool, int grain) {
+        this.pool = pool;
+        this.grain = grain;
+    }
+
+    /**
+     * Creates a scheduler that runs compute stages on a ForkJoin pool.
+     * @param parallelism The number of threads to use.
+     */
+    public static TickScheduler parallel(int parallelism) {
+        return new TickScheduler(new ForkJoinPool(parallelism), DEFAULT_GRAIN);
+    }
+
+    /**
+     * Creates a scheduler that runs compute stages on the common ForkJoin pool.
+     */
+    public static TickScheduler parallel() {
+        return new TickScheduler(ForkJoinPool.commonPool(), DEFAULT_GRAIN);
+    }
+
+    public boolean isParallel() {
+        return pool != null;
+    }
+
+    /**
+     * Runs a compute stage over all objects, and returns once all are done.
+     * The serial scheduler visits the objects from last to first, the same as the end-of-month loops always have.
+     * @param items The objects to compute.
+     * @param compute The compute step. Must only write to the object it is given.
+     */
+    public <T> void forEach(T[] items, Consumer<? super T> compute) {
+        if (pool == null || items.length <= grain) {
+            for (int i = items.length - 1; i >= 0; i--)
+                compute.accept(items[i]);
+            return;
+        }
+        pool.invoke(new ComputeRange<>(items, compute, 0, items.length, grain));
+    }
+
+    /**
+     * Runs a compute stage over the indexes 0 to count - 1, and returns once all are done.
+     * Used where the objects are made by the compute stage, such as the sectors of a generated starmap.
+     * @param count The number of indexes.
+     * @param compute The compute step. Must only write to what belongs to the index it is given.
+     */
+    public void forEachIndex(int count, IntConsumer compute) {
+        if (pool == null || count <= grain) {
+            for (int i = count - 1; i >= 0; i--)
+                compute.accept(i);
+            return;
+        }
+        pool.invoke(new ComputeIndexRange(compute, 0, count, grain));
+    }
+
+    /**
+     * Stops the threads of the pool, if this scheduler made its own pool.
+     */
+    public void shutdown() {
+        if (pool != null && pool != ForkJoinPool.commonPool())
+            pool.shutdown();
+    }
+
+    private static class ComputeRange<T> extends RecursiveAction {
+        private final T[] items;
+        private final Consumer<? super T> compute;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        ComputeRange(T[] items, Consumer<? super T> compute, int from, int to, int grain) {
+            this.items = items;
+            this.compute = compute;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                for (int i = to - 1; i >= from; i--)
+                    compute.accept(items[i]);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ComputeRange<>(items, compute, from, mid, grain),
+                    new ComputeRange<>(items, compute, mid, to, grain));
+        }
+    }
+
+    private static class ComputeIndexRange extends RecursiveAction {
+        private final IntConsumer compute;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        ComputeIndexRange(IntConsumer compute, int from, int to, int grain) {
+            this.compute = compute;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                for (int i = to - 1; i >= from; i--)
+                    compute.accept(i);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ComputeIndexRange(compute, from, mid, grain),
+                    new ComputeIndexRange(compute, mid, to, grain));
+        }
+    }
+}
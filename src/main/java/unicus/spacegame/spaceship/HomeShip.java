@@ -3,8 +3,14 @@ package unicus.spacegame.spaceship;
 import unicus.spacegame.CargoCollection;
 import unicus.spacegame.CargoContainer;
 import unicus.spacegame.crew.*;
+import unicus.spacegame.save.Autosave;
+import unicus.spacegame.save.KeyRemap;
+import unicus.spacegame.save.SaveFormatException;
+import unicus.spacegame.save.SaveReader;
+import unicus.spacegame.save.SaveWriter;
 import unicus.spacegame.spaceship.cunstruction.Construction;
 import unicus.spacegame.ui.DebugConsole;
+import unicus.spacegame.utilities.IntList;
 
 import java.util.*;
 
@@ -96,6 +102,7 @@ public class HomeShip {
 
         modules = new Hashtable<>();
         HS = this;
+        ShipLoc.setHomeShip(this);
 
         HeadSection head = new HeadSection();
         MainBridge bridge = new MainBridge();
@@ -126,7 +133,8 @@ public class HomeShip {
         }
         taskChain = new ArrayList<>();
 
-        DebugConsole.getInstance().addShipCommands();
+        if(DebugConsole.isEnabled())
+            DebugConsole.getInstance().addShipCommands();
     }
 
     /**
@@ -327,6 +335,7 @@ public class HomeShip {
         }
 		pay(typeToBuild.getBuildCost());
         HS.forceBuildSection(loc.s, typeToBuild);
+        journalBuild(Autosave.SHIP_BUILD_SECTION, loc, typeToBuild.ordinal());
         return true;
 	}
 	static public boolean canBuildModule(ShipLoc loc, ModuleType typeToBuild, StringBuffer message) {
@@ -359,6 +368,7 @@ public class HomeShip {
         }
         pay(typeToBuild.getBuildCost());
         HS.forceBuildModule(loc, typeToBuild);
+        journalBuild(Autosave.SHIP_BUILD_MODULE, loc, typeToBuild.ordinal());
         return true;
     }
 
@@ -415,6 +425,7 @@ public class HomeShip {
             return false;
         }
         HS.forceBuildModule(loc, ModuleType.Empty);
+        journalBuild(Autosave.SHIP_BUILD_MODULE, loc, ModuleType.Empty.ordinal());
         return true;
     }
 
@@ -486,6 +497,7 @@ public class HomeShip {
             return false;
         }
         HS.forceBuildSection(loc.s, SectionType.None);
+        journalBuild(Autosave.SHIP_BUILD_SECTION, loc, SectionType.None.ordinal());
         return true;
     }
 
@@ -528,6 +540,11 @@ public class HomeShip {
         taskChain = new ArrayList<>();
     }
 
+    /**
+     * End of month for the ship's modules.
+     * The work of a module is done by its jobs and housing, which have their own compute stage in SpaceCrew,
+     *  so the modules are only committed here, one at a time.
+     */
     public void endOfMonth() {
         monthAmenities = 0.0;
 
@@ -537,6 +554,172 @@ public class HomeShip {
     }
 
 
+    //#region save and load
+    /**
+     * Writes the ship section of a save-file.
+     * Stores the type of every section and module in the middle of the ship,
+     *  and the keys of the jobs and housing at every location.
+     * The keys are needed on load, as re-building the modules gives their jobs and housing new keys.
+     *
+     * Note: the refit task chain and construction queue are not saved.
+     * @param out The save to write to.
+     */
+    public void writeSave(SaveWriter out) {
+        out.writeInt(middleLength);
+        byte[] sectionTypes = new byte[middleLength];
+        byte[] moduleTypes = new byte[middleLength * MODULES_PER_SECTION];
+        for (int s = 1; s <= middleLength; s++) {
+            AbstractShipSection section = (AbstractShipSection) modules.get(ShipLoc.get(s, 0));
+            sectionTypes[s - 1] = (byte) section.getSectionType().ordinal();
+            for (int m = 1; m <= MODULES_PER_SECTION; m++)
+                moduleTypes[(s - 1) * MODULES_PER_SECTION + m - 1] = (byte) modules.get(ShipLoc.get(s, m)).getModuleType().ordinal();
+        }
+        out.writeByteColumn(sectionTypes);
+        out.writeByteColumn(moduleTypes);
+
+        int numLocations = fullLength * MAX_MODULE_OBJECTS;
+        int[] numJobs = new int[numLocations];
+        int[] numHousings = new int[numLocations];
+        IntList jobKeys = new IntList();
+        IntList housingKeys = new IntList();
+        for (int l = 0; l < numLocations; l++) {
+            AbstractShipModule module = modules.get(ShipLoc.get(l / MAX_MODULE_OBJECTS, l % MAX_MODULE_OBJECTS));
+            int[] jobs = getJobKeys(module);
+            int[] housings = getHousingKeys(module);
+            numJobs[l] = jobs.length;
+            numHousings[l] = housings.length;
+            jobKeys.addAll(jobs);
+            housingKeys.addAll(housings);
+        }
+        out.writeIntColumn(numJobs);
+        out.writeIntColumn(jobKeys.toArray());
+        out.writeIntColumn(numHousings);
+        out.writeIntColumn(housingKeys.toArray());
+    }
+
+    /**
+     * Reads the ship section of a save-file, and builds a new HomeShip from it.
+     * The new modules create their jobs and housing in SpaceCrew, so {@link SpaceCrew#clearForLoad()} must be called first.
+     *
+     * @param in The save to read from.
+     * @param jobKeys Filled with saved job keys to new job keys.
+     * @param housingKeys Filled with saved housing keys to new housing keys.
+     * @return The new HomeShip, also set as {@link #HS()}.
+     * @throws SaveFormatException If the ship section is corrupt.
+     */
+    public static HomeShip readSave(SaveReader in, KeyRemap jobKeys, KeyRemap housingKeys) throws SaveFormatException {
+        int middleLength = in.readInt();
+        if (middleLength < 2 || middleLength > MAX_SECTIONS - 2)
+            throw new SaveFormatException("Invalid ship length " + middleLength + ".");
+        byte[] sectionTypes = in.readByteColumn(middleLength);
+        byte[] moduleTypes = in.readByteColumn(middleLength * MODULES_PER_SECTION);
+        int numLocations = (middleLength + 2) * MAX_MODULE_OBJECTS;
+        int[] numJobs = in.readIntColumn(numLocations);
+        int[] savedJobKeys = in.readIntColumn();
+        int[] numHousings = in.readIntColumn(numLocations);
+        int[] savedHousingKeys = in.readIntColumn();
+
+        SectionType[] sectionValues = SectionType.values();
+        ModuleType[] moduleValues = ModuleType.values();
+        HomeShip ship = new HomeShip(middleLength);
+        for (int s = 1; s <= middleLength; s++) {
+            int sectionType = sectionTypes[s - 1];
+            if (sectionType < 0 || sectionType >= sectionValues.length)
+                throw new SaveFormatException("Section " + s + " is of an unknown type.");
+            //new sections are already stripped frames.
+            if (sectionValues[sectionType] != SectionType.None)
+                ship.forceBuildSection(s, sectionValues[sectionType]);
+            for (int m = 1; m <= MODULES_PER_SECTION; m++) {
+                int moduleType = moduleTypes[(s - 1) * MODULES_PER_SECTION + m - 1];
+                if (moduleType < 0 || moduleType >= moduleValues.length)
+                    throw new SaveFormatException("Module " + ShipLoc.get(s, m) + " is of an unknown type.");
+                if (moduleValues[moduleType] != ModuleType.Empty)
+                    ship.forceBuildModule(ShipLoc.get(s, m), moduleValues[moduleType]);
+            }
+        }
+
+        //The modules are built in the same places, so their jobs and housing line up with the saved keys.
+        int j = 0, h = 0;
+        for (int l = 0; l < numLocations; l++) {
+            AbstractShipModule module = ship.modules.get(ShipLoc.get(l / MAX_MODULE_OBJECTS, l % MAX_MODULE_OBJECTS));
+            j = pairKeys(savedJobKeys, j, numJobs[l], getJobKeys(module), jobKeys);
+            h = pairKeys(savedHousingKeys, h, numHousings[l], getHousingKeys(module), housingKeys);
+        }
+        return ship;
+    }
+
+    /**
+     * Pairs {@code count} saved keys, from {@code from}, with the new keys of a module.
+     * @return The position of the next saved keys.
+     */
+    private static int pairKeys(int[] savedKeys, int from, int count, int[] newKeys, KeyRemap remap) throws SaveFormatException {
+        if (count < 0 || from + count > savedKeys.length)
+            throw new SaveFormatException("The job or housing keys of the ship are corrupt.");
+        for (int k = 0; k < count && k < newKeys.length; k++)
+            remap.add(savedKeys[from + k], newKeys[k]);
+        return from + count;
+    }
+
+    /**
+     * Records a finished build or removal in the autosave journal, see {@link Autosave}.
+     * The keys of the jobs and housing at the location are recorded,
+     *  so later changes to them can be replayed after they are re-built with new keys.
+     */
+    private static void journalBuild(int op, ShipLoc loc, int type) {
+        SaveWriter journal = Autosave.record(op);
+        if (journal == null)
+            return;
+        AbstractShipModule module = HS.modules.get(loc);
+        journal.writeInt(loc.s);
+        journal.writeInt(loc.m);
+        journal.writeByte(type);
+        journal.writeIntColumn(getJobKeys(module));
+        journal.writeIntColumn(getHousingKeys(module));
+    }
+
+    /**
+     * Replays a build or removal recorded in the autosave journal.
+     * The change was checked and paid for when it was recorded, so it is forced.
+     * @param op {@link Autosave#SHIP_BUILD_SECTION} or {@link Autosave#SHIP_BUILD_MODULE}.
+     * @param in The arguments of the change.
+     * @param jobKeys Filled with the recorded job keys, mapped to the keys of the re-built jobs.
+     * @param housingKeys Filled with the recorded housing keys, mapped to the keys of the re-built housing.
+     */
+    public static void replay(int op, SaveReader in, KeyRemap jobKeys, KeyRemap housingKeys) throws SaveFormatException {
+        int s = in.readInt();
+        int m = in.readInt();
+        int type = in.readByte();
+        int[] savedJobKeys = in.readIntColumn();
+        int[] savedHousingKeys = in.readIntColumn();
+        if (s < 1 || s > HS.middleLength || m < 0 || m > MODULES_PER_SECTION)
+            throw new SaveFormatException("Journal has a build outside the ship, at " + s + ", " + m + ".");
+        ShipLoc loc = ShipLoc.get(s, m);
+
+        if (op == Autosave.SHIP_BUILD_SECTION) {
+            if (type < 0 || type >= SectionType.values().length)
+                throw new SaveFormatException("Journal has a section of an unknown type " + type + ".");
+            HS.forceBuildSection(s, SectionType.values()[type]);
+        } else if (op == Autosave.SHIP_BUILD_MODULE) {
+            if (type < 0 || type >= ModuleType.values().length)
+                throw new SaveFormatException("Journal has a module of an unknown type " + type + ".");
+            HS.forceBuildModule(loc, ModuleType.values()[type]);
+        } else {
+            throw new SaveFormatException("Unknown ship operation " + op + " in the journal.");
+        }
+
+        AbstractShipModule module = HS.modules.get(loc);
+        pairKeys(savedJobKeys, 0, savedJobKeys.length, getJobKeys(module), jobKeys);
+        pairKeys(savedHousingKeys, 0, savedHousingKeys.length, getHousingKeys(module), housingKeys);
+    }
+
+    private static int[] getJobKeys(AbstractShipModule module) {
+        return module instanceof Workplace ? ((Workplace) module).getAllJobs() : new int[0];
+    }
+    private static int[] getHousingKeys(AbstractShipModule module) {
+        return module instanceof HousingPlace ? ((HousingPlace) module).getHousings() : new int[0];
+    }
+    //#endregion
+
     //TODO: move RefitTaskChain and RefitTask out of the class
     /**
      * The refit-task is a task that may show up for the construction job.
@@ -0,0 +1,190 @@
+package unicus.spacegame.spaceship;
+
+import unicus.spacegame.ShipCargo;
+import unicus.spacegame.crew.AbleCrewman;
+import unicus.spacegame.crew.AbstractJob;
+import unicus.spacegame.crew.SkillType;
+import unicus.spacegame.crew.SpaceCrew;
+import unicus.spacegame.save.Autosave;
+import unicus.spacegame.save.KeyRemap;
+import unicus.spacegame.save.SaveFormatException;
+import unicus.spacegame.save.SaveReader;
+import unicus.spacegame.save.SaveWriter;
+import unicus.spacegame.structures.starsystem.Resource;
+import unicus.spacegame.structures.starsystem.SystemDeposits;
+
+import java.util.ArrayList;
+
+/**
+ * A temporary job mining the junk fields and planets of the star system the ship is at.
+ * The work done each month is mined from the system's deposits (see {@link SystemDeposits}),
+ *  and the resources are stored in {@link ShipCargo}. What does not fit is left behind.
+ *
+ * Create it with {@link #start(long)}, and remove it with {@link #stop()} when the ship leaves.
+ * The deposits are those of the system the player is shown, see {@link SystemDeposits#get(long)}.
+ *
+ * Mining jobs do not belong to a ship module, so they are saved and journaled here,
+ *  see {@link #writeSave(SaveWriter)} and {@link #replay(int, SaveReader, KeyRemap)}.
+ */
+public class MiningJob extends AbstractJob {
+    public static final int WORKER_SLOTS = 6;
+    public static final double MONTHLY_WORKLOAD = 3000;
+
+    private final long systemSeed;
+    private final int[] monthMined = new int[Resource.values().length];
+    private final int[] monthStored = new int[Resource.values().length];
+
+    private MiningJob(int keyID, long systemSeed) {
+        super(keyID, WORKER_SLOTS);
+        this.systemSeed = systemSeed;
+    }
+
+    //Creates a job with a new key and adds it to the crew's jobs.
+    private static MiningJob add(long systemSeed) {
+        MiningJob job = new MiningJob(SpaceCrew.SC().getJobKeys().yieldKey(), systemSeed);
+        SpaceCrew.SC().addJobs(job);
+        return job;
+    }
+
+    /**
+     * Creates a mining job for a system and adds it to the crew's jobs.
+     * @param systemSeed The seed of the system's star.
+     */
+    public static MiningJob start(long systemSeed) {
+        MiningJob job = add(systemSeed);
+        SaveWriter journal = Autosave.record(Autosave.MINING_START);
+        if (journal != null) {
+            journal.writeInt(job.getKeyID());
+            journal.writeLong(systemSeed);
+        }
+        return job;
+    }
+
+    /**
+     * Removes the job from the crew's jobs, unassigning its workers.
+     */
+    public void stop() {
+        SpaceCrew.SC().removeJobs(getKeyID());
+        SaveWriter journal = Autosave.record(Autosave.MINING_STOP);
+        if (journal != null)
+            journal.writeInt(getKeyID());
+    }
+
+    /**
+     * @return The job mining a system, or null if the system is not being mined.
+     */
+    public static MiningJob find(long systemSeed) {
+        for (AbstractJob job : SpaceCrew.SC().getJobs())
+            if (job instanceof MiningJob && ((MiningJob) job).systemSeed == systemSeed)
+                return (MiningJob) job;
+        return null;
+    }
+
+    public long getSystemSeed() {
+        return systemSeed;
+    }
+    public SystemDeposits getDeposits() {
+        return SystemDeposits.get(systemSeed);
+    }
+
+    @Override
+    public double getMonthlyWorkload() {
+        return MONTHLY_WORKLOAD;
+    }
+
+    /**
+     * Mining is blowing up rocks (weaponry) and handling the equipment (artifice).
+     */
+    @Override
+    public double getWorkModifierOfCrewman(int crewID) {
+        AbleCrewman crewman = (AbleCrewman) SpaceCrew.SC().getCrew(crewID);
+        double skill = (crewman.getSkill(SkillType.weaponry) + crewman.getSkill(SkillType.artifice)) / 2.0;
+        //average skill gives full efficiency.
+        double score = Math.max(0.25, skill / 50.0);
+        return score + crewman.getGeneralWorkModifier();
+    }
+
+    @Override
+    public void endOfMonth() {
+        super.endOfMonth();
+        int[] mined = getDeposits().mine(monthWorkDone, 1);
+        ShipCargo cargo = ShipCargo.getInstance();
+        for (Resource resource : Resource.values()) {
+            int r = resource.ordinal();
+            monthMined[r] = mined[r];
+            monthStored[r] = mined[r] > 0 ? cargo.storeResource(resource.cargoName, mined[r]) : 0;
+        }
+    }
+
+    /**
+     * @return Units of a resource mined in the last month.
+     */
+    public int getMonthMined(Resource resource) {
+        return monthMined[resource.ordinal()];
+    }
+    /**
+     * @return Units of a resource mined in the last month that fit in the cargo.
+     */
+    public int getMonthStored(Resource resource) {
+        return monthStored[resource.ordinal()];
+    }
+
+    @Override
+    public StringBuffer toString(StringBuffer text) {
+        super.toString(text);
+        text.append("Mining system ").append(systemSeed).append(", last month:\n");
+        for (Resource resource : Resource.values())
+            text.append("\t").append(resource.cargoName).append(": ").append(getMonthMined(resource))
+                    .append(" mined, ").append(getMonthStored(resource)).append(" stored.\n");
+        return text;
+    }
+
+    //#region save
+    /**
+     * Writes the mining jobs of the crew: the key of each job, and the seed of the system it mines.
+     * Written after the ship, see {@link unicus.spacegame.save.SaveGame}.
+     */
+    public static void writeSave(SaveWriter out) {
+        ArrayList<MiningJob> mining = new ArrayList<>();
+        for (AbstractJob job : SpaceCrew.SC().getJobs())
+            if (job instanceof MiningJob)
+                mining.add((MiningJob) job);
+        int[] keys = new int[mining.size()];
+        for (int i = 0; i < keys.length; i++)
+            keys[i] = mining.get(i).getKeyID();
+        out.writeIntColumn(keys);
+        for (MiningJob job : mining)
+            out.writeLong(job.systemSeed);
+    }
+
+    /**
+     * Reads the mining jobs, and adds them to the crew's jobs with new keys.
+     * Must be read after {@link SpaceCrew#clearForLoad()} and the ship, and before the crew's assignments.
+     * @param jobKeys Filled with the saved job keys, mapped to the keys of the new jobs.
+     */
+    public static void readSave(SaveReader in, KeyRemap jobKeys) throws SaveFormatException {
+        int[] keys = in.readIntColumn();
+        for (int savedKey : keys)
+            jobKeys.add(savedKey, add(in.readLong()).getKeyID());
+    }
+
+    /**
+     * Replays a mining job started or stopped, recorded in the autosave journal.
+     * @param op {@link Autosave#MINING_START} or {@link Autosave#MINING_STOP}.
+     * @param in The arguments of the change.
+     * @param jobKeys Recorded job keys to the keys the jobs now have. Filled with the keys of started jobs.
+     */
+    public static void replay(int op, SaveReader in, KeyRemap jobKeys) throws SaveFormatException {
+        int savedKey = in.readInt();
+        if (op == Autosave.MINING_START) {
+            jobKeys.add(savedKey, add(in.readLong()).getKeyID());
+        } else if (op == Autosave.MINING_STOP) {
+            int jobID = jobKeys.map(savedKey);
+            if (SpaceCrew.SC().getJob(jobID) instanceof MiningJob)
+                SpaceCrew.SC().removeJobs(jobID);
+        } else {
+            throw new SaveFormatException("Unknown mining operation " + op + " in the journal.");
+        }
+    }
+    //#endregion
+}
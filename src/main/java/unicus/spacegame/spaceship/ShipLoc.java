@@ -34,6 +34,15 @@ public class ShipLoc {
         if(HS == null)
             HS = HomeShip.HS();
     }
+
+    /**
+     * Points all ship locations to a new HomeShip.
+     * Called by the HomeShip constructor, so locations made for an earlier ship (like before loading a save-file)
+     * do not keep pointing to the old ship.
+     */
+    static void setHomeShip(HomeShip homeShip) {
+        HS = homeShip;
+    }
     public static ShipLoc get(int s, int m){
         if(vals[s][m] == null)
             vals[s][m] = new ShipLoc(s, m);
@@ -0,0 +1,70 @@
+package unicus.spacegame.starmap;
+
+import unicus.spacegame.Sectormaps;
+
+/**
+ * Settings of a generated galaxy: the grid of sectors, and how stars are spread in them.
+ * The defaults are those of the original 5 x 4 sector map.
+ * Used by {@link Sectormaps#Sectormaps(GalaxyConfig, int)} and {@link GalaxyGenerator}.
+ */
+public class GalaxyConfig {
+    /** The master seed, every sector is generated from it and its own index. */
+    public long seed;
+    /** Number of sectors on the x axis. */
+    public int xSectors = 5;
+    /** Number of sectors on the y axis. */
+    public int ySectors = 4;
+    /** Pixel width of the base of a sector's triangle. */
+    public int sectorWidth = 300;
+    /** Pixel height of a sector's triangle. */
+    public int sectorHeight = 200;
+    /** Density: most stars in a sector. Each sector has 1 to maxStars stars. */
+    public int maxStars = 4;
+    /** Spacing: least pixels between two stars of a sector. */
+    public int room = 30;
+    /** Least angle in radians between the hyperlanes of a sector. */
+    public double angle = 0.25;
+
+    public GalaxyConfig() {
+    }
+
+    public GalaxyConfig(long seed, int xSectors, int ySectors) {
+        this.seed = seed;
+        this.xSectors = xSectors;
+        this.ySectors = ySectors;
+    }
+
+    public GalaxyConfig copy() {
+        GalaxyConfig c = new GalaxyConfig(seed, xSectors, ySectors);
+        c.sectorWidth = sectorWidth;
+        c.sectorHeight = sectorHeight;
+        c.maxStars = maxStars;
+        c.room = room;
+        c.angle = angle;
+        return c;
+    }
+
+    public int getNumSectors() {
+        return xSectors * ySectors;
+    }
+
+    /**
+     * @throws IllegalArgumentException If a setting is out of range.
+     */
+    public void validate() {
+        if (xSectors < 1 || ySectors < 1 || (long) xSectors * ySectors > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Invalid number of sectors: " + xSectors + " x " + ySectors);
+        if (sectorWidth < 2 || sectorHeight < 1)
+            throw new IllegalArgumentException("Invalid sector size: " + sectorWidth + " x " + sectorHeight);
+        if (maxStars < 1 || maxStars > 0xFF)
+            throw new IllegalArgumentException("Stars per sector must be from 1 to 255, was " + maxStars);
+        if (room < 0 || angle < 0 || angle >= Math.PI)
+            throw new IllegalArgumentException("Invalid spacing: room " + room + ", angle " + angle);
+    }
+
+    @Override
+    public String toString() {
+        return xSectors + "x" + ySectors + " sectors of " + sectorWidth + "x" + sectorHeight
+                + ", up to " + maxStars + " stars, room " + room + ", angle " + angle + ", seed " + seed;
+    }
+}
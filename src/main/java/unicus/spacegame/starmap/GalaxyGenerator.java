@@ -0,0 +1,93 @@
+package unicus.spacegame.starmap;
+
+import unicus.spacegame.Sectormaps;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Pre-bakes a galaxy into a starmap file, for maps too large to generate when the game starts.
+ *
+ * The sectors are generated lazily, in order, and written as they are made, see {@link StarmapFile#write(Path, Sectormaps)}.
+ * Only two rows of sectors are in memory at a time, so the size of the galaxy is limited by the file format alone.
+ * The file gives the same galaxy as {@link Sectormaps#Sectormaps(GalaxyConfig, int)} with the same settings.
+ *
+ * Usage: GalaxyGenerator file xSectors ySectors [seed [maxStars [room [sectorWidth sectorHeight]]]]
+ */
+public class GalaxyGenerator {
+
+    /**
+     * What a generation made, and how fast.
+     */
+    public static class Report {
+        public final int sectors;
+        public final int stars;
+        public final long bytes;
+        public final long nanos;
+
+        Report(int sectors, int stars, long bytes, long nanos) {
+            this.sectors = sectors;
+            this.stars = stars;
+            this.bytes = bytes;
+            this.nanos = nanos;
+        }
+
+        public double getSeconds() {
+            return nanos / 1e9;
+        }
+        public double getSectorsPerSecond() {
+            return sectors / Math.max(getSeconds(), 1e-9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d sectors, %d stars, %d bytes in %.2f s: %.0f sectors/s",
+                    sectors, stars, bytes, getSeconds(), getSectorsPerSecond());
+        }
+    }
+
+    /**
+     * Generates a galaxy straight to a starmap file.
+     * @param config The size of the galaxy, and how its stars are spread.
+     * @param file The starmap file, replaced if it exists.
+     * @return The size of the galaxy, and the time taken.
+     */
+    public static Report generate(GalaxyConfig config, Path file) throws IOException {
+        long start = System.nanoTime();
+        //linking a sector touches the row above and below, so two rows and a few sectors keep every sector generated once.
+        Sectormaps map = new Sectormaps(config, (int) Math.min(Integer.MAX_VALUE, 2L * config.xSectors + 8));
+        StarmapFile.write(file, map);
+        long nanos = System.nanoTime() - start;
+
+        int stars;
+        try (StarmapFile written = StarmapFile.open(file)) {
+            stars = written.getNumStars();
+        }
+        return new Report(config.getNumSectors(), stars, Files.size(file), nanos);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.out.println("Usage: GalaxyGenerator file xSectors ySectors [seed [maxStars [room [sectorWidth sectorHeight]]]]");
+            return;
+        }
+        GalaxyConfig config = new GalaxyConfig(0, Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+        if (args.length > 3)
+            config.seed = Long.parseLong(args[3]);
+        if (args.length > 4)
+            config.maxStars = Integer.parseInt(args[4]);
+        if (args.length > 5)
+            config.room = Integer.parseInt(args[5]);
+        if (args.length > 7) {
+            config.sectorWidth = Integer.parseInt(args[6]);
+            config.sectorHeight = Integer.parseInt(args[7]);
+        }
+        config.validate();
+
+        System.out.println("Generating " + config);
+        Report report = generate(config, Paths.get(args[0]));
+        System.out.println(report);
+    }
+}
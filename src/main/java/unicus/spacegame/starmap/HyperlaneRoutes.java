@@ -0,0 +1,466 @@
+package unicus.spacegame.starmap;
+
+import unicus.spacegame.Sectormaps;
+import unicus.spacegame.StarData;
+import unicus.spacegame.utilities.LruCache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds routes along the hyperlanes of a {@link Sectormaps}.
+ *
+ * The lanes are copied into int arrays once, in CSR layout (see {@link StarmapFile}):
+ *  stars are numbered sector by sector, and the lanes of star g are laneTargets[laneStart[g]] to laneTargets[laneStart[g+1]-1].
+ * The length of a route is the sum of the lengths of its lanes.
+ *
+ * A single route is found with A*, using the straight distance to the target as the heuristic,
+ *  so only the stars between the two ends are searched.
+ * For many routes from the same star, such as the jumps to every star on screen,
+ *  the shortest-path tree of the source is computed once and cached, see {@link #getTree(StarData)}.
+ *
+ * Note: building the routes visits every sector, so a lazily generated map is generated in full.
+ *  For a quick answer on the UI thread, use {@link #findJumps(Sectormaps, StarData, StarData, int)} instead.
+ * Note: not thread-safe.
+ */
+public class HyperlaneRoutes {
+    public static final int DEFAULT_CACHED_TREES = 8;
+
+    private final Sectormaps map;
+    private final int[] sectorStart;
+    private final int[] x, y;
+    private final int[] laneStart, laneTargets;
+
+    private final LruCache<Integer, PathTree> trees;
+
+    //search state of A*, reused between searches. A star's state is only valid if its stamp is the current search.
+    private final double[] cost;
+    private final int[] parent;
+    private final int[] seenStamp, doneStamp;
+    private int stamp;
+    private final NodeQueue queue = new NodeQueue();
+
+    public HyperlaneRoutes(Sectormaps map) {
+        this(map, DEFAULT_CACHED_TREES);
+    }
+
+    /**
+     * @param map The starmap.
+     * @param cachedTrees Number of shortest-path trees to keep. Each takes 16 bytes per star.
+     */
+    public HyperlaneRoutes(Sectormaps map, int cachedTrees) {
+        this.map = map;
+        this.trees = new LruCache<>(cachedTrees);
+
+        int numSectors = map.getNumSubSectors();
+        sectorStart = new int[numSectors + 1];
+        for (int s = 0; s < numSectors; s++)
+            sectorStart[s + 1] = sectorStart[s] + map.getNumStarsBySector(s);
+        int numStars = sectorStart[numSectors];
+
+        x = new int[numStars];
+        y = new int[numStars];
+        laneStart = new int[numStars + 1];
+        int[] targets = new int[numStars * 4];
+        int lanes = 0;
+        for (int s = 0; s < numSectors; s++) {
+            for (int i = 0; i < sectorStart[s + 1] - sectorStart[s]; i++) {
+                StarData star = map.getStar(s, i);
+                int g = sectorStart[s] + i;
+                x[g] = star.location.x;
+                y[g] = star.location.y;
+                for (StarData neighbor : star.connections) {
+                    if (lanes == targets.length)
+                        targets = Arrays.copyOf(targets, targets.length * 2);
+                    targets[lanes++] = sectorStart[neighbor.subsector] + neighbor.index;
+                }
+                laneStart[g + 1] = lanes;
+            }
+        }
+        laneTargets = Arrays.copyOf(targets, lanes);
+
+        cost = new double[numStars];
+        parent = new int[numStars];
+        seenStamp = new int[numStars];
+        doneStamp = new int[numStars];
+    }
+
+    public int getNumStars() {
+        return x.length;
+    }
+
+    /**
+     * @return The number of the star in this graph, from 0 to {@link #getNumStars()}.
+     */
+    public int indexOf(StarData star) {
+        return sectorStart[star.subsector] + star.index;
+    }
+
+    /**
+     * @param star The number of a star, see {@link #indexOf(StarData)}.
+     */
+    public StarData getStar(int star) {
+        //last sector that starts at or before the star, skipping empty sectors.
+        int sector = Arrays.binarySearch(sectorStart, star);
+        if (sector < 0)
+            sector = -sector - 2;
+        else
+            while (sectorStart[sector + 1] == star)
+                sector++;
+        return map.getStar(sector, star - sectorStart[sector]);
+    }
+
+    private double laneLength(int from, int to) {
+        return Math.sqrt(Sectormaps.distanceSq(x[from], y[from], x[to], y[to]));
+    }
+
+    //#region single routes
+
+    /**
+     * Finds the shortest route between two stars.
+     * Uses the cached tree of the source if there is one, otherwise searches with A*.
+     * @return The stars of the route, from the source to the target, both included. Null if there is no route.
+     */
+    public List<StarData> findRoute(StarData from, StarData to) {
+        int[] route = findRoute(indexOf(from), indexOf(to));
+        if (route == null)
+            return null;
+        List<StarData> stars = new ArrayList<>(route.length);
+        for (int star : route)
+            stars.add(getStar(star));
+        return stars;
+    }
+
+    /**
+     * @return The numbers of the stars on the shortest route, from the source to the target. Null if there is no route.
+     */
+    public int[] findRoute(int from, int to) {
+        if (trees.containsKey(from))
+            return trees.get(from).getRoute(to);
+        if (!search(from, to))
+            return null;
+        int jumps = 0;
+        for (int star = to; star != from; star = parent[star])
+            jumps++;
+        int[] route = new int[jumps + 1];
+        for (int star = to, i = jumps; i >= 0; star = parent[star], i--)
+            route[i] = star;
+        return route;
+    }
+
+    /**
+     * @return The number of jumps on the shortest route between two stars, or -1 if there is no route.
+     */
+    public int getJumps(StarData from, StarData to) {
+        int[] route = findRoute(indexOf(from), indexOf(to));
+        return route == null ? -1 : route.length - 1;
+    }
+
+    /**
+     * @return The length of the shortest route between two stars, or infinity if there is no route.
+     */
+    public double getDistance(StarData from, StarData to) {
+        int source = indexOf(from), target = indexOf(to);
+        if (trees.containsKey(source))
+            return trees.get(source).getDistance(target);
+        return search(source, target) ? cost[target] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * A* from a source to a target.
+     * @return True if the target was reached. The route is then in parent, and its length in cost.
+     */
+    private boolean search(int from, int to) {
+        if (++stamp == 0) {
+            //wrapped around, clear the stamps of past searches.
+            Arrays.fill(seenStamp, 0);
+            Arrays.fill(doneStamp, 0);
+            stamp = 1;
+        }
+        queue.clear();
+        cost[from] = 0;
+        parent[from] = from;
+        seenStamp[from] = stamp;
+        queue.push(laneLength(from, to), from);
+
+        while (!queue.isEmpty()) {
+            int star = queue.pop();
+            if (doneStamp[star] == stamp)
+                continue;
+            if (star == to)
+                return true;
+            doneStamp[star] = stamp;
+            for (int l = laneStart[star]; l < laneStart[star + 1]; l++) {
+                int next = laneTargets[l];
+                if (doneStamp[next] == stamp)
+                    continue;
+                double c = cost[star] + laneLength(star, next);
+                if (seenStamp[next] != stamp || c < cost[next]) {
+                    seenStamp[next] = stamp;
+                    cost[next] = c;
+                    parent[next] = star;
+                    queue.push(c + laneLength(next, to), next);
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the number of jumps between two stars with A*, without building the routes of the whole map.
+     * Only sectors the map has loaded are searched (see {@link Sectormaps#isSectorLoaded(int)}),
+     *  and at most maxStars stars, so it is cheap enough to run on the UI thread.
+     * Searching a sector that is loaded but not yet linked may load its neighbours, as with {@link Sectormaps#getStar(int, int)}.
+     * Note: a route around sectors that are not loaded may have more jumps than the shortest route.
+     * @param maxStars The most stars to search.
+     * @return The number of jumps on the shortest route, or -1 if no route was found within the bounds.
+     */
+    public static int findJumps(Sectormaps map, StarData from, StarData to, int maxStars) {
+        if (from.equals(to))
+            return 0;
+        //stars are numbered in the order they are seen, by (sector, index).
+        Map<Long, Integer> numbers = new HashMap<>();
+        List<StarData> stars = new ArrayList<>();
+        double[] cost = new double[64];
+        int[] jumps = new int[64];
+        boolean[] done = new boolean[64];
+        NodeQueue queue = new NodeQueue();
+
+        numbers.put(starKey(from), 0);
+        stars.add(from);
+        queue.push(Math.sqrt(Sectormaps.distanceSq(from.location, to.location)), 0);
+        int searched = 0;
+        while (!queue.isEmpty()) {
+            int star = queue.pop();
+            if (done[star])
+                continue;
+            StarData data = stars.get(star);
+            if (data.equals(to))
+                return jumps[star];
+            if (++searched > maxStars)
+                return -1;
+            done[star] = true;
+            //lanes into another sector of a lazy map end at copies without lanes, so lanes are read from the map's star.
+            if (map.isSectorLoaded(data.subsector))
+                data = map.getStar(data.subsector, data.index);
+            for (StarData neighbor : data.connections) {
+                if (!map.isSectorLoaded(neighbor.subsector))
+                    continue;
+                double c = cost[star] + Math.sqrt(Sectormaps.distanceSq(data.location, neighbor.location));
+                Integer known = numbers.get(starKey(neighbor));
+                int next;
+                if (known == null) {
+                    next = stars.size();
+                    numbers.put(starKey(neighbor), next);
+                    stars.add(neighbor);
+                    if (next == cost.length) {
+                        cost = Arrays.copyOf(cost, next * 2);
+                        jumps = Arrays.copyOf(jumps, next * 2);
+                        done = Arrays.copyOf(done, next * 2);
+                    }
+                } else {
+                    next = known;
+                    if (done[next] || c >= cost[next])
+                        continue;
+                }
+                cost[next] = c;
+                jumps[next] = jumps[star] + 1;
+                queue.push(c + Math.sqrt(Sectormaps.distanceSq(neighbor.location, to.location)), next);
+            }
+        }
+        return -1;
+    }
+
+    private static long starKey(StarData star) {
+        return ((long) star.subsector << 32) | (star.index & 0xFFFFFFFFL);
+    }
+    //#endregion
+
+    //#region shortest-path trees
+
+    /**
+     * The shortest routes from one star to every other star.
+     */
+    public static class PathTree {
+        private final int source;
+        private final double[] distance;
+        private final int[] parent;
+        private final int[] jumps;
+
+        private PathTree(int source, double[] distance, int[] parent, int[] jumps) {
+            this.source = source;
+            this.distance = distance;
+            this.parent = parent;
+            this.jumps = jumps;
+        }
+
+        public int getSource() {
+            return source;
+        }
+        /**
+         * @return The length of the shortest route to a star, or infinity if there is no route.
+         */
+        public double getDistance(int star) {
+            return distance[star];
+        }
+        /**
+         * @return The number of jumps on the shortest route to a star, or -1 if there is no route.
+         */
+        public int getJumps(int star) {
+            return jumps[star];
+        }
+        /**
+         * @return The numbers of the stars on the shortest route, from the source to the star. Null if there is no route.
+         */
+        public int[] getRoute(int star) {
+            if (jumps[star] < 0)
+                return null;
+            int[] route = new int[jumps[star] + 1];
+            for (int i = jumps[star]; i >= 0; star = parent[star], i--)
+                route[i] = star;
+            return route;
+        }
+    }
+
+    /**
+     * Gets the shortest-path tree of a star, computing it if it is not cached.
+     */
+    public PathTree getTree(StarData from) {
+        int source = indexOf(from);
+        PathTree tree = trees.get(source);
+        if (tree == null) {
+            tree = computeTree(source);
+            trees.put(source, tree);
+        }
+        return tree;
+    }
+
+    //Dijkstra over the whole graph.
+    private PathTree computeTree(int source) {
+        int numStars = getNumStars();
+        double[] distance = new double[numStars];
+        int[] parent = new int[numStars];
+        int[] jumps = new int[numStars];
+        Arrays.fill(distance, Double.POSITIVE_INFINITY);
+        Arrays.fill(jumps, -1);
+        boolean[] done = new boolean[numStars];
+
+        NodeQueue queue = new NodeQueue();
+        distance[source] = 0;
+        parent[source] = source;
+        jumps[source] = 0;
+        queue.push(0, source);
+        while (!queue.isEmpty()) {
+            int star = queue.pop();
+            if (done[star])
+                continue;
+            done[star] = true;
+            for (int l = laneStart[star]; l < laneStart[star + 1]; l++) {
+                int next = laneTargets[l];
+                double d = distance[star] + laneLength(star, next);
+                if (d < distance[next]) {
+                    distance[next] = d;
+                    parent[next] = star;
+                    jumps[next] = jumps[star] + 1;
+                    queue.push(d, next);
+                }
+            }
+        }
+        return new PathTree(source, distance, parent, jumps);
+    }
+
+    /**
+     * Gets the number of jumps from one star to many, using the tree of the source.
+     * @return For each target, the jumps on the shortest route, or -1 if there is no route.
+     */
+    public int[] getJumps(StarData from, StarData[] to) {
+        PathTree tree = getTree(from);
+        int[] result = new int[to.length];
+        for (int i = 0; i < to.length; i++)
+            result[i] = tree.getJumps(indexOf(to[i]));
+        return result;
+    }
+
+    /**
+     * Gets the route lengths from one star to many, using the tree of the source.
+     * @return For each target, the length of the shortest route, or infinity if there is no route.
+     */
+    public double[] getDistances(StarData from, StarData[] to) {
+        PathTree tree = getTree(from);
+        double[] result = new double[to.length];
+        for (int i = 0; i < to.length; i++)
+            result[i] = tree.getDistance(indexOf(to[i]));
+        return result;
+    }
+
+    public int getNumCachedTrees() {
+        return trees.size();
+    }
+    public long getTreeHits() {
+        return trees.getHits();
+    }
+    public long getTreeMisses() {
+        return trees.getMisses();
+    }
+    //#endregion
+
+    /**
+     * Binary min-heap of stars by priority.
+     * A star may be pushed again with a lower priority, the old entry is skipped by the caller when popped.
+     */
+    private static class NodeQueue {
+        private double[] keys = new double[64];
+        private int[] nodes = new int[64];
+        private int size;
+
+        void clear() {
+            size = 0;
+        }
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void push(double key, int node) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                nodes = Arrays.copyOf(nodes, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int up = (i - 1) >>> 1;
+                if (keys[up] <= key)
+                    break;
+                keys[i] = keys[up];
+                nodes[i] = nodes[up];
+                i = up;
+            }
+            keys[i] = key;
+            nodes[i] = node;
+        }
+
+        int pop() {
+            int top = nodes[0];
+            double key = keys[--size];
+            int node = nodes[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size)
+                    break;
+                if (child + 1 < size && keys[child + 1] < keys[child])
+                    child++;
+                if (key <= keys[child])
+                    break;
+                keys[i] = keys[child];
+                nodes[i] = nodes[child];
+                i = child;
+            }
+            keys[i] = key;
+            nodes[i] = node;
+            return top;
+        }
+    }
+}
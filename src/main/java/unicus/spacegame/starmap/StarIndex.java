@@ -0,0 +1,115 @@
+package unicus.spacegame.starmap;
+
+import unicus.spacegame.Sectormaps;
+import unicus.spacegame.StarData;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Finds stars by position: the nearest star to a point, and the stars within a radius or a rectangle.
+ *
+ * The sectors of a {@link Sectormaps} already form a uniform grid: every star lies inside its sector's triangle,
+ *  and the triangles' bounding boxes are laid out in fixed columns and rows.
+ * A query only visits the few sectors whose bounding box overlaps the area searched,
+ *  so it costs the same for any size of map, and needs no memory of its own.
+ * For lazily loaded maps, only the sectors visited are loaded.
+ */
+public class StarIndex {
+    private final Sectormaps map;
+
+    public StarIndex(Sectormaps map) {
+        this.map = map;
+    }
+
+    /**
+     * Visits every star inside a rectangle, edges included.
+     * @param x0 Left edge.
+     * @param y0 Top edge.
+     * @param x1 Right edge.
+     * @param y1 Bottom edge.
+     * @param visitor Called for each star found.
+     */
+    public void forEachInRect(int x0, int y0, int x1, int y1, Consumer<StarData> visitor) {
+        int width = map.getSectorWidth();
+        int step = width / 2;
+        int height = map.getSectorHeight();
+        int xSecs = map.getNumXSectors();
+        int ySecs = map.getNumYSectors();
+        //sectors whose bounding box may overlap the rectangle, one extra on each side for stars on an edge.
+        int iMin = Math.max(0, Math.floorDiv(x0 - map.getXStart() - width, step));
+        int iMax = Math.min(xSecs - 1, Math.floorDiv(x1 - map.getXStart(), step));
+        int jMin = Math.max(0, Math.floorDiv(y0 - map.getYStart() - 1, height));
+        int jMax = Math.min(ySecs - 1, Math.floorDiv(y1 - map.getYStart(), height));
+        for (int j = jMin; j <= jMax; j++) {
+            for (int i = iMin; i <= iMax; i++) {
+                int sector = i + j * xSecs;
+                for (int n = 0; n < map.getNumStarsBySector(sector); n++) {
+                    StarData star = map.getStar(sector, n);
+                    Point p = star.location;
+                    if (p.x >= x0 && p.x <= x1 && p.y >= y0 && p.y <= y1)
+                        visitor.accept(star);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The stars inside a rectangle.
+     */
+    public List<StarData> inRect(Rectangle rect) {
+        List<StarData> result = new ArrayList<>();
+        forEachInRect(rect.x, rect.y, rect.x + rect.width, rect.y + rect.height, result::add);
+        return result;
+    }
+
+    /**
+     * @return The stars within a distance of a point.
+     */
+    public List<StarData> withinRadius(int x, int y, int radius) {
+        List<StarData> result = new ArrayList<>();
+        long radiusSq = (long) radius * radius;
+        forEachInRect(x - radius, y - radius, x + radius, y + radius, star -> {
+            if (Sectormaps.distanceSq(x, y, star.location.x, star.location.y) <= radiusSq)
+                result.add(star);
+        });
+        return result;
+    }
+
+    /**
+     * Finds the star nearest to a point, within a distance.
+     * Used for hit-testing, with the size of a star as the distance.
+     * @return The nearest star, or null if no star is within the distance.
+     */
+    public StarData nearest(int x, int y, int maxDistance) {
+        StarData[] best = new StarData[1];
+        long[] bestSq = {(long) maxDistance * maxDistance};
+        forEachInRect(x - maxDistance, y - maxDistance, x + maxDistance, y + maxDistance, star -> {
+            long d = Sectormaps.distanceSq(x, y, star.location.x, star.location.y);
+            if (d <= bestSq[0] && (best[0] == null || d < bestSq[0])) {
+                best[0] = star;
+                bestSq[0] = d;
+            }
+        });
+        return best[0];
+    }
+
+    /**
+     * Finds the star nearest to a point, anywhere on the map.
+     * Searches around the point, doubling the distance until a star is found.
+     * @return The nearest star, or null if the map has no stars.
+     */
+    public StarData nearest(int x, int y) {
+        long mapWidth = map.getXStart() + (long) map.getSectorWidth() * (map.getNumXSectors() + 1) / 2;
+        long mapHeight = map.getYStart() + (long) map.getSectorHeight() * map.getNumYSectors();
+        //once the search covers the whole map, a larger one finds nothing new.
+        long limit = mapWidth + mapHeight + Math.abs((long) x) + Math.abs((long) y);
+        for (long radius = Math.max(1, map.getSectorWidth() / 2); ; radius *= 2) {
+            StarData star = nearest(x, y, (int) Math.min(radius, limit));
+            if (star != null || radius >= limit)
+                return star;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package unicus.spacegame.starmap;
+
+import unicus.spacegame.Sectormaps;
+import unicus.spacegame.StarData;
+
+import java.util.Arrays;
+
+/**
+ * Stars of a map held in memory as parallel arrays: x, y and seed per star, and the hyperlanes in CSR layout.
+ * The in-memory twin of {@link StarmapFile}, with the same numbering of stars.
+ *
+ * A star takes about 24 bytes and 4 per lane end, against well over 100 bytes as a StarData with its Point and list of lanes.
+ * Make a compact map with {@code new Sectormaps(StarStore.copyOf(map), cachedSectors)}:
+ *  only the sectors in the cache then exist as StarData.
+ *
+ * Note: only maps made from a table are compact. A StarData is still a full object with its own Point and lanes,
+ *  and a map generated in full, serially or on a scheduler, keeps every star as one.
+ */
+public class StarStore implements StarTable {
+    private final GalaxyConfig config;
+    private final int[] sectorStart;
+    private final int[] x, y;
+    private final long[] seed;
+    private final int[] laneStart, laneTargets;
+
+    private StarStore(GalaxyConfig config, int[] sectorStart, int[] x, int[] y, long[] seed, int[] laneStart, int[] laneTargets) {
+        this.config = config;
+        this.sectorStart = sectorStart;
+        this.x = x;
+        this.y = y;
+        this.seed = seed;
+        this.laneStart = laneStart;
+        this.laneTargets = laneTargets;
+    }
+
+    /**
+     * Copies the stars and hyperlanes of a map.
+     * Every sector is visited once, in order, so a lazily generated map can be copied with a small cache,
+     *  without ever holding the whole map as objects.
+     */
+    public static StarStore copyOf(Sectormaps map) {
+        int numSectors = map.getNumSubSectors();
+        int[] sectorStart = new int[numSectors + 1];
+        int capacity = Math.max(16, numSectors * 2);
+        int[] x = new int[capacity], y = new int[capacity];
+        long[] seed = new long[capacity];
+        int[] laneStart = new int[capacity + 1];
+        //lane targets as sector and index, until the first star of every sector is known.
+        int[] targetSector = new int[capacity * 2], targetIndex = new int[capacity * 2];
+        int numStars = 0, numLanes = 0;
+
+        for (int s = 0; s < numSectors; s++) {
+            int n = map.getNumStarsBySector(s);
+            if (numStars + n > x.length) {
+                capacity = Math.max(numStars + n, x.length * 2);
+                x = Arrays.copyOf(x, capacity);
+                y = Arrays.copyOf(y, capacity);
+                seed = Arrays.copyOf(seed, capacity);
+                laneStart = Arrays.copyOf(laneStart, capacity + 1);
+            }
+            for (int i = 0; i < n; i++) {
+                StarData star = map.getStar(s, i);
+                x[numStars] = star.location.x;
+                y[numStars] = star.location.y;
+                seed[numStars] = star.seed;
+                if (numLanes + star.connections.size() > targetSector.length) {
+                    int lanes = Math.max(numLanes + star.connections.size(), targetSector.length * 2);
+                    targetSector = Arrays.copyOf(targetSector, lanes);
+                    targetIndex = Arrays.copyOf(targetIndex, lanes);
+                }
+                for (StarData neighbor : star.connections) {
+                    targetSector[numLanes] = neighbor.subsector;
+                    targetIndex[numLanes] = neighbor.index;
+                    numLanes++;
+                }
+                numStars++;
+                laneStart[numStars] = numLanes;
+            }
+            sectorStart[s + 1] = numStars;
+        }
+
+        int[] laneTargets = new int[numLanes];
+        for (int l = 0; l < numLanes; l++)
+            laneTargets[l] = sectorStart[targetSector[l]] + targetIndex[l];
+        return new StarStore(map.getConfig(), sectorStart,
+                Arrays.copyOf(x, numStars), Arrays.copyOf(y, numStars), Arrays.copyOf(seed, numStars),
+                Arrays.copyOf(laneStart, numStars + 1), laneTargets);
+    }
+
+    @Override
+    public GalaxyConfig getConfig() {
+        return config.copy();
+    }
+    @Override
+    public int getNumXSectors() {
+        return config.xSectors;
+    }
+    @Override
+    public int getNumYSectors() {
+        return config.ySectors;
+    }
+    @Override
+    public int getNumStars() {
+        return x.length;
+    }
+
+    @Override
+    public int getFirstStar(int sector) {
+        return sectorStart[sector];
+    }
+    @Override
+    public int getNumStars(int sector) {
+        return sectorStart[sector + 1] - sectorStart[sector];
+    }
+
+    @Override
+    public int getSectorOf(int star) {
+        //last sector that starts at or before the star, skipping empty sectors.
+        int low = 0, high = getNumSectors() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (sectorStart[mid] <= star)
+                low = mid;
+            else
+                high = mid - 1;
+        }
+        return low;
+    }
+
+    @Override
+    public int getX(int star) {
+        return x[star];
+    }
+    @Override
+    public int getY(int star) {
+        return y[star];
+    }
+    @Override
+    public long getSeed(int star) {
+        return seed[star];
+    }
+
+    @Override
+    public int getNumLanes(int star) {
+        return laneStart[star + 1] - laneStart[star];
+    }
+    @Override
+    public int getLaneTarget(int star, int lane) {
+        return laneTargets[laneStart[star] + lane];
+    }
+
+    /**
+     * @return The approximate number of bytes used by the arrays.
+     */
+    public long getMemorySize() {
+        return 4L * sectorStart.length + 16L * x.length + 4L * laneStart.length + 4L * laneTargets.length;
+    }
+}
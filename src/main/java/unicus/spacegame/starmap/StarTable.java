@@ -0,0 +1,46 @@
+package unicus.spacegame.starmap;
+
+import unicus.spacegame.Sectormaps;
+
+/**
+ * Stars of a map as columns of primitives, instead of one {@link unicus.spacegame.StarData} object per star.
+ * A {@link Sectormaps} made from a table creates StarData views of a sector's stars when the sector is touched,
+ *  see {@link Sectormaps#Sectormaps(StarTable, int)}.
+ *
+ * Stars are numbered sector by sector: the global index of a star is the first star of its sector plus its index.
+ * The lanes of a star are numbered from 0 to {@link #getNumLanes(int)}, and lead to global star indexes.
+ */
+public interface StarTable {
+    /**
+     * @return The size and settings of the galaxy the stars were made with.
+     */
+    GalaxyConfig getConfig();
+    int getNumXSectors();
+    int getNumYSectors();
+    default int getNumSectors() {
+        return getNumXSectors() * getNumYSectors();
+    }
+    int getNumStars();
+
+    /**
+     * @return The global index of the first star in a sector.
+     */
+    int getFirstStar(int sector);
+    int getNumStars(int sector);
+    /**
+     * @return The sector of a star, by its global index.
+     */
+    int getSectorOf(int star);
+
+    int getX(int star);
+    int getY(int star);
+    long getSeed(int star);
+
+    int getNumLanes(int star);
+    /**
+     * @param star Global index of a star.
+     * @param lane Index of the lane, from 0 to {@link #getNumLanes(int)}.
+     * @return Global index of the star at the other end of the lane.
+     */
+    int getLaneTarget(int star, int lane);
+}
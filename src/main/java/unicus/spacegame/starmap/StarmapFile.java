@@ -0,0 +1,284 @@
+package unicus.spacegame.starmap;
+
+import unicus.spacegame.Sectormaps;
+import unicus.spacegame.StarData;
+import unicus.spacegame.save.SaveFormatException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Starmap stored in a memory-mapped file, read one star at a time.
+ * Used by {@link Sectormaps#Sectormaps(StarTable, int)} to load very large maps lazily, sector by sector.
+ *
+ * Stars are numbered sector by sector: the global index of a star is the first star of its sector plus its index.
+ * Hyperlanes are stored as adjacency lists in CSR layout: the lanes of star g are
+ *  laneTargets[laneStart[g]] to laneTargets[laneStart[g+1]-1], as global star indexes.
+ *
+ * Layout (big-endian):
+ *  header: magic, version, sectors on the x axis, sectors on the y axis, number of stars, number of lane ends,
+ *   then since version 2 the rest of the {@link GalaxyConfig}: sector width, sector height, max stars, room, angle (double), seed (long)
+ *  sectorStart: int[sectors + 1]
+ *  x, y: int[stars] each
+ *  seed: long[stars]
+ *  laneStart: int[stars + 1]
+ *  laneTargets: int[lane ends]
+ *
+ * Files are written in one pass over the map's sectors, see {@link #write(Path, Sectormaps)}.
+ * Note: a single mapping is limited to 2 GB, about 90 million stars with four lanes each.
+ */
+public class StarmapFile implements StarTable, Closeable {
+    //"USMF", unicus starmap file
+    private static final int MAGIC = 0x55534D46;
+    public static final int VERSION = 2;
+    private static final int HEADER_SIZE_V1 = 6 * 4;
+    private static final int HEADER_SIZE = 10 * 4 + 8 + 8;
+    //buffer of each column while writing.
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final GalaxyConfig config;
+    private final int xSectors, ySectors, numStars, numLaneEnds;
+    private final IntBuffer sectorStart, x, y, laneStart, laneTargets;
+    private final LongBuffer seed;
+
+    private StarmapFile(FileChannel channel, MappedByteBuffer map) throws SaveFormatException {
+        this.channel = channel;
+        if (map.capacity() < HEADER_SIZE_V1 || map.getInt(0) != MAGIC)
+            throw new SaveFormatException("Not a starmap file.");
+        int version = map.getInt(4);
+        if (version != 1 && version != VERSION)
+            throw new SaveFormatException("Starmap version " + version + " is not supported (expected " + VERSION + ").");
+        int headerSize = version == 1 ? HEADER_SIZE_V1 : HEADER_SIZE;
+        if (map.capacity() < headerSize)
+            throw new SaveFormatException("Starmap file is corrupt, or was cut short.");
+        xSectors = map.getInt(8);
+        ySectors = map.getInt(12);
+        numStars = map.getInt(16);
+        numLaneEnds = map.getInt(20);
+        //version 1 maps were made with the default settings.
+        config = new GalaxyConfig(0, xSectors, ySectors);
+        if (version > 1) {
+            config.sectorWidth = map.getInt(24);
+            config.sectorHeight = map.getInt(28);
+            config.maxStars = map.getInt(32);
+            config.room = map.getInt(36);
+            config.angle = map.getDouble(40);
+            config.seed = map.getLong(48);
+        }
+        if (numStars < 0 || numLaneEnds < 0 || (long) xSectors * ySectors > Integer.MAX_VALUE
+                || map.capacity() != fileSize(headerSize, (long) xSectors * ySectors, numStars, numLaneEnds))
+            throw new SaveFormatException("Starmap file is corrupt, or was cut short.");
+        try {
+            config.validate();
+        } catch (IllegalArgumentException err) {
+            throw new SaveFormatException("Starmap file is corrupt: " + err.getMessage());
+        }
+
+        int position = headerSize;
+        sectorStart = intColumn(map, position, xSectors * ySectors + 1);
+        position += (xSectors * ySectors + 1) * 4;
+        x = intColumn(map, position, numStars);
+        position += numStars * 4;
+        y = intColumn(map, position, numStars);
+        position += numStars * 4;
+        seed = map.duplicate().position(position).slice().asLongBuffer().limit(numStars);
+        position += numStars * 8;
+        laneStart = intColumn(map, position, numStars + 1);
+        position += (numStars + 1) * 4;
+        laneTargets = intColumn(map, position, numLaneEnds);
+    }
+
+    private static IntBuffer intColumn(ByteBuffer map, int position, int length) {
+        return map.duplicate().position(position).slice().asIntBuffer().limit(length);
+    }
+
+    private static long fileSize(int headerSize, long numSectors, long numStars, long numLaneEnds) {
+        return headerSize + (numSectors + 1) * 4 + numStars * (4 + 4 + 8) + (numStars + 1) * 4 + numLaneEnds * 4;
+    }
+
+    /**
+     * Opens a starmap file. The stars are read from the file as they are asked for.
+     * @throws SaveFormatException If the file is not a starmap, or is corrupt.
+     */
+    public static StarmapFile open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new SaveFormatException("Starmap file is too large: " + channel.size() + " bytes.");
+            return new StarmapFile(channel, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException err) {
+            channel.close();
+            throw err;
+        }
+    }
+
+    /**
+     * Writes a starmap to a file, visiting every sector of the map once, in order.
+     * Only the first star of each sector is kept in memory: the columns are written to temporary files,
+     *  a chunk at a time, then joined. A lazily generated map is written without holding it in memory,
+     *  if its cache holds two rows of sectors, see {@link GalaxyGenerator}.
+     * The file is first written next to the target, then moved in place.
+     */
+    public static void write(Path file, Sectormaps map) throws IOException {
+        int numSectors = map.getNumSubSectors();
+        int[] sectorStart = new int[numSectors + 1];
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Path[] columns = new Path[5];
+        String[] names = {"x", "y", "seed", "lanes", "targets"};
+        for (int c = 0; c < columns.length; c++)
+            columns[c] = file.resolveSibling(file.getFileName() + "." + names[c] + ".tmp");
+        try {
+            long numLaneEnds = 0;
+            try (DataOutputStream x = column(columns[0]); DataOutputStream y = column(columns[1]);
+                 DataOutputStream seed = column(columns[2]); DataOutputStream laneStart = column(columns[3]);
+                 DataOutputStream targets = column(columns[4])) {
+                laneStart.writeInt(0);
+                for (int s = 0; s < numSectors; s++) {
+                    int n = map.getNumStarsBySector(s);
+                    for (int i = 0; i < n; i++) {
+                        StarData star = map.getStar(s, i);
+                        x.writeInt(star.location.x);
+                        y.writeInt(star.location.y);
+                        seed.writeLong(star.seed);
+                        //the first star of a neighbour's sector may not be known yet, it is looked up when joining.
+                        for (StarData neighbor : star.connections) {
+                            targets.writeInt(neighbor.subsector);
+                            targets.writeInt(neighbor.index);
+                        }
+                        numLaneEnds += star.connections.size();
+                        if (numLaneEnds > Integer.MAX_VALUE)
+                            throw new IOException("Starmap has too many hyperlanes for one file.");
+                        laneStart.writeInt((int) numLaneEnds);
+                    }
+                    if ((long) sectorStart[s] + n > Integer.MAX_VALUE)
+                        throw new IOException("Starmap has too many stars for one file.");
+                    sectorStart[s + 1] = sectorStart[s] + n;
+                }
+            }
+            int numStars = sectorStart[numSectors];
+            long size = fileSize(HEADER_SIZE, numSectors, numStars, numLaneEnds);
+            if (size > Integer.MAX_VALUE)
+                throw new IOException("Starmap is too large for one file: " + size + " bytes.");
+
+            GalaxyConfig config = map.getConfig();
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), CHUNK_SIZE))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(map.getNumXSectors());
+                out.writeInt(map.getNumYSectors());
+                out.writeInt(numStars);
+                out.writeInt((int) numLaneEnds);
+                out.writeInt(config.sectorWidth);
+                out.writeInt(config.sectorHeight);
+                out.writeInt(config.maxStars);
+                out.writeInt(config.room);
+                out.writeDouble(config.angle);
+                out.writeLong(config.seed);
+                for (int start : sectorStart)
+                    out.writeInt(start);
+                for (int c = 0; c < 4; c++)
+                    Files.copy(columns[c], out);
+                try (DataInputStream targets = new DataInputStream(new BufferedInputStream(Files.newInputStream(columns[4]), CHUNK_SIZE))) {
+                    for (long l = 0; l < numLaneEnds; l++)
+                        out.writeInt(sectorStart[targets.readInt()] + targets.readInt());
+                }
+                out.flush();
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            for (Path column : columns)
+                Files.deleteIfExists(column);
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static DataOutputStream column(Path file) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), CHUNK_SIZE));
+    }
+
+    @Override
+    public GalaxyConfig getConfig() {
+        return config.copy();
+    }
+
+    @Override
+    public int getNumXSectors() {
+        return xSectors;
+    }
+    @Override
+    public int getNumYSectors() {
+        return ySectors;
+    }
+    @Override
+    public int getNumStars() {
+        return numStars;
+    }
+
+    @Override
+    public int getFirstStar(int sector) {
+        return sectorStart.get(sector);
+    }
+    @Override
+    public int getNumStars(int sector) {
+        return sectorStart.get(sector + 1) - sectorStart.get(sector);
+    }
+
+    @Override
+    public int getSectorOf(int star) {
+        //last sector that starts at or before the star, skipping empty sectors.
+        int low = 0, high = getNumSectors() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (sectorStart.get(mid) <= star)
+                low = mid;
+            else
+                high = mid - 1;
+        }
+        return low;
+    }
+
+    @Override
+    public int getX(int star) {
+        return x.get(star);
+    }
+    @Override
+    public int getY(int star) {
+        return y.get(star);
+    }
+    @Override
+    public long getSeed(int star) {
+        return seed.get(star);
+    }
+
+    @Override
+    public int getNumLanes(int star) {
+        return laneStart.get(star + 1) - laneStart.get(star);
+    }
+    @Override
+    public int getLaneTarget(int star, int lane) {
+        return laneTargets.get(laneStart.get(star) + lane);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -25,6 +25,16 @@ public class BasicSpaceObject {
     int   orbitIndex;
     float orbitRotation;
 
+    //angular velocity at distance 1, in radians per second.
+    public static final double ORBIT_SPEED = 3300;
+
+    //incremental layout, see update.
+    private static final Comparator<BasicSpaceObject> BY_ORBIT = Comparator.comparingInt(o -> o.orbitIndex);
+    private boolean layoutDirty = true;
+    private boolean moved = true;
+    private boolean childrenSorted = true;
+    private int recomputed;
+
 
     public BasicSpaceObject(ObjectType type, ObjectSize size, long seed) {
         this.type = type;
@@ -77,6 +87,17 @@ public class BasicSpaceObject {
     }
     public int getOrbitDistance() { return orbitDistance; }
 
+    /**
+     * Speed of this object around its parent, following Kepler's third law: the angular velocity falls with distance^1.5.
+     * An object at 1000 world-units takes about a minute per orbit. See {@link OrbitalMotion}.
+     * @return radians per second of game time, 0 for root objects.
+     */
+    public double getAngularVelocity() {
+        if (isRoot() || orbitDistance <= 0)
+            return 0;
+        return ORBIT_SPEED / Math.pow(orbitDistance, 1.5);
+    }
+
     public Boolean isRoot() {
         return (parent == this || parent == null);
     }
@@ -84,15 +105,58 @@ public class BasicSpaceObject {
     /**
      * Update generated local size, fullsize and location of this element and its children
      * Call only from root objects.
+     *
+     * Only objects changed since the last update are laid out again, along with the objects they orbit,
+     *  as a change in size moves everything further out, see {@link #markDirty()}.
+     * Locations are only updated below objects that were laid out again.
      */
     public void update() {
         if(isRoot()) {
-            updateInternal();
+            recomputed = 0;
+            updateInternal(new Random());
             updateLocation();
         }
     }
-    protected void updateInternal() {
-        Random r = new Random(planetSeed);
+
+    /**
+     * Marks this object to be laid out at the next update, and the objects it orbits, up to the root.
+     * Called by addChild and removeChild. Call it after changing the type, size or orbit of an object.
+     */
+    public void markDirty() {
+        //the orbit may have changed, so the children of the parent are sorted again.
+        if (!isRoot())
+            parent.childrenSorted = false;
+        BasicSpaceObject o = this;
+        //an object is never dirty while the one it orbits is clean, so stop at the first that is dirty.
+        while (!o.layoutDirty) {
+            o.layoutDirty = true;
+            if (o.isRoot())
+                break;
+            o = o.parent;
+        }
+    }
+
+    /**
+     * @return The number of objects laid out again by the last update. Only counted on the root.
+     */
+    public int getRecomputedCount() {
+        return recomputed;
+    }
+
+    private BasicSpaceObject getRoot() {
+        BasicSpaceObject o = this;
+        while (!o.isRoot())
+            o = o.parent;
+        return o;
+    }
+
+    /**
+     * Lays out the changed objects of this subtree.
+     * @param r Random to reseed for each object, so every object's orbits only depend on its own seed.
+     */
+    protected void updateInternal(Random r) {
+        if(!layoutDirty)
+            return;
         //Local size is fetched using getLocalSize.
         //In this base class, getLocalSize is a 2D lookup-table on ObjectType and ObjectSize.
         generatedLocalSize = getLocalSize();
@@ -102,25 +166,23 @@ public class BasicSpaceObject {
             generatedFullSize = generatedLocalSize;
         else {
             for (BasicSpaceObject c : children) {
-                c.updateInternal();
+                c.updateInternal(r);
             }
             /**
-             * Sort child objects first by orbit index (closest to furthest)
-             * then sort by generated full size (largest to smallest)
+             * Sort child objects by orbit index (closest to furthest).
+             * Note: the sort is stable, so co-orbiting objects keep the order they were added in.
              */
-            Comparator<BasicSpaceObject> childsorter = Comparator.comparingInt(o -> o.orbitIndex);
-            childsorter.thenComparingInt(o -> o.generatedFullSize).reversed();
-            children.sort(childsorter);
-
-            int highest = children.get(children.size() - 1).orbitIndex;
-
+            if (!childrenSorted) {
+                children.sort(BY_ORBIT);
+                childrenSorted = true;
+            }
+            r.setSeed(planetSeed);
 
             generatedFullSize = (int)(generatedLocalSize * 1.2);
 
             BasicSpaceObject prevChild = null;
             BasicSpaceObject currentChild;
 
-            int currentOrbit = 0;
             int orbitD = 0;
             for (int i = 0; i < children.size(); i++) {
                 currentChild = children.get(i);
@@ -140,6 +202,9 @@ public class BasicSpaceObject {
                 prevChild = currentChild;
             }
         }
+        layoutDirty = false;
+        moved = true;
+        getRoot().recomputed++;
     }
     protected void updateLocation() {
         //Set the world location of the object
@@ -158,18 +223,27 @@ public class BasicSpaceObject {
             generatedLocation.x = x;
             generatedLocation.y = y;
         }
+        //the children only move if this object was laid out again, or moved itself.
+        boolean moveChildren = moved;
+        moved = false;
         for (BasicSpaceObject b:children) {
-            b.updateLocation();
+            if (moveChildren)
+                b.moved = true;
+            if (b.moved)
+                b.updateLocation();
         }
     }
 
 
     public boolean addChild(BasicSpaceObject child)
     {
+        childrenSorted = false;
+        markDirty();
         return children.add(child);
     }
     public boolean removeChild(BasicSpaceObject child)
     {
+        markDirty();
         return children.remove(child);
     }
 
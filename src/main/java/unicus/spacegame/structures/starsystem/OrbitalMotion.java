@@ -0,0 +1,132 @@
+package unicus.spacegame.structures.starsystem;
+
+import java.awt.*;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import static unicus.spacegame.utilities.Constants.TAU;
+
+/**
+ * Moves the objects of a star system along their orbits over time.
+ *
+ * The laid out tree (see {@link BasicSpaceObject#update()}) is copied into flat arrays:
+ *  for each object its parent, orbit distance, starting angle and angular velocity.
+ * The position of every object at a time t is then computed in one pass over the arrays,
+ *  parents before children, without walking the tree or touching the objects.
+ *
+ * The objects keep their generated locations. Copy the system again after it is laid out again.
+ */
+public class OrbitalMotion {
+    private final BasicSpaceObject[] objects;
+    //[object], in the order the objects were given.
+    private final int[] parent;
+    private final double[] distance, phase, velocity;
+    private final int[] offsetX, offsetY;
+    //where objects without a parent in the list orbit: nothing for roots, the parent's generated location for others.
+    private final int[] baseX, baseY;
+    private final double[] x, y, angle;
+    //the objects, parents before children.
+    private final int[] order;
+
+    /**
+     * @param objects The objects of a laid out system, such as {@link BaseStarSystem#getAllObjects()}.
+     *                An object orbiting something not in the list is moved around the parent's generated location.
+     */
+    public OrbitalMotion(BasicSpaceObject[] objects) {
+        int n = objects.length;
+        this.objects = objects.clone();
+        parent = new int[n];
+        distance = new double[n];
+        phase = new double[n];
+        velocity = new double[n];
+        offsetX = new int[n];
+        offsetY = new int[n];
+        baseX = new int[n];
+        baseY = new int[n];
+        x = new double[n];
+        y = new double[n];
+        angle = new double[n];
+        order = new int[n];
+
+        Map<BasicSpaceObject, Integer> index = new IdentityHashMap<>(n * 2);
+        for (int i = 0; i < n; i++)
+            index.put(objects[i], i);
+        for (int i = 0; i < n; i++) {
+            BasicSpaceObject o = objects[i];
+            Integer p = o.isRoot() ? null : index.get(o.getParent());
+            parent[i] = p == null ? -1 : p;
+            distance[i] = o.isRoot() ? 0 : o.getOrbitDistance();
+            phase[i] = o.getOrbitRotation();
+            velocity[i] = o.getAngularVelocity();
+            offsetX[i] = o.offset.x;
+            offsetY[i] = o.offset.y;
+            if (parent[i] < 0 && !o.isRoot()) {
+                Point p0 = o.getParentLocation();
+                baseX[i] = p0.x;
+                baseY[i] = p0.y;
+            }
+        }
+
+        //order by depth, so a parent is always computed before its children.
+        int[] depth = new int[n];
+        int maxDepth = 0;
+        for (int i = 0; i < n; i++) {
+            for (int p = parent[i]; p >= 0 && depth[i] < n; p = parent[p])
+                depth[i]++;
+            maxDepth = Math.max(maxDepth, depth[i]);
+        }
+        int k = 0;
+        for (int d = 0; d <= maxDepth; d++)
+            for (int i = 0; i < n; i++)
+                if (depth[i] == d)
+                    order[k++] = i;
+        update(0);
+    }
+
+    /**
+     * Computes the position of every object at a time.
+     * @param time Game time in seconds. At time 0 the objects are where they were laid out.
+     */
+    public void update(double time) {
+        for (int k = 0; k < order.length; k++) {
+            int i = order[k];
+            int p = parent[i];
+            double px = p >= 0 ? x[p] : baseX[i];
+            double py = p >= 0 ? y[p] : baseY[i];
+            double a = (phase[i] + velocity[i] * time) % TAU;
+            if (a < 0)
+                a += TAU;
+            angle[i] = a;
+            x[i] = px + Math.cos(a) * distance[i] + offsetX[i];
+            y[i] = py + Math.sin(a) * distance[i] + offsetY[i];
+        }
+    }
+
+    public int size() {
+        return objects.length;
+    }
+    public BasicSpaceObject getObject(int i) {
+        return objects[i];
+    }
+    public double getX(int i) {
+        return x[i];
+    }
+    public double getY(int i) {
+        return y[i];
+    }
+    /**
+     * @return The x of the object's parent, or of the object itself if it is a root.
+     */
+    public double getParentX(int i) {
+        return parent[i] >= 0 ? x[parent[i]] : objects[i].isRoot() ? x[i] : baseX[i];
+    }
+    public double getParentY(int i) {
+        return parent[i] >= 0 ? y[parent[i]] : objects[i].isRoot() ? y[i] : baseY[i];
+    }
+    /**
+     * @return The current angle of the object around its parent, in radians from 0 to TAU.
+     */
+    public double getAngle(int i) {
+        return angle[i];
+    }
+}
@@ -0,0 +1,20 @@
+package unicus.spacegame.structures.starsystem;
+
+/**
+ * Resources that can be mined from the objects of a star system, see {@link SystemDeposits}.
+ * Each is stored as a cargo type of the same name in ShipCargo.
+ */
+public enum Resource {
+    WATER("Water"),
+    FUEL("Fuel"),
+    OXYGEN("Oxygen"),
+    PARTS("Spare parts"),
+    SHINYIUM("Shinyium");
+
+    /** The name of the cargo type the resource is stored as. */
+    public final String cargoName;
+
+    Resource(String cargoName) {
+        this.cargoName = cargoName;
+    }
+}
@@ -0,0 +1,250 @@
+package unicus.spacegame.structures.starsystem;
+
+import unicus.spacegame.utilities.NameGenerator;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static unicus.spacegame.utilities.Constants.TAUf;
+
+/**
+ * The star system shown on the star screen (SwingStarSystem): a star, planets with at most one moon or ring,
+ *  and asteroid belts. Generated without any UI, so it can be cached, prefetched and summarized.
+ *
+ * The objects are held as columns, in the order they are generated, with the star first.
+ * A star's system is generated with {@code generate(new Random(star.seed))}, see {@link StarSystemCache#getSimpleInstance()}.
+ */
+public class SimpleStarSystem {
+    public enum Kind {
+        STAR, BELT, DEAD, LIFE
+    }
+
+    private String name;
+    private int numObjects;
+    private Kind[] kind = new Kind[16];
+    //index of the object orbited, -1 for the star.
+    private int[] parent = new int[16];
+    private int[] color = new int[16];
+    //radius of planets and the star, in pixels. 0 for belts.
+    private int[] size = new int[16];
+    private int[] orbitDistance = new int[16];
+    private float[] orbitRotation = new float[16];
+    private int numLife, numBelts;
+
+    private SimpleStarSystem() {
+    }
+
+    //Adds an object while generating. Returns its index.
+    private int add(Kind kind, int parent, int color, int size, int orbitDistance, float orbitRotation) {
+        int i = numObjects++;
+        if (i == this.kind.length) {
+            this.kind = Arrays.copyOf(this.kind, i * 2);
+            this.parent = Arrays.copyOf(this.parent, i * 2);
+            this.color = Arrays.copyOf(this.color, i * 2);
+            this.size = Arrays.copyOf(this.size, i * 2);
+            this.orbitDistance = Arrays.copyOf(this.orbitDistance, i * 2);
+            this.orbitRotation = Arrays.copyOf(this.orbitRotation, i * 2);
+        }
+        this.kind[i] = kind;
+        this.parent[i] = parent;
+        this.color[i] = color;
+        this.size[i] = size;
+        this.orbitDistance[i] = orbitDistance;
+        this.orbitRotation[i] = orbitRotation;
+        if (kind == Kind.LIFE)
+            numLife++;
+        else if (kind == Kind.BELT)
+            numBelts++;
+        return i;
+    }
+
+    /**
+     * Generates a star system.
+     * @param rand The random number generator to use.
+     */
+    public static SimpleStarSystem generate(Random rand) {
+
+        //asteroid belts count as 'planet' in this limit
+        int maxPlanets = 10; //The system's number of planets will number
+        int minPlanets = 1;  //     between this minimum and maximum.
+        int maxLife = 2; //Maximum number of planets that may have life on them.
+        int maxBelts = 3; //maximum number of asteroid belts in the system
+
+
+        //setting constants for odds of a planet
+        float planetHasMoon = 0.2f;
+        float planetHasRing = 0.2f;
+        float planetIsAsteroidbelt = 0.1f;
+        float planetHasLife = 0.3f;
+
+        SimpleStarSystem system = new SimpleStarSystem();
+
+        // - Generate star
+        system.add(Kind.STAR, -1, randomPlanetColor(rand, Kind.STAR), 40, 0, 0);
+
+        // - generate planets
+        int numPlanets = rand.nextInt(maxPlanets - minPlanets) + minPlanets;
+        int nextSafeOrbit = 70;
+
+        int lifeCreated = 0;
+        int beltsCreated = 0;
+
+        for(int i = 0; i < numPlanets; i++) {
+            int orbitD = rand.nextInt(20) + nextSafeOrbit;
+            boolean isABelt = rand.nextFloat() < planetIsAsteroidbelt;
+
+            // - Asteroidbelt
+            if (isABelt && beltsCreated < maxBelts) {
+                system.add(Kind.BELT, 0, 0, 0, orbitD + 10, 0);
+                nextSafeOrbit = orbitD + 50;
+                beltsCreated++;
+                continue;
+            }
+            boolean hasLife = rand.nextFloat() < planetHasLife;
+            Kind type = Kind.DEAD;
+
+            // - Planet with life
+            if (hasLife && lifeCreated < maxLife) {
+                type = Kind.LIFE;
+                lifeCreated++;
+            }
+            int size = rand.nextInt(20) + 5;
+            float orbitR = rand.nextFloat() * TAUf;
+            int planet = system.add(type, 0, randomPlanetColor(rand, type), size, orbitD, orbitR);
+            nextSafeOrbit = orbitD + size + 10;
+
+            // - Creating moons
+            float m_orbitR = rand.nextFloat() * TAUf;
+            int m_size = Math.min(rand.nextInt(10) + 2, (int) (size * 0.6));
+            int m_orbitD = size + m_size + rand.nextInt(5);
+
+            boolean hasRing = rand.nextFloat() < planetHasRing;
+            if (hasRing && beltsCreated < maxBelts) {
+                //counting the rings as asteroidbelts.
+                system.add(Kind.BELT, planet, 0, 0, m_orbitD, 0);
+                nextSafeOrbit += 10;
+                beltsCreated++;
+            }
+            //currently limited to just 1 moon.
+            boolean hasMoon = rand.nextFloat() < planetHasMoon;
+            if (hasMoon) {
+                //the odds of life are rolled, but moons are always dead. A roll for life still uses up the limit.
+                rand.nextFloat();
+                if (hasLife && lifeCreated < maxLife)
+                    lifeCreated++;
+                system.add(Kind.DEAD, planet, randomPlanetColor(rand, Kind.DEAD), m_size, m_orbitD, m_orbitR);
+                nextSafeOrbit += 15;
+            }
+        }
+
+        system.name = NameGenerator.makeWord("CVV VCVV", rand).toUpperCase();
+        return system;
+    }
+
+    private static int randomPlanetColor(Random rand, Kind type) {
+        float h = rand.nextFloat();
+        float s = rand.nextFloat();
+        float b = rand.nextFloat();
+        switch (type) {
+            case DEAD:
+                s = s / 10; //low saturation on dead planets
+                b = b / 10 + 0.9f; //dead planets are very bight
+                break;
+            case LIFE:
+                h = h / 6f - 1/6 + 0.48f;//planets with life has a hue near cyan
+                s = s / 10 + 0.6f; //planets with life are moderately saturated.
+                b = b / 2 + 0.4f; //planets with life are a bit shaded
+                break;
+            case STAR:
+                s = 1; //stars are always fully saturated.
+                b = b / 10 + 0.9f; //Stars are always very bright.
+                break;
+            default:
+                break;
+        }
+        return Color.HSBtoRGB(h, s, b);
+    }
+
+    public String getName() {
+        return name;
+    }
+    public int getNumObjects() {
+        return numObjects;
+    }
+    public Kind getKind(int object) {
+        return kind[object];
+    }
+    /**
+     * @return The index of the object orbited, or -1 for the star.
+     */
+    public int getParent(int object) {
+        return parent[object];
+    }
+    /**
+     * @return The color as RGB, see {@link Color#getRGB()}. 0 for belts.
+     */
+    public int getColor(int object) {
+        return color[object];
+    }
+    public int getSize(int object) {
+        return size[object];
+    }
+    public int getOrbitDistance(int object) {
+        return orbitDistance[object];
+    }
+    public float getOrbitRotation(int object) {
+        return orbitRotation[object];
+    }
+    /**
+     * @return True for a belt around a planet, rather than around the star.
+     */
+    public boolean isRing(int object) {
+        return kind[object] == Kind.BELT && parent[object] != 0;
+    }
+
+    /**
+     * @return The number of planets with life.
+     */
+    public int getNumLife() {
+        return numLife;
+    }
+    /**
+     * @return The number of asteroid belts and rings, the objects that can be mined.
+     */
+    public int getNumMinable() {
+        return numBelts;
+    }
+
+    /**
+     * Makes the junk fields the belts and rings are mined as, see {@link SystemDeposits#get(long)}.
+     * Rings around planets are small and icy, belts around the star are rock.
+     * @param systemSeed The seed of the system's star. Objects are numbered in the order they are generated,
+     *                   so the seeds of the fields are the same every time.
+     */
+    public List<SpaceJunkField> makeMinableFields(long systemSeed) {
+        List<SpaceJunkField> fields = new ArrayList<>();
+        for (int i = 0; i < numObjects; i++) {
+            if (kind[i] != Kind.BELT)
+                continue;
+            boolean ring = isRing(i);
+            JunkContents[] contents = {ring ? JunkContents.ICETEROIDS : JunkContents.ASTEROIDS};
+            fields.add(new SpaceJunkField(systemSeed + i, contents, ring ? ObjectSize.SMALL : ObjectSize.LARGE));
+        }
+        return fields;
+    }
+
+    /**
+     * @return A rough size of the system in memory, for the star system cache.
+     */
+    long estimateSize() {
+        return 64 + name.length() * 2L + kind.length * 32L;
+    }
+
+    @Override
+    public String toString() {
+        return name + " " + Arrays.toString(Arrays.copyOf(kind, numObjects));
+    }
+}
@@ -41,5 +41,12 @@ public class SpaceJunkField extends BasicSpaceObject {
     public float getRadianLength() {
         return radianLength;
     }
+
+    /**
+     * @return The kinds of junk in the field. Repeated entries are more common.
+     */
+    public JunkContents[] getContents() {
+        return contents.clone();
+    }
 }
 
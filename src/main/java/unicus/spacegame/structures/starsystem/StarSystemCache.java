@@ -0,0 +1,193 @@
+package unicus.spacegame.structures.starsystem;
+
+import unicus.spacegame.StarData;
+import unicus.spacegame.utilities.LruCache;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.LongFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Generated star systems, by the seed of their star.
+ * A system is generated from its seed alone, so a cached system is the same as a new one.
+ * There is a cache for each kind of system: {@link #getInstance()} for the {@link BaseStarSystem}s of SystemView,
+ *  and {@link #getSimpleInstance()} for the {@link SimpleStarSystem}s of the star system screen.
+ *
+ * The cache is bounded by an estimate of the memory the systems take, and evicts the least recently used.
+ * Systems can be generated ahead of time on background threads, see {@link #prefetchAround(StarData)}.
+ * Asking for a system that is being prefetched waits for it, rather than generating it twice.
+ *
+ * Note: the systems are shared, callers should not regenerate or change them.
+ */
+public class StarSystemCache<S> {
+    public static final long DEFAULT_MAX_BYTES = 8L << 20;
+    public static final int DEFAULT_PREFETCH_THREADS = 2;
+    //rough size of a system, and of each object in it, for the memory bound.
+    private static final long SYSTEM_BYTES = 512;
+    private static final long OBJECT_BYTES = 256;
+
+    private static StarSystemCache<BaseStarSystem> INSTANCE;
+    private static StarSystemCache<SimpleStarSystem> SIMPLE_INSTANCE;
+
+    private final LongFunction<S> generator;
+    private final LruCache<Long, S> cache;
+    //systems being prefetched.
+    private final Map<Long, Future<S>> pending = new HashMap<>();
+    private final ExecutorService prefetcher;
+    private long prefetched;
+
+    /**
+     * @param maxBytes The estimated memory the cached systems may take.
+     * @param prefetchThreads Number of background threads for prefetching.
+     * @param generator Generates the system of a seed. Must give the same system for the same seed.
+     * @param sizer The estimated memory a system takes.
+     */
+    public StarSystemCache(long maxBytes, int prefetchThreads, LongFunction<S> generator, ToLongFunction<? super S> sizer) {
+        this.generator = generator;
+        cache = new LruCache<>(maxBytes, sizer);
+        prefetcher = Executors.newFixedThreadPool(Math.max(1, prefetchThreads), task -> {
+            Thread thread = new Thread(task, "star system prefetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return The cache of {@link BaseStarSystem}s, as shown by SystemView.
+     */
+    public static StarSystemCache<BaseStarSystem> getInstance() {
+        synchronized (StarSystemCache.class) {
+            if (INSTANCE == null)
+                INSTANCE = new StarSystemCache<>(DEFAULT_MAX_BYTES, DEFAULT_PREFETCH_THREADS,
+                        StarSystemCache::generate, StarSystemCache::estimateSize);
+            return INSTANCE;
+        }
+    }
+
+    /**
+     * @return The cache of {@link SimpleStarSystem}s, as shown by the star system screen, SwingStarSystem.
+     */
+    public static StarSystemCache<SimpleStarSystem> getSimpleInstance() {
+        synchronized (StarSystemCache.class) {
+            if (SIMPLE_INSTANCE == null)
+                SIMPLE_INSTANCE = new StarSystemCache<>(DEFAULT_MAX_BYTES, DEFAULT_PREFETCH_THREADS,
+                        seed -> SimpleStarSystem.generate(new Random(seed)), SimpleStarSystem::estimateSize);
+            return SIMPLE_INSTANCE;
+        }
+    }
+
+    static long estimateSize(BaseStarSystem system) {
+        return SYSTEM_BYTES + OBJECT_BYTES * system.getAllObjects().length;
+    }
+
+    private static BaseStarSystem generate(long seed) {
+        BaseStarSystem system = BaseStarSystem.makeSystem(seed, SystemTypes.solLike);
+        system.generatePlanets();
+        return system;
+    }
+
+    /**
+     * Gets the system of a star, generating it if it is not cached.
+     * @param seed The seed of the star, see {@link StarData#seed}.
+     * @return The generated system.
+     */
+    public S get(long seed) {
+        Future<S> future;
+        synchronized (this) {
+            S system = cache.get(seed);
+            if (system != null)
+                return system;
+            future = pending.get(seed);
+        }
+        if (future != null) {
+            try {
+                return future.get();
+            } catch (InterruptedException err) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException err) {
+                System.err.println("Prefetching star system " + seed + " failed: " + err.getCause());
+            }
+        }
+        S system = generator.apply(seed);
+        synchronized (this) {
+            cache.put(seed, system);
+        }
+        return system;
+    }
+
+    public S get(StarData star) {
+        return get(star.seed);
+    }
+
+    /**
+     * Generates the system of a star on a background thread, unless it is cached or already being generated.
+     */
+    public synchronized void prefetch(long seed) {
+        if (cache.containsKey(seed) || pending.containsKey(seed))
+            return;
+        //the task cannot finish before it is in pending, as it needs the lock held here.
+        pending.put(seed, prefetcher.submit(() -> {
+            S system = null;
+            try {
+                system = generator.apply(seed);
+                return system;
+            } finally {
+                synchronized (this) {
+                    pending.remove(seed);
+                    if (system != null) {
+                        cache.put(seed, system);
+                        prefetched++;
+                    }
+                }
+            }
+        }));
+    }
+
+    /**
+     * Prefetches the system of a star, and the systems of the stars one hyperlane away.
+     * Called when the ship arrives at a star, so whichever star it goes to next is ready.
+     */
+    public void prefetchAround(StarData star) {
+        prefetch(star.seed);
+        for (StarData neighbor : star.connections)
+            prefetch(neighbor.seed);
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+    /**
+     * @return The estimated memory taken by the cached systems.
+     */
+    public synchronized long getBytes() {
+        return cache.getWeight();
+    }
+    public synchronized long getHits() {
+        return cache.getHits();
+    }
+    public synchronized long getMisses() {
+        return cache.getMisses();
+    }
+    public synchronized long getEvictions() {
+        return cache.getEvictions();
+    }
+    /**
+     * @return The number of systems generated by prefetching.
+     */
+    public synchronized long getPrefetched() {
+        return prefetched;
+    }
+
+    /**
+     * Empties the cache. Systems being prefetched are still added when done.
+     */
+    public synchronized void clear() {
+        cache.clear();
+    }
+}
@@ -0,0 +1,376 @@
+package unicus.spacegame.structures.starsystem;
+
+import unicus.spacegame.save.SaveFormatException;
+import unicus.spacegame.save.SaveReader;
+import unicus.spacegame.save.SaveWriter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * What can be mined in a star system, and how much of it is left.
+ *
+ * Every junk field and planet has a deposit table: an amount of each {@link Resource}, and how easy it is to mine.
+ * The table is generated from the object's seed, its type, size and junk contents, so it is the same every visit.
+ * The tables of a system are generated from the objects the player is shown the first time the system is mined,
+ *  and kept with their depletion for the rest of the game, see {@link #get(long)}.
+ * The depletion is saved with the game, see {@link #writeSave(SaveWriter)}.
+ *
+ * The deposits of a system are held as flat arrays, [deposit * number of resources + resource],
+ *  and a month of mining is one pass over them.
+ * Mining takes a fraction of what is left in each deposit, so the yield falls as a deposit is depleted.
+ * As the fraction is the same every month for the same work, any number of months is computed in one pass,
+ *  see {@link #mine(double, int)}.
+ */
+public class SystemDeposits {
+    private static final Resource[] RESOURCES = Resource.values();
+    private static final int NUM_RESOURCES = RESOURCES.length;
+    //work needed to take about 63% (1 - 1/e) of a deposit with ease 1.0, when all work goes to it.
+    public static final double WORK_PER_DEPLETION = 6000;
+    //mixed with object seeds, so deposits do not follow the object's other random values.
+    private static final long DEPOSIT_SALT = 0x5DEECE66DL;
+
+    //systems mined in this game, in the order they were first mined.
+    private static final Map<Long, SystemDeposits> mined = new LinkedHashMap<>();
+
+    private final long systemSeed;
+    //[deposit]
+    private final long[] objectSeed;
+    private final ObjectType[] objectType;
+    private final double[] ease;
+    //share of the work put on each deposit, by its starting size.
+    private final double[] workShare;
+    //[deposit * NUM_RESOURCES + resource]
+    private final double[] initial, remaining;
+    //[resource]: fractions of units mined, but not yet handed out.
+    private final double[] carry = new double[NUM_RESOURCES];
+
+    private SystemDeposits(long systemSeed, List<? extends BasicSpaceObject> objects) {
+        this.systemSeed = systemSeed;
+        int n = objects.size();
+        objectSeed = new long[n];
+        objectType = new ObjectType[n];
+        ease = new double[n];
+        workShare = new double[n];
+        initial = new double[n * NUM_RESOURCES];
+        double total = 0;
+        double[] size = new double[n];
+        for (int d = 0; d < n; d++) {
+            BasicSpaceObject o = objects.get(d);
+            objectSeed[d] = o.getPlanetSeed();
+            objectType[d] = o.getType();
+            ease[d] = generateTable(o, initial, d * NUM_RESOURCES);
+            for (int r = 0; r < NUM_RESOURCES; r++)
+                size[d] += initial[d * NUM_RESOURCES + r];
+            total += size[d];
+        }
+        for (int d = 0; d < n; d++)
+            workShare[d] = total > 0 ? size[d] / total : 0;
+        remaining = initial.clone();
+    }
+
+    //deposits read from a save-file.
+    private SystemDeposits(long systemSeed, long[] objectSeed, ObjectType[] objectType, double[] ease, double[] workShare,
+                           double[] initial, double[] remaining, double[] carry) {
+        this.systemSeed = systemSeed;
+        this.objectSeed = objectSeed;
+        this.objectType = objectType;
+        this.ease = ease;
+        this.workShare = workShare;
+        this.initial = initial;
+        this.remaining = remaining;
+        System.arraycopy(carry, 0, this.carry, 0, NUM_RESOURCES);
+    }
+
+    /**
+     * Gets the deposits of a system in this game, making them the first time.
+     * Deposits stay depleted for the rest of the game.
+     * @param systemSeed The seed of the system's star.
+     * @param generator Makes fresh deposits of the system, from the objects shown for it, see {@link #of(long, List)}.
+     */
+    public static SystemDeposits get(long systemSeed, Supplier<SystemDeposits> generator) {
+        synchronized (mined) {
+            SystemDeposits deposits = mined.get(systemSeed);
+            if (deposits == null) {
+                deposits = generator.get();
+                mined.put(systemSeed, deposits);
+            }
+            return deposits;
+        }
+    }
+
+    /**
+     * Gets the deposits of a system in this game, making them the first time
+     *  from the belts and rings shown for it, see {@link SimpleStarSystem#makeMinableFields(long)}.
+     * @param systemSeed The seed of the system's star.
+     */
+    public static SystemDeposits get(long systemSeed) {
+        return get(systemSeed, () -> of(systemSeed,
+                StarSystemCache.getSimpleInstance().get(systemSeed).makeMinableFields(systemSeed)));
+    }
+
+    /**
+     * Forgets the depletion of every system, for a new game.
+     */
+    public static void clearAll() {
+        synchronized (mined) {
+            mined.clear();
+        }
+    }
+
+    /**
+     * Makes fresh deposits from the minable objects of a system, not shared with {@link #get(long, Supplier)}.
+     * @param objects The objects of the system. Objects that are not minable are skipped.
+     */
+    public static SystemDeposits of(long systemSeed, List<? extends BasicSpaceObject> objects) {
+        List<BasicSpaceObject> minable = new ArrayList<>();
+        for (BasicSpaceObject o : objects)
+            if (isMinable(o.getType()))
+                minable.add(o);
+        return new SystemDeposits(systemSeed, minable);
+    }
+
+    /**
+     * Makes fresh deposits for a generated system, not shared with {@link #get(long, Supplier)}.
+     */
+    public static SystemDeposits generate(long systemSeed, BaseStarSystem system) {
+        if (!system.isGenerated())
+            system.generatePlanets();
+        return of(systemSeed, List.of(system.getAllObjects()));
+    }
+
+    public static boolean isMinable(ObjectType type) {
+        switch (type) {
+            case JUNK_FIELD:
+            case PLANET:
+            case GAS_PLANET:
+            case LIFE_PLANET:
+            case ROUGE_ASTEROID:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Generates the deposit table of an object.
+     * @param table Receives the amount of each resource, from offset.
+     * @return How easy the object is to mine. 1.0 for loose junk, less for planets deep in their gravity.
+     */
+    static double generateTable(BasicSpaceObject o, double[] table, int offset) {
+        Random r = new Random(o.getPlanetSeed() ^ DEPOSIT_SALT);
+        //size grows the deposits quadratically, from 1 for tiny to 36 for giant.
+        double size = o.getSize().ordinal() * o.getSize().ordinal();
+        switch (o.getType()) {
+            case JUNK_FIELD:
+                JunkContents[] contents = ((SpaceJunkField) o).contents;
+                for (JunkContents c : contents) {
+                    //repeated contents are more common, so each entry adds its share.
+                    double amount = size / contents.length * (0.5 + r.nextDouble());
+                    switch (c) {
+                        case ASTEROIDS:
+                            table[offset + Resource.PARTS.ordinal()] += 40 * amount;
+                            if (r.nextInt(4) == 0)
+                                table[offset + Resource.SHINYIUM.ordinal()] += 3 * amount;
+                            break;
+                        case ICETEROIDS:
+                            table[offset + Resource.WATER.ordinal()] += 60 * amount;
+                            table[offset + Resource.OXYGEN.ordinal()] += 20 * amount;
+                            table[offset + Resource.FUEL.ordinal()] += 10 * amount;
+                            break;
+                        case BASIC_DEBRIS:
+                            table[offset + Resource.PARTS.ordinal()] += 60 * amount;
+                            break;
+                        case ADVANCED_DEBRIS:
+                            table[offset + Resource.PARTS.ordinal()] += 20 * amount;
+                            table[offset + Resource.SHINYIUM.ordinal()] += 15 * amount;
+                            break;
+                        case SATELLITE_SWARM:
+                            table[offset + Resource.PARTS.ordinal()] += 30 * amount;
+                            table[offset + Resource.SHINYIUM.ordinal()] += 5 * amount;
+                            break;
+                    }
+                }
+                return 1.0;
+            case ROUGE_ASTEROID:
+                table[offset + Resource.PARTS.ordinal()] += 30 * size * (0.5 + r.nextDouble());
+                return 0.8;
+            case PLANET:
+                table[offset + Resource.PARTS.ordinal()] += 30 * size * (0.5 + r.nextDouble());
+                if (r.nextInt(3) == 0)
+                    table[offset + Resource.SHINYIUM.ordinal()] += 4 * size * r.nextDouble();
+                if (r.nextBoolean())
+                    table[offset + Resource.WATER.ordinal()] += 15 * size * r.nextDouble();
+                return 0.4;
+            case GAS_PLANET:
+                //skimming the atmosphere for fuel.
+                table[offset + Resource.FUEL.ordinal()] += 80 * size * (0.5 + r.nextDouble());
+                return 0.3;
+            case LIFE_PLANET:
+                table[offset + Resource.WATER.ordinal()] += 40 * size * (0.5 + r.nextDouble());
+                return 0.2;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Mines the system for a number of months, and depletes the deposits.
+     * @param work Work done each month, see {@link unicus.spacegame.crew.AbstractJob#getMonthWorkDone()}.
+     * @param months Number of months, all with the same work.
+     * @return Whole units mined of each resource, by {@link Resource#ordinal()}.
+     *          Fractions of units are kept for the next time the system is mined.
+     */
+    public synchronized int[] mine(double work, int months) {
+        double[] yield = extract(work, months, true);
+        int[] units = new int[NUM_RESOURCES];
+        for (int r = 0; r < NUM_RESOURCES; r++) {
+            double total = yield[r] + carry[r];
+            units[r] = (int) total;
+            carry[r] = total - units[r];
+        }
+        return units;
+    }
+
+    /**
+     * Computes what mining would give, without depleting the deposits.
+     * @return Units of each resource, by {@link Resource#ordinal()}.
+     */
+    public synchronized double[] estimate(double work, int months) {
+        return extract(work, months, false);
+    }
+
+    //One pass over the deposits. Each month takes the same fraction of what is left, so months are an exponent.
+    private double[] extract(double work, int months, boolean deplete) {
+        double[] yield = new double[NUM_RESOURCES];
+        if (work <= 0 || months <= 0)
+            return yield;
+        for (int d = 0; d < ease.length; d++) {
+            double rate = work * workShare[d] * ease[d] / WORK_PER_DEPLETION;
+            double left = Math.exp(-rate * months);
+            for (int r = 0, i = d * NUM_RESOURCES; r < NUM_RESOURCES; r++, i++) {
+                double amount = remaining[i];
+                if (amount <= 0)
+                    continue;
+                yield[r] += amount * (1 - left);
+                if (deplete)
+                    remaining[i] = amount * left;
+            }
+        }
+        return yield;
+    }
+
+    public long getSystemSeed() {
+        return systemSeed;
+    }
+    public int getNumDeposits() {
+        return ease.length;
+    }
+    public long getObjectSeed(int deposit) {
+        return objectSeed[deposit];
+    }
+    public ObjectType getObjectType(int deposit) {
+        return objectType[deposit];
+    }
+
+    public synchronized double getRemaining(int deposit, Resource resource) {
+        return remaining[deposit * NUM_RESOURCES + resource.ordinal()];
+    }
+    public double getInitial(int deposit, Resource resource) {
+        return initial[deposit * NUM_RESOURCES + resource.ordinal()];
+    }
+    /**
+     * @return What is left of a resource in the whole system.
+     */
+    public synchronized double getRemaining(Resource resource) {
+        return sum(remaining, resource);
+    }
+    public double getInitial(Resource resource) {
+        return sum(initial, resource);
+    }
+
+    private static double sum(double[] column, Resource resource) {
+        double total = 0;
+        for (int i = resource.ordinal(); i < column.length; i += NUM_RESOURCES)
+            total += column[i];
+        return total;
+    }
+
+    //#region save
+
+    /**
+     * Writes the deposits of every system mined in this game.
+     * Layout: number of resources and of systems, then for each system:
+     *  its seed, object seeds, object types, ease and share of work by deposit,
+     *  initial and remaining amounts by deposit and resource, and the fractions of units not yet handed out.
+     */
+    public static void writeSave(SaveWriter out) {
+        synchronized (mined) {
+            out.writeInt(NUM_RESOURCES);
+            out.writeInt(mined.size());
+            for (SystemDeposits deposits : mined.values())
+                deposits.write(out);
+        }
+    }
+
+    private synchronized void write(SaveWriter out) {
+        int n = ease.length;
+        out.writeLong(systemSeed);
+        out.writeInt(n);
+        for (long seed : objectSeed)
+            out.writeLong(seed);
+        int[] types = new int[n];
+        for (int d = 0; d < n; d++)
+            types[d] = objectType[d].ordinal();
+        out.writeIntColumn(types);
+        out.writeDoubleColumn(ease);
+        out.writeDoubleColumn(workShare);
+        out.writeDoubleColumn(initial);
+        out.writeDoubleColumn(remaining);
+        out.writeDoubleColumn(carry);
+    }
+
+    /**
+     * Reads the deposits section of a save-file, replacing the deposits of every system.
+     * @throws SaveFormatException If the number of resources does not match, or an object type is unknown.
+     */
+    public static void readSave(SaveReader in) throws SaveFormatException {
+        int numResources = in.readInt();
+        if (numResources != NUM_RESOURCES)
+            throw new SaveFormatException("Save-file has deposits of " + numResources + " resources, expected " + NUM_RESOURCES + ".");
+        int numSystems = in.readInt();
+        Map<Long, SystemDeposits> loaded = new LinkedHashMap<>();
+        ObjectType[] types = ObjectType.values();
+        for (int i = 0; i < numSystems; i++) {
+            long systemSeed = in.readLong();
+            int n = in.readInt();
+            if (n < 0)
+                throw new SaveFormatException("Negative number of deposits in system " + systemSeed + ".");
+            long[] objectSeed = new long[n];
+            for (int d = 0; d < n; d++)
+                objectSeed[d] = in.readLong();
+            int[] typeColumn = in.readIntColumn(n);
+            ObjectType[] objectType = new ObjectType[n];
+            for (int d = 0; d < n; d++) {
+                if (typeColumn[d] < 0 || typeColumn[d] >= types.length)
+                    throw new SaveFormatException("Unknown object type " + typeColumn[d] + " in deposits of system " + systemSeed + ".");
+                objectType[d] = types[typeColumn[d]];
+            }
+            double[] ease = in.readDoubleColumn(n);
+            double[] workShare = in.readDoubleColumn(n);
+            double[] initial = in.readDoubleColumn(n * NUM_RESOURCES);
+            double[] remaining = in.readDoubleColumn(n * NUM_RESOURCES);
+            double[] carry = in.readDoubleColumn(NUM_RESOURCES);
+            loaded.put(systemSeed, new SystemDeposits(systemSeed, objectSeed, objectType, ease, workShare, initial, remaining, carry));
+        }
+        synchronized (mined) {
+            mined.clear();
+            mined.putAll(loaded);
+        }
+    }
+    //#endregion
+}
@@ -0,0 +1,219 @@
+package unicus.spacegame.structures.starsystem;
+
+import unicus.spacegame.Sectormaps;
+import unicus.spacegame.simulation.TickScheduler;
+
+import java.util.Random;
+
+/**
+ * What is in every star system of a galaxy, as columns of counts per system.
+ * Used to balance the economy over the whole galaxy, such as how many systems can be traded with or mined.
+ *
+ * The systems are numbered sector by sector, the same as the stars of a {@link unicus.spacegame.starmap.StarTable}.
+ * A row takes about 45 bytes, so a summary of a million systems fits in memory where the systems themselves would not.
+ *
+ * A star has two systems, made from its seed by different generators, and both are summarized in their own columns:
+ *  the {@link SimpleStarSystem} shown on the star system screen, whose life and belts decide its trade, raid and
+ *  mine buttons, see {@link #getNumLife} and {@link #getNumMinable}, and the {@link BaseStarSystem} of SystemView,
+ *  see {@link #getCount(int, ObjectType)}.
+ */
+public class SystemSummaries {
+    private static final ObjectType[] TYPES = ObjectType.values();
+    private static final JunkContents[] CONTENTS = JunkContents.values();
+
+    private final int[] sectorStart;
+    private final long[] seed;
+    //[type or contents][system]
+    private final short[][] typeCounts;
+    private final short[][] contentCounts;
+    private final int[] fullSize;
+    //counts of the system shown on the star system screen.
+    private final byte[] life;
+    private final byte[] minable;
+    private long nanos;
+
+    private SystemSummaries(int[] sectorStart, long[] seed) {
+        this.sectorStart = sectorStart;
+        this.seed = seed;
+        typeCounts = new short[TYPES.length][seed.length];
+        contentCounts = new short[CONTENTS.length][seed.length];
+        fullSize = new int[seed.length];
+        life = new byte[seed.length];
+        minable = new byte[seed.length];
+    }
+
+    /**
+     * Generates every star system of a galaxy, and summarizes them.
+     * The systems are generated on the scheduler's threads, each one summarized and dropped as soon as it is made,
+     *  so only the systems being worked on are in memory.
+     * The summaries are the same whatever the scheduler, as a system only depends on its seed.
+     *
+     * Note: the stars are read on the calling thread first, so a lazily generated map is visited once, in order.
+     * @param map The galaxy.
+     * @param scheduler The threads to generate on, see {@link TickScheduler#parallel()}.
+     */
+    public static SystemSummaries generate(Sectormaps map, TickScheduler scheduler) {
+        long start = System.nanoTime();
+        int numSectors = map.getNumSubSectors();
+        int[] sectorStart = new int[numSectors + 1];
+        for (int s = 0; s < numSectors; s++)
+            sectorStart[s + 1] = sectorStart[s] + map.getNumStarsBySector(s);
+        long[] seed = new long[sectorStart[numSectors]];
+        for (int s = 0; s < numSectors; s++)
+            for (int i = 0; i < sectorStart[s + 1] - sectorStart[s]; i++)
+                seed[sectorStart[s] + i] = map.getStar(s, i).seed;
+
+        SystemSummaries summaries = new SystemSummaries(sectorStart, seed);
+        scheduler.forEachIndex(seed.length, summaries::summarize);
+        summaries.nanos = System.nanoTime() - start;
+        return summaries;
+    }
+
+    //Compute step: writes only to the row of the system.
+    private void summarize(int system) {
+        SimpleStarSystem shown = SimpleStarSystem.generate(new Random(seed[system]));
+        life[system] = (byte) shown.getNumLife();
+        minable[system] = (byte) shown.getNumMinable();
+
+        BaseStarSystem starSystem = BaseStarSystem.makeSystem(seed[system], SystemTypes.solLike);
+        starSystem.generatePlanets();
+        for (BasicSpaceObject object : starSystem.getAllObjects()) {
+            typeCounts[object.getType().ordinal()][system]++;
+            if (object instanceof SpaceJunkField) {
+                JunkContents[] contents = ((SpaceJunkField) object).contents;
+                //a field counts once for each kind of junk it has, repeated entries only change the odds.
+                for (int c = 0; c < contents.length; c++) {
+                    if (indexOf(contents, contents[c]) == c)
+                        contentCounts[contents[c].ordinal()][system]++;
+                }
+            }
+        }
+        fullSize[system] = starSystem.getCenter().getGeneratedFullSize();
+    }
+
+    private static int indexOf(JunkContents[] contents, JunkContents kind) {
+        for (int i = 0; i < contents.length; i++)
+            if (contents[i] == kind)
+                return i;
+        return -1;
+    }
+
+    public int getNumSystems() {
+        return seed.length;
+    }
+    /**
+     * @return The number of a system, from its star's sector and index in the sector.
+     */
+    public int indexOf(int sector, int index) {
+        return sectorStart[sector] + index;
+    }
+    public long getSeed(int system) {
+        return seed[system];
+    }
+
+    /**
+     * @return The number of objects of a type in a system. The star is counted as one STAR.
+     */
+    public int getCount(int system, ObjectType type) {
+        return typeCounts[type.ordinal()][system];
+    }
+    /**
+     * @return The number of junk fields of a system that have a kind of junk.
+     */
+    public int getCount(int system, JunkContents contents) {
+        return contentCounts[contents.ordinal()][system];
+    }
+    /**
+     * @return The number of planets with life on the star system screen, see {@link SimpleStarSystem#getNumLife()}.
+     */
+    public int getNumLife(int system) {
+        return life[system];
+    }
+    /**
+     * @return The number of belts and rings on the star system screen, see {@link SimpleStarSystem#getNumMinable()}.
+     */
+    public int getNumMinable(int system) {
+        return minable[system];
+    }
+    public int getNumObjects(int system) {
+        int count = 0;
+        for (short[] column : typeCounts)
+            count += column[system];
+        return count;
+    }
+    /**
+     * @return The generated radius of the system, see {@link BasicSpaceObject#getGeneratedFullSize()}.
+     */
+    public int getFullSize(int system) {
+        return fullSize[system];
+    }
+
+    /**
+     * @return The number of objects of a type in the whole galaxy.
+     */
+    public long getTotal(ObjectType type) {
+        return sum(typeCounts[type.ordinal()]);
+    }
+    /**
+     * @return The number of junk fields with a kind of junk in the whole galaxy.
+     */
+    public long getTotal(JunkContents contents) {
+        return sum(contentCounts[contents.ordinal()]);
+    }
+    /**
+     * @return The number of planets with life on the star system screen, in the whole galaxy.
+     */
+    public long getTotalLife() {
+        return sum(life);
+    }
+    /**
+     * @return The number of belts and rings on the star system screen, in the whole galaxy.
+     */
+    public long getTotalMinable() {
+        return sum(minable);
+    }
+    /**
+     * @return The number of systems with at least the given number of objects of a type.
+     */
+    public int countSystems(ObjectType type, int atLeast) {
+        int count = 0;
+        for (short n : typeCounts[type.ordinal()])
+            if (n >= atLeast)
+                count++;
+        return count;
+    }
+
+    private static long sum(short[] column) {
+        long total = 0;
+        for (short n : column)
+            total += n;
+        return total;
+    }
+    private static long sum(byte[] column) {
+        long total = 0;
+        for (byte n : column)
+            total += n;
+        return total;
+    }
+
+    /**
+     * @return The time taken by {@link #generate(Sectormaps, TickScheduler)}, in seconds.
+     */
+    public double getSeconds() {
+        return nanos / 1e9;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%d systems in %.2f s:", getNumSystems(), getSeconds()));
+        sb.append(" shown life ").append(getTotalLife()).append(" minable ").append(getTotalMinable()).append(';');
+        for (ObjectType type : TYPES)
+            if (type != ObjectType.NONE)
+                sb.append(' ').append(type).append(' ').append(getTotal(type));
+        sb.append(';');
+        for (JunkContents contents : CONTENTS)
+            sb.append(' ').append(contents).append(' ').append(getTotal(contents));
+        return sb.toString();
+    }
+}
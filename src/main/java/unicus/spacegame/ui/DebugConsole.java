@@ -12,6 +12,7 @@ import unicus.spacegame.SpaceGame;
 import unicus.spacegame.crew.SpaceCrew;
 import unicus.spacegame.gameevent.GameEvent;
 import unicus.spacegame.crew.*;
+import unicus.spacegame.save.Autosave;
 import unicus.spacegame.spaceship.AbstractShipModule;
 import unicus.spacegame.spaceship.HomeShip;
 
@@ -19,9 +20,12 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.io.UnsupportedEncodingException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 
@@ -52,6 +56,8 @@ public class DebugConsole implements IUpdateable {
     Random random;
 
     CommandDispatcher<Object> dispatcher;
+    //reused by crew queries
+    private final CrewCursor crewCursor = new CrewCursor();
     private static Object dummySender = new Object();
 
     public DebugConsole() {
@@ -79,6 +85,20 @@ public class DebugConsole implements IUpdateable {
         return instance;
     }
 
+    //Set for headless runs, where no console is made. See SpaceGame#startHeadless().
+    private static boolean disabled;
+
+    /**
+     * Stops the game model from making the console, so no Swing components are made.
+     * Checked with {@link #isEnabled()} before adding commands.
+     */
+    public static void disable() {
+        disabled = true;
+    }
+    public static boolean isEnabled() {
+        return !disabled;
+    }
+
     public void addShipCommands() {
         //SpaceCrew crew = SpaceCrew.getInstance();
         HomeShip ship = HomeShip.HS();
@@ -177,6 +197,92 @@ public class DebugConsole implements IUpdateable {
                         return SpaceGame.getGameMonth();
                     })
                 )
+            ).then(
+                literal("simulation").then(
+                    literal("serial").executes(context -> {
+                        SpaceGame.setParallelSimulation(false);
+                        out.println("End of month runs on one thread.");
+                        return 1;
+                    })
+                ).then(
+                    literal("parallel").executes(context -> {
+                        SpaceGame.setParallelSimulation(true);
+                        out.println("End of month runs in parallel.");
+                        return 1;
+                    })
+                )
+            ).then(
+                literal("save").then(
+                    argument("file", StringArgumentType.greedyString()).executes(context -> {
+                        Path file = Paths.get(context.getArgument("file", String.class));
+                        try {
+                            SpaceGame.saveGame(file);
+                        } catch (IOException err) {
+                            out.println("Could not save to " + file + ": " + err.getMessage());
+                            return 0;
+                        }
+                        out.println("Saved the game to " + file);
+                        return 1;
+                    })
+                )
+            ).then(
+                literal("load").then(
+                    argument("file", StringArgumentType.greedyString()).executes(context -> {
+                        Path file = Paths.get(context.getArgument("file", String.class));
+                        try {
+                            SpaceGame.loadGame(file);
+                        } catch (IOException err) {
+                            out.println("Could not load " + file + ": " + err.getMessage());
+                            return 0;
+                        }
+                        out.println("Loaded " + file + ", " + SpaceGame.getDate());
+                        return 1;
+                    })
+                )
+            ).then(
+                literal("autosave").then(
+                    literal("stop").executes(context -> {
+                        try {
+                            Autosave.stop();
+                        } catch (IOException err) {
+                            out.println("Could not close the autosave: " + err.getMessage());
+                            return 0;
+                        }
+                        out.println("Stopped autosaving.");
+                        return 1;
+                    })
+                ).then(
+                    argument("snapshot_interval", integer(1)).then(
+                        argument("directory", StringArgumentType.greedyString()).executes(context -> {
+                            int interval = context.getArgument("snapshot_interval", int.class);
+                            Path directory = Paths.get(context.getArgument("directory", String.class));
+                            try {
+                                Autosave.start(directory, interval);
+                            } catch (IOException err) {
+                                out.println("Could not autosave to " + directory + ": " + err.getMessage());
+                                return 0;
+                            }
+                            out.println("Autosaving to " + directory + ", with a snapshot every " + interval + " months.");
+                            return 1;
+                        })
+                    )
+                )
+            ).then(
+                literal("recover").then(
+                    argument("directory", StringArgumentType.greedyString()).executes(context -> {
+                        Path directory = Paths.get(context.getArgument("directory", String.class));
+                        int replayed;
+                        try {
+                            Autosave.stop();
+                            replayed = Autosave.recover(directory);
+                        } catch (IOException err) {
+                            out.println("Could not recover " + directory + ": " + err.getMessage());
+                            return 0;
+                        }
+                        out.println("Recovered " + directory + ", replayed " + replayed + " months, " + SpaceGame.getDate());
+                        return 1;
+                    })
+                )
             )
         );
     }
@@ -245,19 +351,11 @@ public class DebugConsole implements IUpdateable {
                     )
                 ).then(
                     literal("unemployed").executes(
-                        context -> {
-                            AbleCrewman[] crewlist = SpaceCrew.SC().getUnemployed();
-                            String separator = "\n--------------\n";
-                            StringBuffer text = new StringBuffer();
-                            text.append(separator);
-                            for (AbstractCrewman c : crewlist) {
-                                c.toString(text);
-                                text.append(separator);
-                            }
-                            out.print(text);
-                            return crewlist.length;
-                        }
-
+                        context -> printCrew(SpaceCrew.SC().queryUnemployed(crewCursor))
+                    )
+                ).then(
+                    literal("homeless").executes(
+                        context -> printCrew(SpaceCrew.SC().queryHomeless(crewCursor))
                     )
                 ).then(
                     argument("crewID", integer()).executes(
@@ -394,6 +492,20 @@ public class DebugConsole implements IUpdateable {
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
     }
 
+    private int printCrew(CrewCursor cursor) {
+        String separator = "\n--------------\n";
+        StringBuffer text = new StringBuffer();
+        text.append(separator);
+        int count = 0;
+        while (cursor.next()) {
+            cursor.crewman().toString(text);
+            text.append(separator);
+            count++;
+        }
+        out.print(text);
+        return count;
+    }
+
     private ShipLocArgument shipLocArgument(){
         return new ShipLocArgument(HomeShip.HS());
     }
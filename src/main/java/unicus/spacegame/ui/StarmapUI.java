@@ -2,20 +2,22 @@ package unicus.spacegame.ui;
 
 import unicus.spacegame.Sectormaps;
 import unicus.spacegame.StarData;
+import unicus.spacegame.starmap.HyperlaneRoutes;
+import unicus.spacegame.starmap.StarIndex;
 
 import javax.swing.*;
 import javax.swing.event.EventListenerList;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.util.ArrayList;
+import java.awt.event.MouseWheelEvent;
 
 /**
  * StarmapUI acts as a wrapper for Sectormap.
  * The following features are added here:
  * srollbars
- * tooltip box (todo)
- * clickable stars (todo)
+ * tooltip box
+ * clickable stars
  * location of spaceship (todo, temporary)
  *      (spaceship spawns at first star)
  */
@@ -23,9 +25,14 @@ public class StarmapUI extends JPanel {
     Sectormaps map;
     JScrollPane scrollPane;
     Point mousePoint;
-    ArrayList<StarTarget> starTargets;
+    //finds the star under the mouse.
+    StarIndex starIndex;
 
     JButton toggleGrid;
+    JButton zoomIn, zoomOut;
+    static final double ZOOM_STEP = 1.25;
+    //most stars searched for the jumps to the star under the mouse, so the tooltip never waits on a large map.
+    static final int TOOLTIP_ROUTE_STARS = 2000;
 
 
     public StarmapUI(long seed){
@@ -42,41 +49,56 @@ public class StarmapUI extends JPanel {
         MouseAdapter ma = new MouseAdapter(){
             @Override
             public void mouseMoved(MouseEvent e) {
-                mousePoint.x = e.getX();
-                mousePoint.y = e.getY();
-                //todo: check if on a star, if so, show a tooltip.
+                mousePoint = map.toMapPoint(e.getPoint());
+                StarData d = getStarAt(mousePoint);
+                map.setToolTipText(d == null ? null : getStarTooltip(d));
             }
             @Override
             public void mouseClicked(MouseEvent e) {
-                for (StarTarget st : starTargets){
-                    if(st.contains(mousePoint)) {
-                        StarData d = map.getStar(st.subSector, st.index);
-                        //System.out.println("Found star! : x " + d[0] +" y "+ d[1] +" seed "+ d[2]);
-                        fireStarTravel(d, st.subSector, st.index);
-                        return;
-                    }
+                mousePoint = map.toMapPoint(e.getPoint());
+                //zoomed out, a click zooms in on the sector.
+                if(map.isSectorView()) {
+                    setZoom(1, mousePoint);
+                    return;
+                }
+                StarData d = getStarAt(mousePoint);
+                if(d != null) {
+                    fireStarTravel(d, d.subsector, d.index);
+                    return;
                 }
                 System.out.println("No star found. :(");
             }
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                if(!e.isControlDown()) {
+                    //scroll as usual.
+                    scrollPane.dispatchEvent(SwingUtilities.convertMouseEvent(map, e, scrollPane));
+                    return;
+                }
+                setZoom(map.getZoom() * Math.pow(ZOOM_STEP, -e.getPreciseWheelRotation()), map.toMapPoint(e.getPoint()));
+            }
         };
         map.addMouseListener(ma);
         map.addMouseMotionListener(ma);
+        map.addMouseWheelListener(ma);
 
         toggleGrid.addActionListener(arg0 -> {
             map.toggleGrid();
         });
+        zoomIn = new JButton("+");
+        zoomOut = new JButton("-");
+        zoomIn.addActionListener(arg0 -> zoomCentre(ZOOM_STEP));
+        zoomOut.addActionListener(arg0 -> zoomCentre(1 / ZOOM_STEP));
 
-        //sets clickable zones for stars
-        starTargets = new ArrayList<StarTarget>();
-        for(int i = 0; i < map.getNumSubSectors(); i++){
-            for(int j = 0; j < map.getNumStarsBySector(i); j++){
-                starTargets.add(new StarTarget(i, j));
-            }
-        }
+        starIndex = new StarIndex(map);
 
 
         this.add(scrollPane);
-        this.add(toggleGrid);
+        JPanel buttons = new JPanel();
+        buttons.add(toggleGrid);
+        buttons.add(zoomOut);
+        buttons.add(zoomIn);
+        this.add(buttons);
         scrollPane.setBounds(0, 50, 200, 200);
         toggleGrid.setBounds(0, 0, 75, 50);
 
@@ -86,6 +108,52 @@ public class StarmapUI extends JPanel {
     public Sectormaps getMap(){
         return map;
     }
+
+    /**
+     * Gets the star under a point of the map.
+     * A star can be clicked within a star's size of its centre.
+     * @return The star, or null if there is none.
+     */
+    public StarData getStarAt(Point p) {
+        if(map.isSectorView())
+            return null;
+        return starIndex.nearest(p.x, p.y, map.getStarsize());
+    }
+
+    /**
+     * Zooms the map, keeping a point of the map where it is in the view.
+     * @param zoom The new zoom, see {@link Sectormaps#setZoom(double)}.
+     * @param focus The point to keep in place, in map units.
+     */
+    public void setZoom(double zoom, Point focus) {
+        JViewport viewport = scrollPane.getViewport();
+        Point view = viewport.getViewPosition();
+        //where the focus is within the view, in pixels.
+        int offsetX = (int) Math.round(focus.x * map.getZoom()) - view.x;
+        int offsetY = (int) Math.round(focus.y * map.getZoom()) - view.y;
+        map.setZoom(zoom);
+        viewport.doLayout();
+        viewport.setViewSize(map.getPreferredSize());
+        viewport.setViewPosition(new Point(
+                Math.max(0, (int) Math.round(focus.x * map.getZoom()) - offsetX),
+                Math.max(0, (int) Math.round(focus.y * map.getZoom()) - offsetY)));
+        map.setToolTipText(null);
+    }
+
+    private String getStarTooltip(StarData star) {
+        String text = "Star " + star.subsector + "-" + star.index;
+        StarData ship = map.getShipLocation();
+        if (ship == null || ship.equals(star))
+            return text;
+        int jumps = HyperlaneRoutes.findJumps(map, ship, star, TOOLTIP_ROUTE_STARS);
+        return text + (jumps < 0 ? ", no route nearby" : ", " + jumps + " jumps");
+    }
+
+    private void zoomCentre(double factor) {
+        Rectangle view = scrollPane.getViewport().getViewRect();
+        setZoom(map.getZoom() * factor, map.toMapPoint(new Point(view.x + view.width / 2, view.y + view.height / 2)));
+    }
+
     //Event system based on tutorial https://www.javaworld.com/article/2077351/events-and-listeners.html
     private EventListenerList StarEventListeners = new EventListenerList();
     public void AddStarListener(StarEventListener listener)    {
@@ -107,24 +175,6 @@ public class StarmapUI extends JPanel {
             }
         }
     }
-    class StarTarget{
-        Rectangle rect;
-        int subSector;
-        int index;
-
-        public StarTarget(int subSector, int index) {
-            this.subSector = subSector;
-            this.index = index;
-
-            Point p = map.getStarPoint(subSector, index);
-            int s = map.getStarsize() * 2;
-            rect = new Rectangle(p.x-s/2, p.y-s/2, s, s);
-        }
-        public boolean contains(Point p){
-            return rect.contains(p);
-        }
-    }
-
     public static void main(String[] args) {
         JFrame frame = new JFrame("starmap UI test");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
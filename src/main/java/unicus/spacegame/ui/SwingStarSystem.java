@@ -12,7 +12,10 @@ import java.util.List;
 import java.util.Random;
 
 import unicus.spacegame.StarData;
-import unicus.spacegame.utilities.NameGenerator;
+import unicus.spacegame.spaceship.MiningJob;
+import unicus.spacegame.structures.starsystem.SimpleStarSystem;
+import unicus.spacegame.structures.starsystem.StarSystemCache;
+import unicus.spacegame.structures.starsystem.SystemDeposits;
 
 import static java.lang.System.out;
 import static unicus.spacegame.utilities.Constants.*;
@@ -41,6 +44,8 @@ public class SwingStarSystem extends JLayeredPane implements ActionListener {
     JButton btnDoMine;
 
     JLabel systemNameText;
+    //the star shown, for mining its deposits. Null for a random system.
+    StarData currentStar;
 
     String systemName;
 
@@ -110,6 +115,7 @@ public class SwingStarSystem extends JLayeredPane implements ActionListener {
         Random rand = new Random();
 
         if (source == btnNewSystem){
+            currentStar = null;
             newPlanets(rand);
         }
         else if (source == btnDoTrade){
@@ -119,7 +125,20 @@ public class SwingStarSystem extends JLayeredPane implements ActionListener {
             out.println("You do some raiding");
         }
         else if (source == btnDoMine){
-            out.println("You do some mining");
+            if (currentStar == null) {
+                out.println("You do some mining");
+                return;
+            }
+            //the crew assigned to the job mines at the end of each month.
+            MiningJob job = MiningJob.find(currentStar.seed);
+            if (job == null) {
+                job = MiningJob.start(currentStar.seed);
+                out.println("Mining job " + job.getKeyID() + " started, assign crew to it to mine " + systemName);
+            } else {
+                job.stop();
+                out.println("Mining job " + job.getKeyID() + " stopped");
+            }
+            setButtonsActive();
         }
 
     }
@@ -127,12 +146,26 @@ public class SwingStarSystem extends JLayeredPane implements ActionListener {
         btnDoTrade.setEnabled(GetNumLife() >= 1);
         btnDoRaid.setEnabled(GetNumLife() >= 2);
         btnDoMine.setEnabled(GetNumMinable() >= 1);
+        boolean mining = currentStar != null && MiningJob.find(currentStar.seed) != null;
+        btnDoMine.setText(mining ? "Stop mining" : "Mine asteroids");
     }
 
     public void setStar(StarData currentStar) {
-        //Generates a starsystem from seed.
-        Random r = new Random(currentStar.seed);
-        newPlanets(r);
+        this.currentStar = currentStar;
+        //The system is generated from seed, or was already when the ship arrived, see Sectormaps.setShipLocation.
+        showSystem(StarSystemCache.getSimpleInstance().get(currentStar));
+    }
+
+    /**
+     * Gets the deposits of the system shown, made from its asteroid belts and rings the first time it is mined.
+     * These are the objects counted by GetNumMinable, so the system can be mined if the mine button is enabled.
+     * They are mined by the system's {@link MiningJob}, started and stopped with the mine button.
+     * @return The deposits, shared for the rest of the game, or null for a random system.
+     */
+    public SystemDeposits getDeposits() {
+        if (currentStar == null)
+            return null;
+        return SystemDeposits.get(currentStar.seed);
     }
 
     /**
@@ -165,126 +198,43 @@ public class SwingStarSystem extends JLayeredPane implements ActionListener {
      * @param rand The random number generator to use.
      */
     public void newPlanets(Random rand){
+        showSystem(SimpleStarSystem.generate(rand));
+    }
 
-        //asteroid belts count as 'planet' in this limit
-        int maxPlanets = 10; //The system's number of planets will number
-        int minPlanets = 1;  //     between this minimum and maximum.
-        int maxMoons = 1; //A asteroid ring counts as a moon in this list
-        int maxLife = 2; //Maximum number of planets that may have life on them.
-        int maxBelts = 3; //maximum number of asteroid belts in the system
-
-
-        //setting constants for odds of a planet
-        float planetHasMoon = 0.2f;
-        float planetHasRing = 0.2f;
-        //note: planet cannot have both a moon and a belt.
-        //If a planet rolls a moon, the roll for a belt is ignored.
-        float planetIsAsteroidbelt = 0.1f;
-        float planetHasLife = 0.3f;
-
-        ArrayList<Base_Planet> newPlanetsList = new ArrayList<Base_Planet>();
-
-        // - Generate star
-        Star star = new Star(randomPlanetColor(rand, PlanetType.star), 40);
-        newPlanetsList.add(star);
-
-        // - generate planets
-       int numPlanets = rand.nextInt(maxPlanets - minPlanets) + minPlanets;
-       int nextSafeOrbit = 70;
-
-       int lifeCreated = 0;
-       int beltsCreated = 0;
-
-       for(int i = 0; i < numPlanets; i++) {
-           int orbitD = rand.nextInt(20) + nextSafeOrbit;
-           boolean isABelt = rand.nextFloat() < planetIsAsteroidbelt;
-
-           // - Asteroidbelt
-           if (isABelt && beltsCreated < maxBelts) {
-               Asteroidbelt belt = new Asteroidbelt(orbitD + 10, star);
-               nextSafeOrbit = orbitD + 50;
-               newPlanetsList.add(belt);
-               beltsCreated++;
-               continue;
-           }
-           boolean hasLife = rand.nextFloat() < planetHasLife;
-           PlanetType type = PlanetType.dead;
-
-           // - Planet with life
-           if (hasLife && lifeCreated < maxLife) {
-               type = PlanetType.life;
-               lifeCreated++;
-           }
-           int size = rand.nextInt(20) + 5;
-           float orbitR = rand.nextFloat() * TAUf;
-           Planet planet = new Planet(type, randomPlanetColor(rand, type), size, orbitD, orbitR, star);
-           newPlanetsList.add(planet);
-           nextSafeOrbit = orbitD + size + 10;
-
-           // - Creating moons
-           float m_orbitR = rand.nextFloat() * TAUf;
-           int m_size = Math.min(rand.nextInt(10) + 2, (int) (size * 0.6));
-           int m_orbitD = size + m_size + rand.nextInt(5);
-
-           boolean hasRing = rand.nextFloat() < planetHasRing;
-           if (hasRing && beltsCreated < maxBelts) {
-               //counting the rings as asteroidbelts.
-               Asteroidbelt belt = Asteroidbelt.MakeRing(m_orbitD, planet);
-               nextSafeOrbit += 10;
-               newPlanetsList.add(belt);
-               beltsCreated++;
-           }
-           //currently limited to just 1 moon.
-           boolean hasMoon = rand.nextFloat() < planetHasMoon;
-           if (hasMoon) {
-               boolean m_hasLife = rand.nextFloat() < planetHasLife;
-               PlanetType m_type = PlanetType.dead;
-
-               // - Moon with life
-               if (hasLife && lifeCreated < maxLife) {
-                   type = PlanetType.life;
-                   lifeCreated++;
-               }
-               Planet moon = new Planet(m_type, randomPlanetColor(rand, m_type), m_size, m_orbitD, m_orbitR, planet);
-               //regarding above declaration, does anyone else Della Duck's theme playing in the background? (joke)
-               newPlanetsList.add(moon);
-               nextSafeOrbit += 15;
-           }
-       }
-       planets = newPlanetsList.toArray(new Base_Planet[newPlanetsList.size()]);
-
-       systemName = NameGenerator.makeWord("CVV VCVV", rand).toUpperCase();
-       systemNameText.setText(systemName);
-       setButtonsActive();
-       repaint();
-    }
-    private Color randomPlanetColor(Random rand, PlanetType type) {
-        float[] hsb = {rand.nextFloat(), rand.nextFloat(), rand.nextFloat()};
-        return randomPlanetColor(hsb, type);
-    }
-    private Color randomPlanetColor(float[] hsb, PlanetType type) {
-        float h = hsb[0];
-        float s = hsb[1];
-        float b = hsb[2];
-        switch (type) {
-            case dead:
-                s = s / 10; //low saturation on dead planets
-                b = b / 10 + 0.9f; //dead planets are very bight
-                break;
-            case life:
-                h = h / 6f - 1/6 + 0.48f;//planets with life has a hue near cyan
-                s = s / 10 + 0.6f; //planets with life are moderately saturated.
-                b = b / 2 + 0.4f; //planets with life are a bit shaded
-                break;
-            case star:
-                s = 1; //stars are always fully saturated.
-                b = b / 10 + 0.9f; //Stars are always very bright.
-                break;
-            default:
-                break;
+    /**
+     * Shows a generated star system.
+     * The objects are listed in the same order as in the system, so their parents come before them.
+     */
+    private void showSystem(SimpleStarSystem system) {
+        Base_Planet[] newPlanets = new Base_Planet[system.getNumObjects()];
+        for (int i = 0; i < newPlanets.length; i++) {
+            int parent = system.getParent(i);
+            Color color = new Color(system.getColor(i));
+            switch (system.getKind(i)) {
+                case STAR:
+                    newPlanets[i] = new Star(color, system.getSize(i));
+                    break;
+                case BELT:
+                    newPlanets[i] = system.isRing(i)
+                            ? Asteroidbelt.MakeRing(system.getOrbitDistance(i), newPlanets[parent])
+                            : new Asteroidbelt(system.getOrbitDistance(i), newPlanets[parent]);
+                    break;
+                case LIFE:
+                    newPlanets[i] = new Planet(PlanetType.life, color, system.getSize(i),
+                            system.getOrbitDistance(i), system.getOrbitRotation(i), newPlanets[parent]);
+                    break;
+                default:
+                    newPlanets[i] = new Planet(PlanetType.dead, color, system.getSize(i),
+                            system.getOrbitDistance(i), system.getOrbitRotation(i), newPlanets[parent]);
+                    break;
+            }
         }
-        final Color hsbColor = Color.getHSBColor(h, s, b);
-        return hsbColor;
+        planets = newPlanets;
+
+        systemName = system.getName();
+        systemNameText.setText(systemName);
+        setButtonsActive();
+        repaint();
     }
 
     public int GetNumLife()
@@ -374,6 +324,7 @@ class Asteroidbelt extends Base_Planet {
     int minsize = 2;
     int count = 20;
     int noise = 20; //random offset in x and y, applied on each asteroid
+    private int[] particles; //cached asteroids, see makeParticles.
 
     public Asteroidbelt(int orbitDistance, Base_Planet parent) {
         super(PlanetType.asteroidbelt, parent);
@@ -402,22 +353,34 @@ class Asteroidbelt extends Base_Planet {
 
     @Override
     public void PaintPlanet(Graphics g, Rectangle rect){
-        Random localRand = new Random(0); //A seed MUST be set, if to maintain consistency.
+        if(particles == null)
+            particles = makeParticles();
         Color color = Color.LIGHT_GRAY;
 
         g.setColor(color);
 
+        Point p = parent.GetPoint(rect);
         for(int i = 0; i < count; i++){
-            Point p2 = parent.GetPoint(rect);
-            double rot = TAU * i / count;
+            int aSize = particles[i*3 + 2];
+            g.fillRect(p.x + particles[i*3] - aSize, p.y + particles[i*3 + 1] - aSize, aSize, aSize);
+        }
 
-            p2.x += (int) (Math.cos(rot) * orbitDistance) - noise/2 + localRand.nextInt(noise);
-            p2.y += (int) (Math.sin(rot) * orbitDistance) - noise/2 + localRand.nextInt(noise);
-            int aSize = localRand.nextInt(maxsize-minsize) + minsize;
+    }
 
-            g.fillRect(p2.x - aSize, p2.y - aSize, aSize, aSize);
+    /**
+     * The asteroids only depend on the belt, so their offsets from the parent are computed once.
+     * @return x offset, y offset and size of each asteroid.
+     */
+    private int[] makeParticles() {
+        Random localRand = new Random(0); //A seed MUST be set, if to maintain consistency.
+        int[] result = new int[count * 3];
+        for(int i = 0; i < count; i++){
+            double rot = TAU * i / count;
+            result[i*3] = (int) (Math.cos(rot) * orbitDistance) - noise/2 + localRand.nextInt(noise);
+            result[i*3 + 1] = (int) (Math.sin(rot) * orbitDistance) - noise/2 + localRand.nextInt(noise);
+            result[i*3 + 2] = localRand.nextInt(maxsize-minsize) + minsize;
         }
-
+        return result;
     }
 
     @Override
@@ -5,6 +5,7 @@ import unicus.spacegame.structures.starsystem.JunkFieldShape;
 import unicus.spacegame.structures.starsystem.SpaceJunkField;
 
 import java.awt.*;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 
 import static unicus.spacegame.utilities.Constants.TAUf;
@@ -15,16 +16,23 @@ public class JunkFieldView extends SpaceObjectView {
     private SpaceJunkField object;
     private float rotationMax = 0;
     private float rotationMin = 0;
-    private Stroke drawStroke;
+    //particles are made on the first paint, and drawn through frame, see paintObject.
+    private JunkFieldParticles particles;
+    private BufferedImage frame;
+    //the part of frame drawn in the last paint.
+    private int frameWidth, frameHeight;
+    private float scale;
+    private float rotation;
     JunkFieldView(SpaceJunkField object) {
         super(object);
         this.object = object;
-        drawStroke = new BasicStroke(1);
     }
 
     @Override
-    public void update(float scale, Point offset) {
-        super.update(scale, offset);
+    protected void update(float scale, Point offset, double x, double y, double parentX, double parentY, float rotation) {
+        super.update(scale, offset, x, y, parentX, parentY, rotation);
+        this.scale = scale;
+        this.rotation = rotation;
 
         switch (object.getFieldShape()) {
             case BELT:
@@ -32,16 +40,16 @@ public class JunkFieldView extends SpaceObjectView {
                 rotationMin = 0;
                 break;
             case CLUSTER:
-                rotationMax = object.getRadianLength()/2 + object.getOrbitRotation();
-                rotationMin = -object.getRadianLength()/2 + object.getOrbitRotation();
+                rotationMax = object.getRadianLength()/2 + rotation;
+                rotationMin = -object.getRadianLength()/2 + rotation;
                 break;
             case CLOCKWISE_TAIL:
-                rotationMax = object.getRadianLength() + object.getOrbitRotation();
-                rotationMin = object.getOrbitRotation();
+                rotationMax = object.getRadianLength() + rotation;
+                rotationMin = rotation;
                 break;
             case COUNTER_CLOCKWISE_TAIL:
-                rotationMax = object.getOrbitRotation();
-                rotationMin = -object.getRadianLength() + object.getOrbitRotation();
+                rotationMax = rotation;
+                rotationMin = -object.getRadianLength() + rotation;
                 break;
         }
         //wraparound rotation radian range
@@ -72,9 +80,27 @@ public class JunkFieldView extends SpaceObjectView {
         rect.height = (int) ((highestY - lowestY)*scale);
         rect.x = (int)((lowestX + offset.x)*scale);
         rect.y = (int)((lowestY + offset.y)*scale);
+    }
 
-        int strokeWidth = (int) Math.max(object.getLocalSize() * scale, 6);
-        drawStroke = new BasicStroke(strokeWidth,BasicStroke.CAP_ROUND,BasicStroke.JOIN_ROUND,10);
+    JunkFieldShape getFieldShape() {
+        return object.getFieldShape();
+    }
+    JunkFieldParticles getParticles() {
+        if (particles == null)
+            particles = new JunkFieldParticles(object);
+        return particles;
+    }
+    /**
+     * @return The scale of the last update.
+     */
+    float getScale() {
+        return scale;
+    }
+    /**
+     * @return Where the particles are centered in panel-space: the parent, or the field itself if it is a root.
+     */
+    Point getParticleCenter() {
+        return object.isRoot() ? location : pLocation;
     }
 
     @Override
@@ -111,18 +137,23 @@ public class JunkFieldView extends SpaceObjectView {
 
     @Override
     public void paintObject(Graphics2D g) {
-        //super.paintObject(g);
-        g.setStroke(drawStroke);
-        //g.setColor(planetTint);
-        g.setColor(Color.white);
-        if(object.getFieldShape() == JunkFieldShape.BELT) {
-            g.drawOval(pLocation.x-orbitRad, pLocation.y-orbitRad, orbitRad*2, orbitRad*2);
+        JunkFieldParticles p = getParticles();
+        Point center = getParticleCenter();
+        //the particles are drawn into the corner of an image the size of the field, kept for the next frame.
+        //it only grows, and only the part drawn last time is cleared.
+        Rectangle bounds = p.getBounds(center.x, center.y, scale, rotation);
+        if (frame == null || frame.getWidth() < bounds.width || frame.getHeight() < bounds.height) {
+            int w = Math.max(bounds.width, frame == null ? 0 : frame.getWidth());
+            int h = Math.max(bounds.height, frame == null ? 0 : frame.getHeight());
+            frame = JunkFieldParticles.makeImage(w, h);
         } else {
-            int startAngle = (int) Math.toDegrees(rotationMin);
-            int arcAngle   = (int) Math.toDegrees(Math.abs(rotationMax - rotationMin));
-            g.drawArc(pLocation.x-orbitRad, pLocation.y-orbitRad, orbitRad*2, orbitRad*2, startAngle, arcAngle);
+            JunkFieldParticles.clear(frame, frameWidth, frameHeight);
         }
-        g.setStroke(new BasicStroke(1));
+        frameWidth = bounds.width;
+        frameHeight = bounds.height;
+        p.paint(frame, center.x - bounds.x, center.y - bounds.y, scale, rotation);
+        g.drawImage(frame, bounds.x, bounds.y, bounds.x + bounds.width, bounds.y + bounds.height,
+                0, 0, bounds.width, bounds.height, null);
     }
 
     @Override
@@ -1,11 +1,17 @@
 package unicus.spacegame.ui.System;
 
 import unicus.spacegame.structures.starsystem.BasicSpaceObject;
+import unicus.spacegame.structures.starsystem.OrbitalMotion;
 import unicus.spacegame.structures.starsystem.SpaceJunkField;
 
 import java.awt.*;
 
 public class SpaceObjectView {
+    private static final Color LIFE_ORBIT = new Color(0,70,0);
+    private static final Color LIFE_TINT = new Color(0,170,0);
+    private static final Color JUNK_ORBIT = new Color(0,0,200);
+    private static final Color JUNK_TINT = new Color(50, 50,200);
+
     private BasicSpaceObject object;
     protected Rectangle rect;
     protected Point location; //location in panel(screen)-space
@@ -21,12 +27,12 @@ public class SpaceObjectView {
         pLocation = new Point();
         switch(object.getType()){
             case LIFE_PLANET:
-                orbitColor = new Color(0,70,0);
-                planetTint = new Color(0,170,0);
+                orbitColor = LIFE_ORBIT;
+                planetTint = LIFE_TINT;
                 break;
             case JUNK_FIELD:
-                orbitColor = new Color(0,0,200);
-                planetTint = new Color(50, 50,200);
+                orbitColor = JUNK_ORBIT;
+                planetTint = JUNK_TINT;
                 break;
             default:
                 orbitColor = Color.gray;
@@ -52,17 +58,44 @@ public class SpaceObjectView {
 
     }
 
+    BasicSpaceObject getObject() {
+        return object;
+    }
+
     public boolean contains(Point p) {
         return rect.contains(p);
     }
 
     public void update(float scale, Point offset) {
+        Point l = object.getGeneratedLocation();
+        Point p = object.getParentLocation();
+        update(scale, offset, l.x, l.y, p.x, p.y, object.getOrbitRotation());
+    }
+
+    /**
+     * Updates the view to where the object is at the current time of an orbital motion.
+     * @param motion The motion of the system.
+     * @param i The index of this view's object in the motion.
+     */
+    public void update(float scale, Point offset, OrbitalMotion motion, int i) {
+        update(scale, offset, motion.getX(i), motion.getY(i), motion.getParentX(i), motion.getParentY(i), (float) motion.getAngle(i));
+    }
+
+    /**
+     * Updates the rects and locations in panel-space.
+     * @param x world location of the object.
+     * @param y world location of the object.
+     * @param parentX world location of the object's parent.
+     * @param parentY world location of the object's parent.
+     * @param rotation angle of the object around its parent.
+     */
+    protected void update(float scale, Point offset, double x, double y, double parentX, double parentY, float rotation) {
         int localSize = (int) (object.getLocalSize() * scale);
-        location.x = (int)((offset.x + object.getGeneratedLocation().x)*scale);
-        location.y = (int)((offset.y + object.getGeneratedLocation().y)*scale);
+        location.x = (int)((offset.x + x)*scale);
+        location.y = (int)((offset.y + y)*scale);
 
-        pLocation.x = (int)((offset.x + object.getParentLocation().x)*scale);
-        pLocation.y = (int)((offset.y + object.getParentLocation().y)*scale);
+        pLocation.x = (int)((offset.x + parentX)*scale);
+        pLocation.y = (int)((offset.y + parentY)*scale);
 
         rect.x = location.x - localSize/2;
         rect.y = location.y - localSize/2;
@@ -0,0 +1,201 @@
+package unicus.spacegame.ui.System;
+
+import unicus.spacegame.structures.starsystem.BasicSpaceObject;
+import unicus.spacegame.structures.starsystem.JunkFieldShape;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pre-rendered images of a star system at one scale, so a repaint is only image copies.
+ *
+ * What never moves, the orbits and belts around the center, is drawn once into two layers the size of the view.
+ * Everything else, planet discs and the orbits and belts around moving planets,
+ *  is drawn once into a sprite atlas: a single image with every sprite packed in rows.
+ * On repaint each sprite is copied from the atlas to where its object or parent is now.
+ *
+ * Made by {@link SystemView} when the system or the size of the view changes, and dropped with the old scale.
+ * Objects with no sprite, such as junk fields that are not belts, are painted by their views as before.
+ * Belts are drawn with their {@link JunkFieldParticles}.
+ */
+class SystemSprites {
+    //widest atlas, wider sprites get a row of their own.
+    private static final int ATLAS_WIDTH = 1024;
+
+    /**
+     * A part of the atlas, and where it is drawn relative to its object or the object's parent.
+     */
+    private static class Sprite {
+        int x, y;
+        final int width, height;
+        //position of the object (or parent) in the sprite.
+        final int anchorX, anchorY;
+        final boolean atParent;
+
+        Sprite(int width, int height, int anchorX, int anchorY, boolean atParent) {
+            this.width = width;
+            this.height = height;
+            this.anchorX = anchorX;
+            this.anchorY = anchorY;
+            this.atParent = atParent;
+        }
+
+        void paint(Graphics2D g, BufferedImage atlas, SpaceObjectView view) {
+            Point p = atParent ? view.pLocation : view.location;
+            int dx = p.x - anchorX, dy = p.y - anchorY;
+            g.drawImage(atlas, dx, dy, dx + width, dy + height, x, y, x + width, y + height, null);
+        }
+    }
+
+    private final SpaceObjectView[] views;
+    private final BufferedImage orbitLayer, beltLayer;
+    private final BufferedImage atlas;
+    //[view]: its sprites, or null if drawn in a layer or by the view itself.
+    private final Sprite[] orbits, bodies;
+    private final boolean[] layeredOrbit, layeredBody;
+
+    /**
+     * Draws the sprites and layers for views that are updated to the scale they will be painted at.
+     * @param width Width of the system view.
+     * @param height Height of the system view.
+     */
+    SystemSprites(SpaceObjectView[] views, int width, int height) {
+        this.views = views;
+        int n = views.length;
+        orbits = new Sprite[n];
+        bodies = new Sprite[n];
+        layeredOrbit = new boolean[n];
+        layeredBody = new boolean[n];
+        orbitLayer = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        beltLayer = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+
+        Graphics2D orbitG = orbitLayer.createGraphics();
+        Graphics2D beltG = beltLayer.createGraphics();
+        //sprites to draw into the atlas once it is packed, and discs by color and size so equal ones are shared.
+        List<Sprite> sprites = new ArrayList<>();
+        List<Runnable> drawers = new ArrayList<>();
+        Map<Long, Sprite> discs = new HashMap<>();
+        Graphics2D[] atlasG = new Graphics2D[1];
+
+        for (int i = 0; i < n; i++) {
+            SpaceObjectView view = views[i];
+            BasicSpaceObject object = view.getObject();
+            boolean parentIsRoot = !object.isRoot() && object.getParent().isRoot();
+            int r = view.orbitRad;
+
+            //orbit ring
+            if (!object.isRoot() && r > 0) {
+                if (parentIsRoot) {
+                    layeredOrbit[i] = true;
+                    drawRing(orbitG, view.orbitColor, view.pLocation.x, view.pLocation.y, r);
+                } else {
+                    Sprite s = new Sprite(2 * r + 2, 2 * r + 2, r, r, true);
+                    orbits[i] = s;
+                    sprites.add(s);
+                    drawers.add(() -> drawRing(atlasG[0], view.orbitColor, s.x + r, s.y + r, r));
+                }
+            }
+
+            //body
+            if (view instanceof JunkFieldView) {
+                JunkFieldView field = (JunkFieldView) view;
+                //belts look the same at any angle, so they can be drawn once. Other fields turn, and are drawn by their views.
+                if (field.getFieldShape() != JunkFieldShape.BELT || object.isRoot())
+                    continue;
+                JunkFieldParticles particles = field.getParticles();
+                float scale = field.getScale();
+                if (parentIsRoot) {
+                    layeredBody[i] = true;
+                    Point c = field.getParticleCenter();
+                    particles.paint(beltG, 0, 0, width, height, c.x, c.y, scale, 0);
+                } else {
+                    int half = (int) Math.ceil(particles.getExtent() * scale) + 2;
+                    Sprite s = new Sprite(2 * half, 2 * half, half, half, true);
+                    bodies[i] = s;
+                    sprites.add(s);
+                    drawers.add(() -> particles.paint(atlasG[0], s.x, s.y, s.width, s.height, s.x + half, s.y + half, scale, 0));
+                }
+            } else {
+                int size = view.rect.width;
+                if (size <= 0)
+                    continue;
+                long key = ((long) view.planetTint.getRGB() << 32) | size;
+                Sprite s = discs.get(key);
+                if (s == null) {
+                    Sprite disc = new Sprite(size + 1, size + 1, size / 2, size / 2, false);
+                    s = disc;
+                    discs.put(key, s);
+                    sprites.add(s);
+                    drawers.add(() -> drawDisc(atlasG[0], view.planetTint, disc.x, disc.y, size));
+                }
+                bodies[i] = s;
+            }
+        }
+        orbitG.dispose();
+        beltG.dispose();
+
+        Dimension atlasSize = pack(sprites);
+        atlas = new BufferedImage(Math.max(1, atlasSize.width), Math.max(1, atlasSize.height), BufferedImage.TYPE_INT_ARGB);
+        atlasG[0] = atlas.createGraphics();
+        for (Runnable drawer : drawers)
+            drawer.run();
+        atlasG[0].dispose();
+    }
+
+    /**
+     * Places the sprites in rows, tallest first.
+     * @return The size of the atlas.
+     */
+    private static Dimension pack(List<Sprite> sprites) {
+        List<Sprite> sorted = new ArrayList<>(sprites);
+        sorted.sort((a, b) -> Integer.compare(b.height, a.height));
+        int x = 0, y = 0, rowHeight = 0, width = 0;
+        for (Sprite s : sorted) {
+            if (x > 0 && x + s.width > ATLAS_WIDTH) {
+                y += rowHeight;
+                x = 0;
+                rowHeight = 0;
+            }
+            s.x = x;
+            s.y = y;
+            x += s.width;
+            rowHeight = Math.max(rowHeight, s.height);
+            width = Math.max(width, x);
+        }
+        return new Dimension(width, y + rowHeight);
+    }
+
+    private static void drawRing(Graphics2D g, Color color, int cx, int cy, int r) {
+        g.setColor(color);
+        g.drawOval(cx - r, cy - r, r * 2, r * 2);
+    }
+
+    private static void drawDisc(Graphics2D g, Color color, int x, int y, int size) {
+        g.setColor(color);
+        g.fillOval(x, y, size, size);
+    }
+
+    void paintOrbits(Graphics2D g) {
+        g.drawImage(orbitLayer, 0, 0, null);
+        for (int i = 0; i < views.length; i++) {
+            if (orbits[i] != null)
+                orbits[i].paint(g, atlas, views[i]);
+            else if (!layeredOrbit[i] && !views[i].getObject().isRoot())
+                views[i].paintObjectOrbit(g);
+        }
+    }
+
+    void paintObjects(Graphics2D g) {
+        g.drawImage(beltLayer, 0, 0, null);
+        for (int i = 0; i < views.length; i++) {
+            if (bodies[i] != null)
+                bodies[i].paint(g, atlas, views[i]);
+            else if (!layeredBody[i])
+                views[i].paintObject(g);
+        }
+    }
+}
@@ -1,13 +1,18 @@
 package unicus.spacegame.ui.System;
 
+import unicus.spacegame.StarData;
 import unicus.spacegame.structures.starsystem.BaseStarSystem;
 import unicus.spacegame.structures.starsystem.BasicSpaceObject;
+import unicus.spacegame.structures.starsystem.OrbitalMotion;
 import unicus.spacegame.structures.starsystem.SolLikeSystem;
+import unicus.spacegame.structures.starsystem.StarSystemCache;
 
 import javax.swing.*;
 import java.awt.*;
 
 public class SystemView extends JComponent {
+    //delay between animation frames, about 60 per second.
+    private static final int FRAME_MILLIS = 16;
 
     private BaseStarSystem system;
     private Boolean showOrbits;
@@ -17,11 +22,30 @@ public class SystemView extends JComponent {
 
     private Dimension currentSize;
 
+    //orbital animation. The views are in the same order as the objects of the motion.
+    private OrbitalMotion motion;
+    private final Timer animationTimer;
+    private double animationTime;
+    private long lastFrame;
+    private float timeScale = 1;
+
+    //pre-rendered orbits, belts and discs at the current scale, made on the next paint.
+    private SystemSprites sprites;
+
     public SystemView() {
 //        this.setBackground(Color.black);
+        animationTimer = new Timer(FRAME_MILLIS, e -> animate());
+        animationTimer.setCoalesce(true);
     }
 
 
+    /**
+     * Shows the system of a star, from the star system cache.
+     */
+    public void setStar(StarData star) {
+        setSystem(StarSystemCache.getInstance().get(star));
+    }
+
     public void setSystem(BaseStarSystem system) {
         this.system = system;
         showOrbits = true;
@@ -33,12 +57,14 @@ public class SystemView extends JComponent {
         objectViews = new SpaceObjectView[objList.length];
         for (int i = 0, objListLength = objList.length; i < objListLength; i++)
             objectViews[i] = SpaceObjectView.CreateViewFor(objList[i]);
+        motion = new OrbitalMotion(objList);
+        animationTime = 0;
         updateObjects();
     }
 
     /**
      * Updates scale, offset and the rects of the objectviews
-     * Also updates
+     * Also drops the pre-rendered sprites, as they are drawn at one scale.
      */
     public void updateObjects()
     {
@@ -52,12 +78,73 @@ public class SystemView extends JComponent {
         else {
             scale = (float)size / (float)(sysRadius*2);
         }
-        for (SpaceObjectView obj:objectViews) {
-            obj.update(scale, offset);
-        }
+        sprites = null;
+        updateViews();
+    }
+
+    private void updateViews() {
+        for (int i = 0; i < objectViews.length; i++)
+            objectViews[i].update(scale, offset, motion, i);
         repaint();
     }
 
+    /**
+     * Moves the objects to where they are now.
+     * The positions are computed in one pass over the motion, then only the views are updated.
+     */
+    private void animate() {
+        long now = System.nanoTime();
+        animationTime += (now - lastFrame) / 1e9 * timeScale;
+        lastFrame = now;
+        if (system == null || motion == null || !isShowing())
+            return;
+        motion.update(animationTime);
+        updateViews();
+    }
+
+    /**
+     * @return Game time in seconds since the system was shown.
+     */
+    public double getAnimationTime() {
+        return animationTime;
+    }
+
+    /**
+     * Starts or stops the orbital animation. Stopped, the objects stay where they are.
+     */
+    public void setAnimated(boolean animated) {
+        if (animated && !animationTimer.isRunning()) {
+            lastFrame = System.nanoTime();
+            animationTimer.start();
+        } else if (!animated)
+            animationTimer.stop();
+    }
+    public boolean isAnimated() {
+        return animationTimer.isRunning();
+    }
+
+    /**
+     * @param timeScale Game seconds per real second.
+     */
+    public void setTimeScale(float timeScale) {
+        this.timeScale = timeScale;
+    }
+    public float getTimeScale() {
+        return timeScale;
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        setAnimated(true);
+    }
+
+    @Override
+    public void removeNotify() {
+        setAnimated(false);
+        super.removeNotify();
+    }
+
     public void setShowOrbits(Boolean val){
         showOrbits = val;
         repaint();
@@ -84,14 +171,13 @@ public class SystemView extends JComponent {
         }
 
 
+        if(sprites == null)
+            sprites = new SystemSprites(objectViews, Math.max(1, getWidth()), Math.max(1, getHeight()));
+
         if(showOrbits){
-            for (SpaceObjectView obj:objectViews) {
-                obj.paintObjectOrbit(g);
-            }
-        }
-        for (SpaceObjectView obj:objectViews) {
-            obj.paintObject(g);
+            sprites.paintOrbits(g);
         }
+        sprites.paintObjects(g);
         //show mouse-over rectangles
         for (SpaceObjectView obj:objectViews) {
             g.setColor(Color.yellow);
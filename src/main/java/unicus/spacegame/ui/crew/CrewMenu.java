@@ -4,7 +4,11 @@ import de.gurkenlabs.litiengine.graphics.Spritesheet;
 import de.gurkenlabs.litiengine.gui.ImageComponent;
 import de.gurkenlabs.litiengine.gui.ImageComponentList;
 
+import unicus.spacegame.crew.CrewCursor;
+import unicus.spacegame.crew.SpaceCrew;
+
 import java.awt.*;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.IntConsumer;
@@ -64,6 +68,22 @@ public class CrewMenu extends ImageComponentList {
         return crewList;
     }
 
+    /**
+     * Shows the result of a crew query, like {@link SpaceCrew#queryUnemployed(CrewCursor)}.
+     * Reuses the current crew list array when it has room, so this can be called every frame.
+     * Crewmen beyond the number of cells are not shown.
+     */
+    public void setCrewList(CrewCursor cursor) {
+        int cells = getRows() * getColumns();
+        if(crewList.length != cells)
+            crewList = new int[cells];
+        int n = cursor.drainTo(crewList);
+        //cells without a crewman show as empty (crewID 0)
+        Arrays.fill(crewList, n, cells, 0);
+        if(!isSuspended())
+            prepare();
+    }
+
     public void setCrewList(int[] crewList) {
         assert (crewList.length <= getRows() * getColumns());
         this.crewList = crewList;
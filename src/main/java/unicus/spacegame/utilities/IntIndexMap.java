@@ -0,0 +1,148 @@
+package unicus.spacegame.utilities;
+
+import java.util.Arrays;
+
+/**
+ * A map from int keys to int values, such as {@link ObjectKey} values to array positions.
+ * Uses open addressing with linear probing over primitive arrays, so no boxing happens on lookup.
+ *
+ * Values are expected to be zero or positive. {@link #get(int)} returns -1 when a key is missing.
+ */
+public class IntIndexMap {
+    private static final int MIN_CAPACITY = 16;
+    //The table is grown when more than 1/2 of the slots are used.
+    private static final int LOAD_SHIFT = 1;
+
+    private int[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int size;
+    private int mask;
+
+    public IntIndexMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public IntIndexMap(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while ((capacity >> LOAD_SHIFT) < expectedSize)
+            capacity <<= 1;
+        return capacity;
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+        size = 0;
+    }
+
+    //Spreads the bits of sequential keys across the table.
+    private int slotOf(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * Gets the value stored for a key.
+     * @param key The key to look up.
+     * @return The value of the key, or -1 if the key is not in the map.
+     */
+    public int get(int key) {
+        int slot = slotOf(key);
+        while (used[slot]) {
+            if (keys[slot] == key)
+                return values[slot];
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    public boolean containsKey(int key) {
+        return get(key) >= 0;
+    }
+
+    /**
+     * Stores a value for a key, replacing any previous value.
+     * @param key The key
+     * @param value A value of zero or above.
+     */
+    public void put(int key, int value) {
+        assert (value >= 0);
+        if ((size + 1) > (used.length >> LOAD_SHIFT))
+            rehash(used.length << 1);
+        int slot = slotOf(key);
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        used[slot] = true;
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+    }
+
+    /**
+     * Removes a key from the map.
+     * @param key The key to remove.
+     * @return The value the key had, or -1 if the key was not in the map.
+     */
+    public int remove(int key) {
+        int slot = slotOf(key);
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                int value = values[slot];
+                deleteSlot(slot);
+                size--;
+                return value;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    //Backward-shift deletion, keeps probe chains intact without tombstones.
+    private void deleteSlot(int slot) {
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (used[next]) {
+            int home = slotOf(keys[next]);
+            //move the entry into the gap unless its home lies cyclically in (gap, next]
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        used[gap] = false;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(capacity);
+        for (int i = 0; i < oldUsed.length; i++) {
+            if (oldUsed[i])
+                put(oldKeys[i], oldValues[i]);
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+}
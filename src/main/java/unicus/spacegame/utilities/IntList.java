@@ -0,0 +1,78 @@
+package unicus.spacegame.utilities;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of primitive ints.
+ * Used where an {@code ArrayList<Integer>} would box every value,
+ *  or where {@code ArrayUtils.add} would copy the whole array for every added value.
+ */
+public class IntList {
+    private int[] data;
+    private int size;
+
+    public IntList() {
+        this(8);
+    }
+
+    public IntList(int initialCapacity) {
+        data = new int[java.lang.Math.max(1, initialCapacity)];
+        size = 0;
+    }
+
+    public void add(int value) {
+        if (size == data.length)
+            data = Arrays.copyOf(data, size << 1);
+        data[size++] = value;
+    }
+
+    public void addAll(int... values) {
+        ensureCapacity(size + values.length);
+        System.arraycopy(values, 0, data, size, values.length);
+        size += values.length;
+    }
+
+    public int get(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        return data[index];
+    }
+
+    public void set(int index, int value) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        data[index] = value;
+    }
+
+    public boolean contains(int value) {
+        for (int i = 0; i < size; i++) {
+            if (data[i] == value)
+                return true;
+        }
+        return false;
+    }
+
+    public void ensureCapacity(int capacity) {
+        if (capacity > data.length)
+            data = Arrays.copyOf(data, java.lang.Math.max(capacity, data.length << 1));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Empties the list, but keeps the backing array for reuse.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(data, size);
+    }
+}
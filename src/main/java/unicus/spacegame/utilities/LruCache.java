@@ -0,0 +1,126 @@
+package unicus.spacegame.utilities;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * A map of a bounded size, that evicts the least recently used entry when full.
+ * The size is either a number of entries, or a total weight of the entries, such as their size in bytes.
+ * Counts hits, misses and evictions, for tuning the size.
+ *
+ * Note: not thread-safe.
+ */
+public class LruCache<K, V> {
+    private final int capacity;
+    private final LinkedHashMap<K, V> map;
+    private long hits, misses, evictions;
+    //set for a cache bounded by weight.
+    private final ToLongFunction<? super V> weigher;
+    private final long maxWeight;
+    private long weight;
+
+    /**
+     * @param capacity The maximum number of entries. Must be at least 1.
+     */
+    public LruCache(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Capacity must be at least 1, was " + capacity);
+        this.capacity = capacity;
+        this.weigher = null;
+        this.maxWeight = capacity;
+        //access-order, so the eldest entry is the least recently used.
+        this.map = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if (size() <= LruCache.this.capacity)
+                    return false;
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Creates a cache bounded by the total weight of its entries.
+     * The most recently added entry is always kept, even if it weighs more than the maximum on its own.
+     * @param maxWeight The maximum total weight. Must be at least 1.
+     * @param weigher The weight of an entry. Must not change while the entry is in the cache.
+     */
+    public LruCache(long maxWeight, ToLongFunction<? super V> weigher) {
+        if (maxWeight < 1)
+            throw new IllegalArgumentException("Maximum weight must be at least 1, was " + maxWeight);
+        this.capacity = Integer.MAX_VALUE;
+        this.weigher = weigher;
+        this.maxWeight = maxWeight;
+        this.map = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Gets an entry, and marks it as the most recently used.
+     * @return The value, or null if it is not in the cache.
+     */
+    public V get(K key) {
+        V value = map.get(key);
+        if (value == null)
+            misses++;
+        else
+            hits++;
+        return value;
+    }
+
+    /**
+     * Adds an entry as the most recently used, evicting the least recently used entry if the cache is full.
+     */
+    public void put(K key, V value) {
+        V old = map.put(key, value);
+        if (weigher == null)
+            return;
+        weight += weigher.applyAsLong(value) - (old == null ? 0 : weigher.applyAsLong(old));
+        //the eldest entries come first, the entry just added last.
+        Iterator<V> eldest = map.values().iterator();
+        while (weight > maxWeight && map.size() > 1) {
+            weight -= weigher.applyAsLong(eldest.next());
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Checks for an entry, without counting a hit or miss or changing the order of use.
+     */
+    public boolean containsKey(K key) {
+        return map.containsKey(key);
+    }
+
+    public int size() {
+        return map.size();
+    }
+    public int getCapacity() {
+        return capacity;
+    }
+    /**
+     * @return The total weight of the entries, or the number of entries if the cache is not bounded by weight.
+     */
+    public long getWeight() {
+        return weigher == null ? map.size() : weight;
+    }
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+    public long getHits() {
+        return hits;
+    }
+    public long getMisses() {
+        return misses;
+    }
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public void clear() {
+        map.clear();
+        weight = 0;
+    }
+}
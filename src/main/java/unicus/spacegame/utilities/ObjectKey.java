@@ -42,4 +42,15 @@ public class ObjectKey {
     public void addReserved(int... newReserved) {
         this.reserved = ArrayUtils.addAll(reserved, newReserved);
     }
+
+    /**
+     * The last key yielded. Stored in save-files, so a loaded game never yields a key already in use.
+     * @return
+     */
+    public int getLastKey() {
+        return lastKey;
+    }
+    public void setLastKey(int lastKey) {
+        this.lastKey = lastKey;
+    }
 }